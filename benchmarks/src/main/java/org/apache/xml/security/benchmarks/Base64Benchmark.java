@@ -0,0 +1,121 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.xml.security.Init;
+import org.apache.xml.security.utils.XMLUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Base64 encoding and decoding through XMLUtils (backed by java.util.Base64) and through
+ * the deprecated org.apache.xml.security.utils.Base64 codec, with and without line breaks.
+ */
+@SuppressWarnings("deprecation")
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class Base64Benchmark {
+
+    @Param({"32", "4096", "1048576"})
+    public int size;
+
+    private byte[] data;
+    private String encoded;
+    private byte[] encodedBytes;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        Init.init();
+        data = new byte[size];
+        new Random(42).nextBytes(data);
+        encoded = XMLUtils.encodeToString(data);
+        encodedBytes = encoded.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Benchmark
+    public String encode() {
+        return XMLUtils.encodeToString(data);
+    }
+
+    @Benchmark
+    public byte[] decode() {
+        return XMLUtils.decode(encoded);
+    }
+
+    @Benchmark
+    public String encodeLegacy() {
+        return org.apache.xml.security.utils.Base64.encode(data);
+    }
+
+    @Benchmark
+    public byte[] decodeLegacy() throws Exception {
+        return org.apache.xml.security.utils.Base64.decode(encoded);
+    }
+
+    @Benchmark
+    public String encodeNoLineBreaks() {
+        return java.util.Base64.getEncoder().encodeToString(data);
+    }
+
+    @Benchmark
+    public String encodeLegacyNoLineBreaks() {
+        return org.apache.xml.security.utils.Base64.encode(data, 0);
+    }
+
+    @Benchmark
+    public byte[] decodeStream() throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream(size);
+        try (InputStream is = java.util.Base64.getMimeDecoder().wrap(new ByteArrayInputStream(encodedBytes))) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                os.write(buffer, 0, read);
+            }
+        }
+        return os.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] decodeLegacyStream() throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream(size);
+        org.apache.xml.security.utils.Base64.decode(new ByteArrayInputStream(encodedBytes), os);
+        return os.toByteArray();
+    }
+}
@@ -0,0 +1,174 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.stream.events.XMLEvent;
+
+import org.apache.xml.security.utils.XMLUtils;
+import org.w3c.dom.Document;
+
+/**
+ * Generates the documents used by the benchmarks and provides some helpers shared by them.
+ */
+public final class BenchmarkDocuments {
+
+    public static final String NAMESPACE = "urn:example:invoice";
+
+    private BenchmarkDocuments() {
+        // complete
+    }
+
+    /**
+     * Creates a namespace-qualified business document with the given number of line items.
+     * Each line item contributes roughly 500 bytes of mostly-ASCII content.
+     */
+    public static byte[] createDocument(int lineCount) {
+        StringBuilder sb = new StringBuilder(512 * lineCount + 256);
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        sb.append("<inv:Invoice xmlns:inv=\"").append(NAMESPACE).append('"');
+        sb.append(" xmlns:cac=\"urn:example:aggregate\" xmlns:cbc=\"urn:example:basic\">\n");
+        sb.append("  <cbc:ID>INV-0001</cbc:ID>\n");
+        sb.append("  <cbc:IssueDate>2019-08-01</cbc:IssueDate>\n");
+        for (int i = 0; i < lineCount; i++) {
+            sb.append("  <cac:InvoiceLine cbc:lineNumber=\"").append(i).append("\">\n");
+            sb.append("    <cbc:ID>").append(i).append("</cbc:ID>\n");
+            sb.append("    <cbc:InvoicedQuantity unitCode=\"EA\">").append(i % 17 + 1).append("</cbc:InvoicedQuantity>\n");
+            sb.append("    <cbc:LineExtensionAmount currencyID=\"EUR\">").append(i * 3 + 0.5).append("</cbc:LineExtensionAmount>\n");
+            sb.append("    <cac:Item>\n");
+            sb.append("      <cbc:Description>Widget &amp; accessories, batch ").append(i).append("</cbc:Description>\n");
+            sb.append("      <cbc:Name>Standard widget</cbc:Name>\n");
+            sb.append("      <cac:SellersItemIdentification><cbc:ID>W-").append(i).append("</cbc:ID></cac:SellersItemIdentification>\n");
+            sb.append("    </cac:Item>\n");
+            sb.append("    <cac:Price><cbc:PriceAmount currencyID=\"EUR\">3.00</cbc:PriceAmount></cac:Price>\n");
+            sb.append("  </cac:InvoiceLine>\n");
+        }
+        sb.append("</inv:Invoice>\n");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Creates a document whose root holds <code>breadth</code> chains of nested elements,
+     * <code>depth</code> levels deep in total, where every element declares
+     * <code>declarations</code> namespaces. Half of the prefixes of a level are rebound
+     * to a new URI and the other half redeclare their current binding, as happens with
+     * messages assembled from separately namespaced parts.
+     */
+    public static byte[] createNamespaceDocument(int depth, int declarations, int breadth) {
+        StringBuilder sb = new StringBuilder();
+        appendNamespaceLevel(sb, 0, depth, declarations, breadth);
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendNamespaceLevel(StringBuilder sb, int level, int depth, int declarations, int breadth) {
+        sb.append("<p0:e").append(level);
+        for (int i = 0; i < declarations; i++) {
+            int uri = i % 2 == 0 ? level : 0;
+            sb.append(" xmlns:p").append(i).append("=\"urn:example:ns:").append(i).append(':').append(uri).append('"');
+        }
+        sb.append(" p").append(declarations - 1).append(":a=\"").append(level).append("\">");
+        if (level + 1 < depth) {
+            int children = level == 0 ? breadth : 1;
+            for (int i = 0; i < children; i++) {
+                appendNamespaceLevel(sb, level + 1, depth, declarations, breadth);
+            }
+        } else {
+            sb.append("leaf");
+        }
+        sb.append("</p0:e").append(level).append('>');
+    }
+
+    public static Document parse(byte[] bytes) throws Exception {
+        return XMLUtils.read(new ByteArrayInputStream(bytes), false);
+    }
+
+    public static byte[] serialize(Document document) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        XMLUtils.outputDOM(document, baos);
+        return baos.toByteArray();
+    }
+
+    /**
+     * Copies all events of the reader to the writer
+     */
+    public static void copy(XMLStreamReader xmlr, XMLStreamWriter writer) throws XMLStreamException {
+        while (xmlr.hasNext()) {
+            switch (xmlr.next()) {
+                case XMLEvent.START_ELEMENT:
+                    String namespaceURI = xmlr.getNamespaceURI();
+                    if (namespaceURI != null && namespaceURI.length() > 0) {
+                        String prefix = xmlr.getPrefix();
+                        writer.writeStartElement(prefix == null ? "" : prefix, xmlr.getLocalName(), namespaceURI);
+                    } else {
+                        writer.writeStartElement(xmlr.getLocalName());
+                    }
+                    for (int i = 0, len = xmlr.getNamespaceCount(); i < len; i++) {
+                        String prefix = xmlr.getNamespacePrefix(i);
+                        if (prefix == null) {
+                            writer.writeDefaultNamespace(xmlr.getNamespaceURI(i));
+                        } else {
+                            writer.writeNamespace(prefix, xmlr.getNamespaceURI(i));
+                        }
+                    }
+                    for (int i = 0, len = xmlr.getAttributeCount(); i < len; i++) {
+                        String attUri = xmlr.getAttributeNamespace(i);
+                        if (attUri != null && attUri.length() > 0) {
+                            writer.writeAttribute(xmlr.getAttributePrefix(i), attUri,
+                                                  xmlr.getAttributeLocalName(i), xmlr.getAttributeValue(i));
+                        } else {
+                            writer.writeAttribute(xmlr.getAttributeLocalName(i), xmlr.getAttributeValue(i));
+                        }
+                    }
+                    break;
+                case XMLEvent.END_ELEMENT:
+                    writer.writeEndElement();
+                    break;
+                case XMLEvent.SPACE:
+                case XMLEvent.CHARACTERS:
+                    writer.writeCharacters(xmlr.getTextCharacters(), xmlr.getTextStart(), xmlr.getTextLength());
+                    break;
+                case XMLEvent.END_DOCUMENT:
+                    writer.writeEndDocument();
+                    break;
+                default:
+                    break;
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Reads all events of the given reader, i.e. drives the inbound security processing
+     */
+    public static int drain(XMLStreamReader xmlStreamReader) throws XMLStreamException {
+        int count = 0;
+        while (xmlStreamReader.hasNext()) {
+            xmlStreamReader.next();
+            count++;
+        }
+        xmlStreamReader.close();
+        return count;
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.benchmarks;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.xml.security.Init;
+import org.apache.xml.security.algorithms.MessageDigestAlgorithm;
+import org.apache.xml.security.signature.XMLSignature;
+import org.apache.xml.security.transforms.Transforms;
+import org.apache.xml.security.utils.Constants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Enveloped signature creation (XMLSignature.sign) and verification (XMLSignature.checkSignatureValue)
+ * with the DOM API.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DOMSignatureBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int lineCount;
+
+    @Param({
+        XMLSignature.ALGO_ID_SIGNATURE_RSA_SHA256,
+        XMLSignature.ALGO_ID_SIGNATURE_ECDSA_SHA256,
+    })
+    public String signatureAlgorithm;
+
+    private KeyPair keyPair;
+    private byte[] document;
+    private byte[] signedDocument;
+
+    private Document documentToSign;
+    private Element signatureToVerify;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws Exception {
+        Init.init();
+
+        KeyPairGenerator keyPairGenerator;
+        if (XMLSignature.ALGO_ID_SIGNATURE_ECDSA_SHA256.equals(signatureAlgorithm)) {
+            keyPairGenerator = KeyPairGenerator.getInstance("EC");
+            keyPairGenerator.initialize(256);
+        } else {
+            keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+            keyPairGenerator.initialize(2048);
+        }
+        keyPair = keyPairGenerator.generateKeyPair();
+
+        document = BenchmarkDocuments.createDocument(lineCount);
+        Document doc = BenchmarkDocuments.parse(document);
+        sign(doc);
+        signedDocument = BenchmarkDocuments.serialize(doc);
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() throws Exception {
+        documentToSign = BenchmarkDocuments.parse(document);
+        Document doc = BenchmarkDocuments.parse(signedDocument);
+        signatureToVerify =
+            (Element) doc.getElementsByTagNameNS(Constants.SignatureSpecNS, Constants._TAG_SIGNATURE).item(0);
+    }
+
+    private XMLSignature sign(Document doc) throws Exception {
+        XMLSignature sig = new XMLSignature(doc, "", signatureAlgorithm);
+        Element root = doc.getDocumentElement();
+        root.insertBefore(sig.getElement(), root.getFirstChild());
+
+        Transforms transforms = new Transforms(doc);
+        transforms.addTransform(Transforms.TRANSFORM_ENVELOPED_SIGNATURE);
+        transforms.addTransform(Transforms.TRANSFORM_C14N_EXCL_OMIT_COMMENTS);
+        sig.addDocument("", transforms, MessageDigestAlgorithm.ALGO_ID_DIGEST_SHA256);
+
+        sig.sign(keyPair.getPrivate());
+        return sig;
+    }
+
+    @Benchmark
+    public XMLSignature signDocument() throws Exception {
+        return sign(documentToSign);
+    }
+
+    @Benchmark
+    public boolean verifyDocument() throws Exception {
+        XMLSignature sig = new XMLSignature(signatureToVerify, "", true);
+        if (!sig.checkSignatureValue(keyPair.getPublic())) {
+            throw new IllegalStateException("Signature verification failed");
+        }
+        return true;
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.xml.security.Init;
+import org.apache.xml.security.c14n.Canonicalizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+
+/**
+ * Canonicalization of namespace heavy documents, which mostly exercises the namespace
+ * symbol table: "deep" is a single chain of 500 nested elements, "wide" is 2000 short
+ * chains below the root. Every element declares 10 namespaces.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NamespaceBenchmark {
+
+    @Param({"deep", "wide"})
+    public String shape;
+
+    @Param({
+        Canonicalizer.ALGO_ID_C14N_OMIT_COMMENTS,
+        Canonicalizer.ALGO_ID_C14N_EXCL_OMIT_COMMENTS,
+    })
+    public String canonicalizationAlgorithm;
+
+    private Document document;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws Exception {
+        Init.init();
+        byte[] bytes = "deep".equals(shape)
+            ? BenchmarkDocuments.createNamespaceDocument(500, 10, 1)
+            : BenchmarkDocuments.createNamespaceDocument(3, 10, 2000);
+        document = BenchmarkDocuments.parse(bytes);
+    }
+
+    @Benchmark
+    public byte[] canonicalizeSubtree() throws Exception {
+        return Canonicalizer.getInstance(canonicalizationAlgorithm).canonicalizeSubtree(document);
+    }
+}
@@ -0,0 +1,211 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.xml.security.stax.ext.InboundXMLSec;
+import org.apache.xml.security.stax.ext.OutboundXMLSec;
+import org.apache.xml.security.stax.ext.SecurePart;
+import org.apache.xml.security.stax.ext.XMLSec;
+import org.apache.xml.security.stax.ext.XMLSecurityConstants;
+import org.apache.xml.security.stax.ext.XMLSecurityProperties;
+import org.apache.xml.security.stax.securityToken.SecurityTokenConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Streaming signature creation/verification and encryption/decryption with OutboundXMLSec and InboundXMLSec.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StAXBenchmark {
+
+    private static final QName ROOT = new QName(BenchmarkDocuments.NAMESPACE, "Invoice");
+
+    @State(Scope.Benchmark)
+    public static class SignatureState {
+
+        @Param({"10", "1000", "10000"})
+        public int lineCount;
+
+        @Param({
+            "http://www.w3.org/2001/04/xmldsig-more#rsa-sha256",
+            "http://www.w3.org/2001/04/xmldsig-more#ecdsa-sha256",
+        })
+        public String signatureAlgorithm;
+
+        XMLInputFactory xmlInputFactory;
+        OutboundXMLSec outboundXMLSec;
+        InboundXMLSec inboundXMLSec;
+        byte[] document;
+        byte[] signedDocument;
+
+        @Setup(Level.Trial)
+        public void setUpTrial() throws Exception {
+            org.apache.xml.security.Init.init();
+            xmlInputFactory = newXMLInputFactory();
+
+            KeyPairGenerator keyPairGenerator;
+            if (signatureAlgorithm.endsWith("ecdsa-sha256")) {
+                keyPairGenerator = KeyPairGenerator.getInstance("EC");
+                keyPairGenerator.initialize(256);
+            } else {
+                keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+                keyPairGenerator.initialize(2048);
+            }
+            KeyPair keyPair = keyPairGenerator.generateKeyPair();
+
+            XMLSecurityProperties signatureProperties = new XMLSecurityProperties();
+            signatureProperties.setActions(Collections.singletonList(XMLSecurityConstants.SIGNATURE));
+            signatureProperties.setSignatureAlgorithm(signatureAlgorithm);
+            signatureProperties.setSignatureKey(keyPair.getPrivate());
+            signatureProperties.setSignatureKeyIdentifier(SecurityTokenConstants.KeyIdentifier_KeyValue);
+            signatureProperties.setSignatureCanonicalizationAlgorithm("http://www.w3.org/2001/10/xml-exc-c14n#");
+            signatureProperties.addSignaturePart(
+                new SecurePart(ROOT, SecurePart.Modifier.Element,
+                               new String[]{
+                                   "http://www.w3.org/2000/09/xmldsig#enveloped-signature",
+                                   "http://www.w3.org/2001/10/xml-exc-c14n#"
+                               },
+                               "http://www.w3.org/2001/04/xmlenc#sha256"));
+            outboundXMLSec = XMLSec.getOutboundXMLSec(signatureProperties);
+
+            XMLSecurityProperties verificationProperties = new XMLSecurityProperties();
+            verificationProperties.setSignatureVerificationKey(keyPair.getPublic());
+            inboundXMLSec = XMLSec.getInboundWSSec(verificationProperties);
+
+            document = BenchmarkDocuments.createDocument(lineCount);
+            signedDocument = process(xmlInputFactory, outboundXMLSec, document);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class EncryptionState {
+
+        @Param({"10", "1000", "10000"})
+        public int lineCount;
+
+        @Param({
+            "http://www.w3.org/2001/04/xmlenc#aes128-cbc",
+            "http://www.w3.org/2009/xmlenc11#aes256-gcm",
+        })
+        public String encryptionAlgorithm;
+
+        XMLInputFactory xmlInputFactory;
+        OutboundXMLSec outboundXMLSec;
+        InboundXMLSec inboundXMLSec;
+        byte[] document;
+        byte[] encryptedDocument;
+
+        @Setup(Level.Trial)
+        public void setUpTrial() throws Exception {
+            org.apache.xml.security.Init.init();
+            xmlInputFactory = newXMLInputFactory();
+
+            KeyGenerator keygen = KeyGenerator.getInstance("AES");
+            keygen.init(encryptionAlgorithm.endsWith("aes128-cbc") ? 128 : 256);
+            SecretKey secretKey = keygen.generateKey();
+
+            XMLSecurityProperties encryptionProperties = new XMLSecurityProperties();
+            encryptionProperties.setActions(Collections.singletonList(XMLSecurityConstants.ENCRYPT));
+            encryptionProperties.setEncryptionKey(secretKey);
+            encryptionProperties.setEncryptionSymAlgorithm(encryptionAlgorithm);
+            encryptionProperties.addEncryptionPart(new SecurePart(ROOT, SecurePart.Modifier.Content));
+            outboundXMLSec = XMLSec.getOutboundXMLSec(encryptionProperties);
+
+            XMLSecurityProperties decryptionProperties = new XMLSecurityProperties();
+            decryptionProperties.setDecryptionKey(secretKey);
+            inboundXMLSec = XMLSec.getInboundWSSec(decryptionProperties);
+
+            document = BenchmarkDocuments.createDocument(lineCount);
+            encryptedDocument = process(xmlInputFactory, outboundXMLSec, document);
+        }
+    }
+
+    private static XMLInputFactory newXMLInputFactory() {
+        XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+        xmlInputFactory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        return xmlInputFactory;
+    }
+
+    private static byte[] process(XMLInputFactory xmlInputFactory, OutboundXMLSec outboundXMLSec, byte[] bytes)
+        throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(bytes.length * 2);
+        XMLStreamWriter xmlStreamWriter = outboundXMLSec.processOutMessage(baos, StandardCharsets.UTF_8.name());
+        XMLStreamReader xmlStreamReader = xmlInputFactory.createXMLStreamReader(new ByteArrayInputStream(bytes));
+        BenchmarkDocuments.copy(xmlStreamReader, xmlStreamWriter);
+        xmlStreamWriter.close();
+        xmlStreamReader.close();
+        return baos.toByteArray();
+    }
+
+    private static int process(XMLInputFactory xmlInputFactory, InboundXMLSec inboundXMLSec, byte[] bytes)
+        throws Exception {
+        XMLStreamReader xmlStreamReader = xmlInputFactory.createXMLStreamReader(new ByteArrayInputStream(bytes));
+        return BenchmarkDocuments.drain(inboundXMLSec.processInMessage(xmlStreamReader));
+    }
+
+    @Benchmark
+    public byte[] signOutbound(SignatureState state) throws Exception {
+        return process(state.xmlInputFactory, state.outboundXMLSec, state.document);
+    }
+
+    @Benchmark
+    public int verifyInbound(SignatureState state) throws Exception {
+        return process(state.xmlInputFactory, state.inboundXMLSec, state.signedDocument);
+    }
+
+    @Benchmark
+    public byte[] encryptOutbound(EncryptionState state) throws Exception {
+        return process(state.xmlInputFactory, state.outboundXMLSec, state.document);
+    }
+
+    @Benchmark
+    public int decryptInbound(EncryptionState state) throws Exception {
+        return process(state.xmlInputFactory, state.inboundXMLSec, state.encryptedDocument);
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+
+import org.apache.xml.security.Init;
+import org.apache.xml.security.encryption.XMLCipher;
+import org.apache.xml.security.utils.EncryptionConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Element encryption and decryption (XMLCipher.doFinal) with the DOM API.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class XMLCipherBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int lineCount;
+
+    @Param({
+        XMLCipher.AES_128,
+        XMLCipher.AES_256_GCM,
+    })
+    public String encryptionAlgorithm;
+
+    private SecretKey secretKey;
+    private byte[] document;
+    private byte[] encryptedDocument;
+
+    private Document documentToEncrypt;
+    private Document documentToDecrypt;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws Exception {
+        Init.init();
+
+        KeyGenerator keygen = KeyGenerator.getInstance("AES");
+        keygen.init(XMLCipher.AES_128.equals(encryptionAlgorithm) ? 128 : 256);
+        secretKey = keygen.generateKey();
+
+        document = BenchmarkDocuments.createDocument(lineCount);
+        encryptedDocument = BenchmarkDocuments.serialize(encrypt(BenchmarkDocuments.parse(document)));
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() throws Exception {
+        documentToEncrypt = BenchmarkDocuments.parse(document);
+        documentToDecrypt = BenchmarkDocuments.parse(encryptedDocument);
+    }
+
+    private Document encrypt(Document doc) throws Exception {
+        XMLCipher cipher = XMLCipher.getInstance(encryptionAlgorithm);
+        cipher.init(XMLCipher.ENCRYPT_MODE, secretKey);
+        return cipher.doFinal(doc, doc.getDocumentElement(), true);
+    }
+
+    @Benchmark
+    public Document encryptContent() throws Exception {
+        return encrypt(documentToEncrypt);
+    }
+
+    @Benchmark
+    public Document decryptContent() throws Exception {
+        Element encryptedData =
+            (Element) documentToDecrypt.getElementsByTagNameNS(
+                EncryptionConstants.EncryptionSpecNS, EncryptionConstants._TAG_ENCRYPTEDDATA).item(0);
+        XMLCipher cipher = XMLCipher.getInstance(encryptionAlgorithm);
+        cipher.init(XMLCipher.DECRYPT_MODE, secretKey);
+        return cipher.doFinal(documentToDecrypt, encryptedData);
+    }
+}
@@ -141,6 +141,16 @@ public abstract class ApacheCanonicalizer extends TransformService {
                             (canonicalizer.canonicalizeSubtree
                                 (in.getSubNode())));
                     }
+                } else if (in.isNodeSet() && in.getSubNode() != null) {
+                    // let the canonicalizer evaluate the node filters as it
+                    // walks the subtree, instead of expanding it into a node-set
+                    if (inclusiveNamespaces != null) {
+                        return new OctetStreamData(new ByteArrayInputStream
+                            (canonicalizer.canonicalize(in, inclusiveNamespaces)));
+                    } else {
+                        return new OctetStreamData(new ByteArrayInputStream
+                            (canonicalizer.canonicalize(in)));
+                    }
                 } else if (in.isNodeSet()) {
                     nodeSet = in.getNodeSet();
                 } else {
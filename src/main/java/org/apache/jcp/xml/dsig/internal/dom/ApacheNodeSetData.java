@@ -23,10 +23,10 @@ package org.apache.jcp.xml.dsig.internal.dom;
 
 import java.util.Collections;
 import java.util.Iterator;
-import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.NoSuchElementException;
 import javax.xml.crypto.NodeSetData;
+import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.apache.xml.security.signature.NodeFilter;
 import org.apache.xml.security.signature.XMLSignatureInput;
@@ -41,10 +41,15 @@ public class ApacheNodeSetData implements ApacheData, NodeSetData {
     }
 
     public Iterator<Node> iterator() {
-        // If nodefilters are set, must execute them first to create node-set
+        // If nodefilters are set, they are evaluated while walking the subtree
         if (xi.getNodeFilters() != null && !xi.getNodeFilters().isEmpty()) {
-            return Collections.unmodifiableSet
-                (getNodeSet(xi.getNodeFilters())).iterator();
+            if (xi.isNeedsToBeExpanded()) {
+                XMLUtils.circumventBug2650
+                    (XMLUtils.getOwnerDocument(xi.getSubNode()));
+            }
+            return new FilteredNodeIterator(xi.getSubNode(),
+                                            xi.getNodeFilters(),
+                                            !xi.isExcludeComments());
         }
         try {
             return Collections.unmodifiableSet(xi.getNodeSet()).iterator();
@@ -59,29 +64,135 @@ public class ApacheNodeSetData implements ApacheData, NodeSetData {
         return xi;
     }
 
-    private Set<Node> getNodeSet(List<NodeFilter> nodeFilters) {
-        if (xi.isNeedsToBeExpanded()) {
-            XMLUtils.circumventBug2650
-                (XMLUtils.getOwnerDocument(xi.getSubNode()));
+    /**
+     * Iterates over the nodes of a subtree in the order used by
+     * {@link XMLUtils#getSet}, returning only the nodes accepted by all the
+     * node filters. Only the current position in the tree is kept, so the
+     * node-set is never materialized.
+     */
+    private static final class FilteredNodeIterator implements Iterator<Node> {
+
+        private final Node root;
+        private final List<NodeFilter> nodeFilters;
+        private final boolean withComments;
+        private Node current;
+        private NamedNodeMap attributes;
+        private int attributeIndex;
+        private Node next;
+
+        FilteredNodeIterator(Node root, List<NodeFilter> nodeFilters,
+                             boolean withComments) {
+            this.root = root;
+            this.nodeFilters = nodeFilters;
+            this.withComments = withComments;
+            this.current = root;
+            this.next = advance();
         }
 
-        Set<Node> inputSet = new LinkedHashSet<>();
-        XMLUtils.getSet(xi.getSubNode(), inputSet,
-                        null, !xi.isExcludeComments());
-        Set<Node> nodeSet = new LinkedHashSet<>();
-        for (Node currentNode : inputSet) {
-            Iterator<NodeFilter> it = nodeFilters.iterator();
-            boolean skipNode = false;
-            while (it.hasNext() && !skipNode) {
-                NodeFilter nf = it.next();
-                if (nf.isNodeInclude(currentNode) != 1) {
-                    skipNode = true;
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        public Node next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Node result = next;
+            next = advance();
+            return result;
+        }
+
+        private Node advance() {
+            while (true) {
+                if (attributes != null) {
+                    if (attributeIndex < attributes.getLength()) {
+                        Node attr = attributes.item(attributeIndex++);
+                        if (isNodeInclude(attr) == 1) {
+                            return attr;
+                        }
+                        continue;
+                    }
+                    attributes = null;
+                }
+                Node node = current;
+                if (node == null) {
+                    return null;
+                }
+                switch (node.getNodeType()) {
+                case Node.ELEMENT_NODE:
+                    int include = isNodeInclude(node);
+                    if (include == -1) {
+                        // the element and all its descendants are excluded
+                        current = following(node);
+                        continue;
+                    }
+                    current = firstChild(node);
+                    if (node.hasAttributes()) {
+                        attributes = node.getAttributes();
+                        attributeIndex = 0;
+                    }
+                    if (include == 1) {
+                        return node;
+                    }
+                    continue;
+                case Node.DOCUMENT_NODE:
+                    current = firstChild(node);
+                    continue;
+                case Node.DOCUMENT_TYPE_NODE:
+                    current = following(node);
+                    continue;
+                case Node.COMMENT_NODE:
+                    current = following(node);
+                    if (withComments && isNodeInclude(node) == 1) {
+                        return node;
+                    }
+                    continue;
+                default:
+                    current = following(node);
+                    if (isNodeInclude(node) == 1) {
+                        return node;
+                    }
                 }
             }
-            if (!skipNode) {
-                nodeSet.add(currentNode);
+        }
+
+        private int isNodeInclude(Node node) {
+            int result = 1;
+            for (NodeFilter nf : nodeFilters) {
+                int include = nf.isNodeInclude(node);
+                if (include == -1) {
+                    return -1;
+                }
+                if (include != 1) {
+                    result = include;
+                }
+            }
+            return result;
+        }
+
+        private Node firstChild(Node node) {
+            Node child = node.getFirstChild();
+            return child != null ? child : following(node);
+        }
+
+        /**
+         * Returns the next node after the subtree of the given node, treating
+         * adjacent text nodes as a single node.
+         */
+        private Node following(Node node) {
+            for (Node n = node; n != null && n != root; n = n.getParentNode()) {
+                Node sibling = n.getNextSibling();
+                if (n.getNodeType() == Node.TEXT_NODE) {
+                    while (sibling != null
+                        && sibling.getNodeType() == Node.TEXT_NODE) {
+                        sibling = sibling.getNextSibling();
+                    }
+                }
+                if (sibling != null) {
+                    return sibling;
+                }
             }
+            return null;
         }
-        return nodeSet;
     }
 }
@@ -47,8 +47,10 @@ import org.w3c.dom.Node;
 import org.apache.xml.security.utils.XMLUtils;
 
 import org.apache.jcp.xml.dsig.internal.DigesterOutputStream;
+import org.apache.xml.security.algorithms.JCEEnginePool;
 import org.apache.xml.security.algorithms.MessageDigestAlgorithm;
 import org.apache.xml.security.signature.XMLSignatureInput;
+import org.apache.xml.security.utils.BufferedDigesterOutputStream;
 import org.apache.xml.security.utils.UnsyncBufferedOutputStream;
 
 /**
@@ -93,7 +95,6 @@ public final class DOMReference extends DOMStructure
     private boolean validationStatus;
     private Data derefData;
     private InputStream dis;
-    private MessageDigest md;
     private Provider provider;
 
     /**
@@ -343,6 +344,17 @@ public final class DOMReference extends DOMStructure
 
     public void digest(XMLSignContext signContext)
         throws XMLSignatureException
+    {
+        computeDigestValue(signContext);
+        storeDigestValue();
+    }
+
+    /**
+     * Dereferences, transforms and digests the referenced data, without inserting
+     * the result into the DigestValue element.
+     */
+    void computeDigestValue(XMLSignContext signContext)
+        throws XMLSignatureException
     {
         Data data = null;
         if (appliedTransformData == null) {
@@ -351,7 +363,13 @@ public final class DOMReference extends DOMStructure
             data = appliedTransformData;
         }
         digestValue = transform(data, signContext);
+    }
 
+    /**
+     * Inserts the digest value calculated by computeDigestValue into the
+     * DigestValue element.
+     */
+    void storeDigestValue() throws XMLSignatureException {
         // insert digestValue into DigestValue element
         String encodedDV = XMLUtils.encodeToString(digestValue);
         LOG.debug("Reference object uri = {}", uri);
@@ -422,26 +440,29 @@ public final class DOMReference extends DOMStructure
                              XMLCryptoContext context)
         throws XMLSignatureException
     {
-        if (md == null) {
-            try {
-                md = MessageDigest.getInstance
-                    (((DOMDigestMethod)digestMethod).getMessageDigestAlgorithm());
-            } catch (NoSuchAlgorithmException nsae) {
-                throw new XMLSignatureException(nsae);
-            }
+        String digestAlgorithm = ((DOMDigestMethod)digestMethod).getMessageDigestAlgorithm();
+        MessageDigest md;
+        try {
+            md = JCEEnginePool.MESSAGE_DIGEST.acquire(digestAlgorithm, null);
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new XMLSignatureException(nsae);
+        } catch (NoSuchProviderException nspe) {
+            throw new XMLSignatureException(nspe);
         }
-        md.reset();
-        DigesterOutputStream dos;
+        DigesterOutputStream dos = null;
+        OutputStream digestOs;
         Boolean cache = (Boolean)
             context.getProperty("javax.xml.crypto.dsig.cacheReference");
         if (cache != null && cache) {
             this.derefData = copyDerefData(dereferencedData);
             dos = new DigesterOutputStream(md, true);
+            digestOs = new UnsyncBufferedOutputStream(dos);
         } else {
-            dos = new DigesterOutputStream(md);
+            // no copy of the digested bytes is needed, so feed the digest directly
+            digestOs = new BufferedDigesterOutputStream(md);
         }
         Data data = dereferencedData;
-        try (OutputStream os = new UnsyncBufferedOutputStream(dos)) {
+        try (OutputStream os = digestOs) {
             for (int i = 0, size = transforms.size(); i < size; i++) {
                 DOMTransform transform = (DOMTransform)transforms.get(i);
                 if (i < size - 1) {
@@ -528,10 +549,11 @@ public final class DOMReference extends DOMStructure
                 }
             }
             os.flush();
-            if (cache != null && cache) {
+            if (dos != null) {
                 this.dis = dos.getInputStream();
+                return dos.getDigestValue();
             }
-            return dos.getDigestValue();
+            return md.digest();
         } catch (NoSuchAlgorithmException e) {
             throw new XMLSignatureException(e);
         } catch (TransformException e) {
@@ -543,6 +565,7 @@ public final class DOMReference extends DOMStructure
         } catch (org.apache.xml.security.c14n.CanonicalizationException e) {
             throw new XMLSignatureException(e);
         } finally { //NOPMD
+            JCEEnginePool.MESSAGE_DIGEST.release(md, digestAlgorithm, null);
             if (dos != null) {
                 try {
                     dos.close();
@@ -607,6 +630,18 @@ public final class DOMReference extends DOMStructure
         return digested;
     }
 
+    /**
+     * Returns true if digesting a reference may insert an explicit C14N 1.1
+     * Transform into its Reference element.
+     */
+    static boolean isC14N11Enabled(XMLCryptoContext context) {
+        if (useC14N11) {
+            return true;
+        }
+        Boolean prop = (Boolean)context.getProperty("org.apache.xml.security.useC14N11");
+        return prop != null && prop;
+    }
+
     private static Data copyDerefData(Data dereferencedData) {
         if (dereferencedData instanceof ApacheData) {
             // need to make a copy of the Data
@@ -614,7 +649,8 @@ public final class DOMReference extends DOMStructure
             XMLSignatureInput xsi = ad.getXMLSignatureInput();
             if (xsi.isNodeSet()) {
                 try {
-                    final Set<Node> s = xsi.getNodeSet();
+                    // take a snapshot, as a subtree node-set is a live view of the document
+                    final Set<Node> s = new LinkedHashSet<>(xsi.getNodeSet());
                     return new NodeSetData() {
                         public Iterator<Node> iterator() { return s.iterator(); }
                     };
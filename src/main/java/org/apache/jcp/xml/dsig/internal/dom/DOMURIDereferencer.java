@@ -22,10 +22,12 @@
 package org.apache.jcp.xml.dsig.internal.dom;
 
 import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 
 import org.apache.xml.security.Init;
+import org.apache.xml.security.utils.IdIndex;
 import org.apache.xml.security.utils.XMLUtils;
 import org.apache.xml.security.utils.resolver.ResourceResolver;
 import org.apache.xml.security.signature.XMLSignatureInput;
@@ -78,8 +80,12 @@ public final class DOMURIDereferencer implements URIDereferencer {
             Node referencedElem = dcc.getElementById(id);
             if (referencedElem != null) {
                 if (secVal) {
-                    Element start = referencedElem.getOwnerDocument().getDocumentElement();
-                    if (!XMLUtils.protectAgainstWrappingAttack(start, (Element)referencedElem, id)) {
+                    Document doc = referencedElem.getOwnerDocument();
+                    IdIndex idIndex = IdIndex.getInstance(doc);
+                    boolean unique = idIndex != null
+                        ? idIndex.isUnique((Element)referencedElem, id)
+                        : XMLUtils.protectAgainstWrappingAttack(doc.getDocumentElement(), (Element)referencedElem, id);
+                    if (!unique) {
                         String error = "Multiple Elements with the same ID " + id + " were detected";
                         throw new URIReferenceException(error);
                     }
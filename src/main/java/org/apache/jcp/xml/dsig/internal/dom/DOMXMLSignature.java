@@ -38,28 +38,63 @@ import javax.xml.crypto.dsig.keyinfo.KeyInfo;
 import java.security.InvalidKeyException;
 import java.security.Key;
 import java.security.Provider;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.w3c.dom.Attr;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 
+import org.apache.xml.security.utils.IdIndex;
 import org.apache.xml.security.utils.XMLUtils;
 
 /**
  * DOM-based implementation of XMLSignature.
- *
+ * <p>
+ * The following properties of the {@link XMLCryptoContext} are supported in addition to
+ * those of the JSR 105 API:
+ * <ul>
+ * <li><code>org.jcp.xml.dsig.validateManifests</code>: a <code>Boolean</code>; if true,
+ * {@link #validate} also validates the References of the Manifests in the Objects of the
+ * signature.</li>
+ * <li><code>org.jcp.xml.dsig.digestExecutor</code>: a {@link java.util.concurrent.Executor}
+ * on which {@link #sign} computes the digests of the References concurrently. References are
+ * treated as independent of each other, so only those are submitted which do not point to a
+ * Manifest of this signature and only use canonicalization, enveloped signature and base64
+ * Transforms; the others are digested on the calling thread afterwards. The document is only
+ * read while the tasks run, and the DigestValues are stored in the order of the References.
+ * If the executor rejects a task, it runs on the calling thread. The property is ignored when
+ * <code>org.apache.xml.security.useC14N11</code> is enabled.</li>
+ * </ul>
  */
 public final class DOMXMLSignature extends DOMStructure
     implements XMLSignature {
 
     private static final org.slf4j.Logger LOG =
         org.slf4j.LoggerFactory.getLogger(DOMXMLSignature.class);
+
+    /** The Transforms which only read the document, see {@link #isIndependent} */
+    private static final Set<String> CONCURRENT_TRANSFORMS = new HashSet<>(Arrays.asList(
+        CanonicalizationMethod.INCLUSIVE,
+        CanonicalizationMethod.INCLUSIVE_WITH_COMMENTS,
+        DOMCanonicalXMLC14N11Method.C14N_11,
+        DOMCanonicalXMLC14N11Method.C14N_11_WITH_COMMENTS,
+        CanonicalizationMethod.EXCLUSIVE,
+        CanonicalizationMethod.EXCLUSIVE_WITH_COMMENTS,
+        Transform.ENVELOPED,
+        Transform.BASE64
+    ));
     private String id;
     private SignatureValue sv;
     private KeyInfo ki;
@@ -257,12 +292,24 @@ public final class DOMXMLSignature extends DOMStructure
             return validationStatus;
         }
 
+        // the same-document references share one index of the IDs
+        IdIndex.attach(ownerDoc);
+        try {
+            validationStatus = validateSignatureAndReferences(vc);
+        } finally {
+            IdIndex.detach(ownerDoc);
+        }
+        validated = true;
+        return validationStatus;
+    }
+
+    private boolean validateSignatureAndReferences(XMLValidateContext vc)
+        throws XMLSignatureException
+    {
         // validate the signature
         boolean sigValidity = sv.validate(vc);
         if (!sigValidity) {
-            validationStatus = false;
-            validated = true;
-            return validationStatus;
+            return false;
         }
 
         // validate all References
@@ -277,9 +324,7 @@ public final class DOMXMLSignature extends DOMStructure
         }
         if (!validateRefs) {
             LOG.debug("Couldn't validate the References");
-            validationStatus = false;
-            validated = true;
-            return validationStatus;
+            return false;
         }
 
         // validate Manifests, if property set
@@ -313,9 +358,7 @@ public final class DOMXMLSignature extends DOMStructure
             }
         }
 
-        validationStatus = validateMans;
-        validated = true;
-        return validationStatus;
+        return validateMans;
     }
 
     @Override
@@ -363,17 +406,31 @@ public final class DOMXMLSignature extends DOMStructure
         // that Manifest reference are digested first
         allReferences.addAll(refs);
 
-        // generate/digest each reference
-        for (Reference ref : allReferences) {
-            digestReference((DOMReference)ref, signContext);
-        }
+        // the same-document references share one index of the IDs
+        IdIndex.attach(ownerDoc);
+        try {
+            // digest the references which do not depend on other parts of the
+            // Signature concurrently, if an Executor was supplied
+            Executor executor =
+                (Executor)signContext.getProperty("org.jcp.xml.dsig.digestExecutor");
+            if (executor != null && !DOMReference.isC14N11Enabled(signContext)) {
+                digestReferencesConcurrently(allReferences, signContext, executor);
+            }
+
+            // generate/digest each reference
+            for (Reference ref : allReferences) {
+                digestReference((DOMReference)ref, signContext);
+            }
 
-        // do final sweep to digest any references that were skipped or missed
-        for (Reference ref : allReferences) {
-            if (((DOMReference)ref).isDigested()) {
-                continue;
+            // do final sweep to digest any references that were skipped or missed
+            for (Reference ref : allReferences) {
+                if (((DOMReference)ref).isDigested()) {
+                    continue;
+                }
+                ((DOMReference)ref).digest(signContext);
             }
-            ((DOMReference)ref).digest(signContext);
+        } finally {
+            IdIndex.detach(ownerDoc);
         }
 
         Key signingKey = null;
@@ -443,6 +500,113 @@ public final class DOMXMLSignature extends DOMStructure
         return result;
     }
 
+    /**
+     * Computes the digests of the independent references on the given Executor. The
+     * document is only read while the digests are computed; the DigestValue elements
+     * are filled in afterwards on the calling thread, in document order.
+     */
+    private void digestReferencesConcurrently(List<Reference> references,
+                                              XMLSignContext signContext,
+                                              Executor executor)
+        throws XMLSignatureException
+    {
+        List<DOMReference> independent = new ArrayList<>(references.size());
+        for (Reference ref : references) {
+            DOMReference domRef = (DOMReference)ref;
+            if (!domRef.isDigested() && isIndependent(domRef)) {
+                independent.add(domRef);
+            }
+        }
+        if (independent.size() < 2) {
+            return;
+        }
+
+        List<FutureTask<Void>> tasks = new ArrayList<>(independent.size());
+        for (DOMReference ref : independent) {
+            FutureTask<Void> task = new FutureTask<>(() -> {
+                ref.computeDigestValue(signContext);
+                return null;
+            });
+            tasks.add(task);
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                task.run();
+            }
+        }
+
+        // wait for all the tasks before touching the document again
+        Throwable failure = null;
+        boolean interrupted = false;
+        for (FutureTask<Void> task : tasks) {
+            while (true) {
+                try {
+                    task.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure instanceof XMLSignatureException) {
+            throw (XMLSignatureException)failure;
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException)failure;
+        } else if (failure instanceof Error) {
+            throw (Error)failure;
+        } else if (failure != null) {
+            throw new XMLSignatureException(failure);
+        }
+
+        for (DOMReference ref : independent) {
+            ref.storeDigestValue();
+        }
+    }
+
+    /**
+     * Returns true if the reference does not point to a part of this Signature
+     * which may contain other references, and all its Transforms only read the document.
+     * XPath Transforms may add namespace declarations to the whole document (see
+     * XMLUtils.circumventBug2650) whatever the URI of the reference is, and the XPath
+     * Filter 2.0, XPointer and XSLT Transforms as well as custom ones give no guarantee
+     * about concurrent use of one DOM.
+     */
+    private boolean isIndependent(DOMReference ref) {
+        String uri = ref.getURI();
+        if (!Utils.sameDocumentURI(uri)) {
+            return true;
+        }
+        String parsedId = Utils.parseIdFromSameDocumentURI(uri);
+        if (parsedId != null && signatureIdMap.containsKey(parsedId)) {
+            XMLStructure xs = signatureIdMap.get(parsedId);
+            if (!(xs instanceof XMLObject)) {
+                return false;
+            }
+            @SuppressWarnings("unchecked")
+            List<XMLStructure> content = ((XMLObject)xs).getContent();
+            for (XMLStructure child : content) {
+                if (child instanceof Manifest) {
+                    return false;
+                }
+            }
+        }
+        List<Transform> transforms = ref.getTransforms();
+        for (Transform transform : transforms) {
+            if (!CONCURRENT_TRANSFORMS.contains(transform.getAlgorithm())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private void digestReference(DOMReference ref, XMLSignContext signContext)
         throws XMLSignatureException
     {
@@ -0,0 +1,130 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.algorithms;
+
+import java.security.AccessController;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.PrivilegedAction;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded pool of JCA MessageDigest instances per JCE algorithm name and provider, shared by
+ * the DOM, JSR-105 and StAX implementations to avoid the provider lookups of
+ * MessageDigest.getInstance.
+ * <p>
+ * An engine is taken with {@link #acquire} and handed back with {@link #release} once the
+ * caller is completely done with it, using the same JCE name and provider. Engines are reset
+ * when they are released.
+ * <p>
+ * Keyed engines (Signature, Mac and Cipher) are deliberately not pooled: they cannot be
+ * reset to an uninitialized state and would keep the key of their previous user.
+ * <p>
+ * The number of idle engines per algorithm and provider is limited by the system property
+ * <code>org.apache.xml.security.jceEnginePool.size</code> (default 8), 0 disables pooling.
+ */
+public final class JCEEnginePool {
+
+    private static final int POOL_SIZE =
+        AccessController.doPrivileged(
+            (PrivilegedAction<Integer>) () -> Integer.getInteger("org.apache.xml.security.jceEnginePool.size", 8));
+
+    public static final JCEEnginePool MESSAGE_DIGEST = new JCEEnginePool();
+
+    private final Map<String, Queue<MessageDigest>> pools = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private JCEEnginePool() {
+    }
+
+    /**
+     * Returns a pooled engine for the given algorithm or creates a new one.
+     *
+     * @param jceName the JCE algorithm name
+     * @param provider the JCE provider name or null for the default provider lookup
+     * @return an engine for the algorithm
+     * @throws NoSuchAlgorithmException if the algorithm is not available
+     * @throws NoSuchProviderException if the provider is not available
+     */
+    public MessageDigest acquire(String jceName, String provider)
+        throws NoSuchAlgorithmException, NoSuchProviderException {
+        Queue<MessageDigest> pool = pools.get(key(jceName, provider));
+        MessageDigest engine = pool != null ? pool.poll() : null;
+        if (engine != null) {
+            hits.increment();
+            return engine;
+        }
+        misses.increment();
+        return provider == null
+            ? MessageDigest.getInstance(jceName) : MessageDigest.getInstance(jceName, provider);
+    }
+
+    /**
+     * Hands an engine back to the pool. The engine must not be used by the caller any more.
+     *
+     * @param engine the engine, may be null
+     * @param jceName the JCE algorithm name the engine was acquired with
+     * @param provider the JCE provider name the engine was acquired with
+     */
+    public void release(MessageDigest engine, String jceName, String provider) {
+        if (engine == null || POOL_SIZE <= 0) {
+            return;
+        }
+        try {
+            engine.reset();
+        } catch (RuntimeException ex) {
+            // don't pool an engine in an unknown state
+            return;
+        }
+        Queue<MessageDigest> pool =
+            pools.computeIfAbsent(key(jceName, provider), k -> new ArrayBlockingQueue<>(POOL_SIZE));
+        pool.offer(engine);
+    }
+
+    /**
+     * Discards all idle engines, e.g. after the installed providers have changed.
+     */
+    public void clear() {
+        pools.clear();
+    }
+
+    /**
+     * @return the number of acquired engines which were taken from the pool
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of acquired engines which had to be created
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    private static String key(String jceName, String provider) {
+        return provider == null ? jceName : jceName + '\u0000' + provider;
+    }
+}
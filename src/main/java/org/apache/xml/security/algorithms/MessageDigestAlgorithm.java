@@ -71,6 +71,9 @@ public final class MessageDigestAlgorithm extends Algorithm {
     /** Field algorithm stores the actual {@link java.security.MessageDigest} */
     private final MessageDigest algorithm;
 
+    /** The JCE provider name the MessageDigest was requested from, if any */
+    private final String provider;
+
     /**
      * Constructor for the brave who pass their own message digest algorithms and the
      * corresponding URI.
@@ -81,7 +84,8 @@ public final class MessageDigestAlgorithm extends Algorithm {
         throws XMLSignatureException {
         super(doc, algorithmURI);
 
-        algorithm = getDigestInstance(algorithmURI);
+        provider = JCEMapper.getProviderId();
+        algorithm = getDigestInstance(algorithmURI, provider);
     }
 
     /**
@@ -98,7 +102,8 @@ public final class MessageDigestAlgorithm extends Algorithm {
         return new MessageDigestAlgorithm(doc, algorithmURI);
     }
 
-    private static MessageDigest getDigestInstance(String algorithmURI) throws XMLSignatureException {
+    private static MessageDigest getDigestInstance(String algorithmURI, String provider)
+        throws XMLSignatureException {
         String algorithmID = JCEMapper.translateURItoJCEID(algorithmURI);
 
         if (algorithmID == null) {
@@ -107,13 +112,8 @@ public final class MessageDigestAlgorithm extends Algorithm {
         }
 
         MessageDigest md;
-        String provider = JCEMapper.getProviderId();
         try {
-            if (provider == null) {
-                md = MessageDigest.getInstance(algorithmID);
-            } else {
-                md = MessageDigest.getInstance(algorithmID, provider);
-            }
+            md = JCEEnginePool.MESSAGE_DIGEST.acquire(algorithmID, provider);
         } catch (java.security.NoSuchAlgorithmException ex) {
             Object[] exArgs = { algorithmID, ex.getLocalizedMessage() };
 
@@ -254,6 +254,24 @@ public final class MessageDigestAlgorithm extends Algorithm {
         algorithm.update(buf, offset, len);
     }
 
+    /**
+     * Proxy method for {@link java.security.MessageDigest#update(java.nio.ByteBuffer)}
+     * which is executed on the internal {@link java.security.MessageDigest} object.
+     *
+     * @param input
+     */
+    public void update(java.nio.ByteBuffer input) {
+        algorithm.update(input);
+    }
+
+    /**
+     * Hands the internal {@link java.security.MessageDigest} object back to the
+     * {@link JCEEnginePool}. This MessageDigestAlgorithm must not be used afterwards.
+     */
+    public void release() {
+        JCEEnginePool.MESSAGE_DIGEST.release(algorithm, algorithm.getAlgorithm(), provider);
+    }
+
     /** {@inheritDoc} */
     public String getBaseNamespace() {
         return Constants.SignatureSpecNS;
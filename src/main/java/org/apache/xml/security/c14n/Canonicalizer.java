@@ -23,7 +23,9 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.xml.security.c14n.implementations.Canonicalizer11_OmitComments;
@@ -34,6 +36,7 @@ import org.apache.xml.security.c14n.implementations.Canonicalizer20010315OmitCom
 import org.apache.xml.security.c14n.implementations.Canonicalizer20010315WithComments;
 import org.apache.xml.security.c14n.implementations.CanonicalizerPhysical;
 import org.apache.xml.security.exceptions.AlgorithmAlreadyRegisteredException;
+import org.apache.xml.security.signature.XMLSignatureInput;
 import org.apache.xml.security.utils.ClassLoaderUtils;
 import org.apache.xml.security.utils.JavaUtils;
 import org.apache.xml.security.utils.XMLUtils;
@@ -96,6 +99,14 @@ public final class Canonicalizer {
     private static Map<String, Class<? extends CanonicalizerSpi>> canonicalizerHash =
         new ConcurrentHashMap<>();
 
+    /**
+     * The maximum number of idle instances per algorithm kept by the pool
+     */
+    private static final int MAX_POOLED_INSTANCES = 8;
+
+    private static final Map<String, Queue<Canonicalizer>> POOL = new ConcurrentHashMap<>();
+
+    private final String algorithmURI;
     private final CanonicalizerSpi canonicalizerSpi;
     private boolean secureValidation;
 
@@ -112,6 +123,7 @@ public final class Canonicalizer {
 
             canonicalizerSpi = implementingClass.newInstance();
             canonicalizerSpi.reset = true;
+            this.algorithmURI = algorithmURI;
         } catch (Exception e) {
             Object[] exArgs = { algorithmURI };
             throw new InvalidCanonicalizerException(
@@ -132,6 +144,45 @@ public final class Canonicalizer {
         return new Canonicalizer(algorithmURI);
     }
 
+    /**
+     * Returns a Canonicalizer from a bounded pool, or a new one if the pool holds
+     * no idle instance for this algorithm. Pooled instances keep the internal
+     * structures grown by previous canonicalizations. The instance must be given
+     * back with {@link #release(Canonicalizer)} once it is no longer used, and must
+     * not be used afterwards.
+     *
+     * @param algorithmURI
+     * @return a Canonicalizer instance ready for the job
+     * @throws InvalidCanonicalizerException
+     */
+    public static Canonicalizer acquire(String algorithmURI)
+        throws InvalidCanonicalizerException {
+        Queue<Canonicalizer> idle = POOL.get(algorithmURI);
+        if (idle != null) {
+            Canonicalizer canonicalizer = idle.poll();
+            if (canonicalizer != null
+                && canonicalizer.canonicalizerSpi.getClass() == canonicalizerHash.get(algorithmURI)) {
+                return canonicalizer;
+            }
+        }
+        return new Canonicalizer(algorithmURI);
+    }
+
+    /**
+     * Resets the given Canonicalizer and returns it to the pool.
+     *
+     * @param canonicalizer a Canonicalizer obtained from {@link #acquire(String)}, may be null
+     */
+    public static void release(Canonicalizer canonicalizer) {
+        if (canonicalizer == null) {
+            return;
+        }
+        canonicalizer.reset();
+        Queue<Canonicalizer> idle =
+            POOL.computeIfAbsent(canonicalizer.algorithmURI, k -> new ArrayBlockingQueue<>(MAX_POOLED_INSTANCES));
+        idle.offer(canonicalizer);
+    }
+
     /**
      * Method register
      *
@@ -345,6 +396,32 @@ public final class Canonicalizer {
             canonicalizerSpi.engineCanonicalizeXPathNodeSet(xpathNodeSet, inclusiveNamespaces);
     }
 
+    /**
+     * Canonicalizes the contents of an XMLSignatureInput.
+     *
+     * @param input
+     * @return the result of the c14n.
+     * @throws CanonicalizationException
+     */
+    public byte[] canonicalize(XMLSignatureInput input) throws CanonicalizationException {
+        canonicalizerSpi.secureValidation = secureValidation;
+        return canonicalizerSpi.engineCanonicalize(input);
+    }
+
+    /**
+     * Canonicalizes the contents of an XMLSignatureInput.
+     *
+     * @param input
+     * @param inclusiveNamespaces
+     * @return the result of the c14n.
+     * @throws CanonicalizationException
+     */
+    public byte[] canonicalize(XMLSignatureInput input, String inclusiveNamespaces)
+        throws CanonicalizationException {
+        canonicalizerSpi.secureValidation = secureValidation;
+        return canonicalizerSpi.engineCanonicalize(input, inclusiveNamespaces);
+    }
+
     /**
      * Canonicalizes an XPath node set.
      *
@@ -399,6 +476,19 @@ public final class Canonicalizer {
         canonicalizerSpi.reset = false;
     }
 
+    /**
+     * Brings this Canonicalizer back to the state of a new instance, so that it can be
+     * reused for another document. The writer is set back to the internal
+     * ByteArrayOutputStream, while internal buffers are retained unless the output
+     * buffer has grown large.
+     */
+    public void reset() {
+        canonicalizerSpi.engineReset();
+        canonicalizerSpi.reset = true;
+        canonicalizerSpi.secureValidation = false;
+        secureValidation = false;
+    }
+
     public boolean isSecureValidation() {
         return secureValidation;
     }
@@ -22,6 +22,7 @@ import java.io.ByteArrayInputStream;
 import java.io.OutputStream;
 import java.util.Set;
 
+import org.apache.xml.security.signature.XMLSignatureInput;
 import org.apache.xml.security.utils.XMLUtils;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
@@ -166,6 +167,39 @@ public abstract class CanonicalizerSpi {
      */
     public abstract void setWriter(OutputStream os);
 
+    /**
+     * C14n the contents of an XMLSignatureInput.
+     *
+     * @param input
+     * @return the c14n bytes
+     * @throws CanonicalizationException
+     */
+    public byte[] engineCanonicalize(XMLSignatureInput input) throws CanonicalizationException {
+        throw new CanonicalizationException("c14n.Canonicalizer.UnsupportedOperation");
+    }
+
+    /**
+     * C14n the contents of an XMLSignatureInput.
+     *
+     * @param input
+     * @param inclusiveNamespaces
+     * @return the c14n bytes
+     * @throws CanonicalizationException
+     */
+    public byte[] engineCanonicalize(XMLSignatureInput input, String inclusiveNamespaces)
+        throws CanonicalizationException {
+        throw new CanonicalizationException("c14n.Canonicalizer.UnsupportedOperation");
+    }
+
+    /**
+     * Clears the state left behind by a previous canonicalization, so that this
+     * instance can be reused for another document. Implementations may retain
+     * their internal buffers.
+     */
+    public void engineReset() {
+        // no state by default
+    }
+
     public boolean isSecureValidation() {
         return secureValidation;
     }
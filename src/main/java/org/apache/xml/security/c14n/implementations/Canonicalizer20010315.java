@@ -72,6 +72,16 @@ public abstract class Canonicalizer20010315 extends CanonicalizerBase {
         this.c14n11 = c14n11;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void engineReset() {
+        super.engineReset();
+        firstCall = true;
+        xmlattrStack.reset();
+    }
+
 
     /**
      * Always throws a CanonicalizationException because this is inclusive c14n.
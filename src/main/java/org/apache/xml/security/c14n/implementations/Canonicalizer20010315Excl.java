@@ -71,6 +71,16 @@ public abstract class Canonicalizer20010315Excl extends CanonicalizerBase {
         super(includeComments);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void engineReset() {
+        super.engineReset();
+        inclusiveNSSet = null;
+        propagateDefaultNamespace = false;
+    }
+
     /**
      * Method engineCanonicalizeSubTree
      * {@inheritDoc}
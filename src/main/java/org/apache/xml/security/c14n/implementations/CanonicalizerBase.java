@@ -79,12 +79,25 @@ public abstract class CanonicalizerBase extends CanonicalizerSpi {
     private static final byte[] AMP = {'&','a','m','p',';'};
     private static final byte[] EQUALS_STR = {'=','\"'};
 
+    // The US-ASCII characters escaped in text, in attribute values and in comments and PIs;
+    // runs of any other US-ASCII characters are written with a single array write.
+    private static final boolean[] TEXT_ESCAPES = UtfHelpper.getAsciiEscapeTable('&', '<', '>', '\r');
+    private static final boolean[] ATTR_ESCAPES =
+        UtfHelpper.getAsciiEscapeTable('&', '<', '"', '\t', '\n', '\r');
+    private static final boolean[] CR_ESCAPES = UtfHelpper.getAsciiEscapeTable('\r');
+
     protected static final int NODE_BEFORE_DOCUMENT_ELEMENT = -1;
     protected static final int NODE_NOT_BEFORE_OR_AFTER_DOCUMENT_ELEMENT = 0;
     protected static final int NODE_AFTER_DOCUMENT_ELEMENT = 1;
 
+    /**
+     * The largest internal output buffer which is retained by {@link #engineReset()}
+     */
+    private static final int MAX_RETAINED_WRITER_CAPACITY = 8 * 1024;
+
     private List<NodeFilter> nodeFilter;
 
+    private final boolean defaultIncludeComments;
     private boolean includeComments;
     private Set<Node> xpathNodeSet;
 
@@ -93,7 +106,15 @@ public abstract class CanonicalizerBase extends CanonicalizerSpi {
      * in subtree canonicalizations.
      */
     private Node excludeNode;
-    private OutputStream writer = new ByteArrayOutputStream();
+    private DefaultWriter defaultWriter = new DefaultWriter();
+    private OutputStream writer = defaultWriter;
+
+    /**
+     * The namespace symbol table and the UTF-8 cache of names, retained between
+     * canonicalizations done with this instance.
+     */
+    private final NameSpaceSymbTable nsTable = new NameSpaceSymbTable();
+    private final Map<String, byte[]> nameCache = new HashMap<>();
 
    /**
     * The null xmlns definition.
@@ -106,9 +127,31 @@ public abstract class CanonicalizerBase extends CanonicalizerSpi {
      * @param includeComments
      */
     public CanonicalizerBase(boolean includeComments) {
+        this.defaultIncludeComments = includeComments;
         this.includeComments = includeComments;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void engineReset() {
+        nodeFilter = null;
+        includeComments = defaultIncludeComments;
+        xpathNodeSet = null;
+        excludeNode = null;
+        nullNode = null;
+        nsTable.reset();
+        nameCache.clear();
+        // don't keep the buffer of a large document alive in an idle instance
+        if (defaultWriter.capacity() > MAX_RETAINED_WRITER_CAPACITY) {
+            defaultWriter = new DefaultWriter();
+        } else {
+            defaultWriter.reset();
+        }
+        writer = defaultWriter;
+    }
+
     /**
      * Method engineCanonicalizeSubTree
      * {@inheritDoc}
@@ -166,6 +209,10 @@ public abstract class CanonicalizerBase extends CanonicalizerSpi {
             throw new CanonicalizationException(ex);
         } catch (SAXException ex) {
             throw new CanonicalizationException(ex);
+        } finally {
+            // the node filters and the comment setting belong to this input only
+            nodeFilter = null;
+            includeComments = defaultIncludeComments;
         }
     }
 
@@ -194,7 +241,8 @@ public abstract class CanonicalizerBase extends CanonicalizerSpi {
         throws CanonicalizationException {
         this.excludeNode = excludeNode;
         try {
-            NameSpaceSymbTable ns = new NameSpaceSymbTable();
+            NameSpaceSymbTable ns = nsTable;
+            ns.reset();
             int nodeLevel = NODE_BEFORE_DOCUMENT_ELEMENT;
             if (rootNode != null && Node.ELEMENT_NODE == rootNode.getNodeType()) {
                 //Fills the nssymbtable with the definitions of the parent of the root subnode
@@ -252,7 +300,7 @@ public abstract class CanonicalizerBase extends CanonicalizerSpi {
         final OutputStream writer = this.writer;
         final Node excludeNode = this.excludeNode;
         final boolean includeComments = this.includeComments;
-        Map<String, byte[]> cache = new HashMap<>();
+        Map<String, byte[]> cache = nameCache;
         do {
             switch (currentNode.getNodeType()) {
 
@@ -390,7 +438,8 @@ public abstract class CanonicalizerBase extends CanonicalizerSpi {
             return;
         }
         boolean currentNodeIsVisible = false;
-        NameSpaceSymbTable ns = new NameSpaceSymbTable();
+        NameSpaceSymbTable ns = nsTable;
+        ns.reset();
         if (currentNode != null && Node.ELEMENT_NODE == currentNode.getNodeType()) {
             getParentNameSpaces((Element)currentNode, ns);
         }
@@ -400,7 +449,7 @@ public abstract class CanonicalizerBase extends CanonicalizerSpi {
         Node sibling = null;
         Node parentNode = null;
         int documentLevel = NODE_BEFORE_DOCUMENT_ELEMENT;
-        Map<String, byte[]> cache = new HashMap<>();
+        Map<String, byte[]> cache = nameCache;
         do {
             switch (currentNode.getNodeType()) {
 
@@ -684,6 +733,12 @@ public abstract class CanonicalizerBase extends CanonicalizerSpi {
         final int length = value.length();
         int i = 0;
         while (i < length) {
+            int run = UtfHelpper.endOfAsciiRun(value, i, length, ATTR_ESCAPES);
+            if (run != i) {
+                UtfHelpper.writeAsciiRun(value, i, run, writer);
+                i = run;
+                continue;
+            }
             int c = value.codePointAt(i);
             i += Character.charCount(c);
 
@@ -746,6 +801,12 @@ public abstract class CanonicalizerBase extends CanonicalizerSpi {
         int length = target.length();
 
         for (int i = 0; i < length; ) {
+            int run = UtfHelpper.endOfAsciiRun(target, i, length, CR_ESCAPES);
+            if (run != i) {
+                UtfHelpper.writeAsciiRun(target, i, run, writer);
+                i = run;
+                continue;
+            }
             int c = target.codePointAt(i);
             i += Character.charCount(c);
             if (c == 0x0D) {
@@ -767,6 +828,12 @@ public abstract class CanonicalizerBase extends CanonicalizerSpi {
             writer.write(' ');
 
             for (int i = 0; i < length; ) {
+                int run = UtfHelpper.endOfAsciiRun(data, i, length, CR_ESCAPES);
+                if (run != i) {
+                    UtfHelpper.writeAsciiRun(data, i, run, writer);
+                    i = run;
+                    continue;
+                }
                 int c = data.codePointAt(i);
                 i += Character.charCount(c);
                 if (c == 0x0D) {
@@ -802,6 +869,12 @@ public abstract class CanonicalizerBase extends CanonicalizerSpi {
         final int length = data.length();
 
         for (int i = 0; i < length; ) {
+            int run = UtfHelpper.endOfAsciiRun(data, i, length, CR_ESCAPES);
+            if (run != i) {
+                UtfHelpper.writeAsciiRun(data, i, run, writer);
+                i = run;
+                continue;
+            }
             int c = data.codePointAt(i);
             i += Character.charCount(c);
             if (c == 0x0D) {
@@ -834,6 +907,12 @@ public abstract class CanonicalizerBase extends CanonicalizerSpi {
         final int length = text.length();
         byte[] toWrite;
         for (int i = 0; i < length; ) {
+            int run = UtfHelpper.endOfAsciiRun(text, i, length, TEXT_ESCAPES);
+            if (run != i) {
+                UtfHelpper.writeAsciiRun(text, i, run, writer);
+                i = run;
+                continue;
+            }
             int c = text.codePointAt(i);
             i += Character.charCount(c);
 
@@ -881,4 +960,13 @@ public abstract class CanonicalizerBase extends CanonicalizerSpi {
         return nullNode;
     }
 
+    /**
+     * The internal output buffer, which exposes its capacity
+     */
+    private static final class DefaultWriter extends ByteArrayOutputStream {
+
+        int capacity() {
+            return buf.length;
+        }
+    }
 }
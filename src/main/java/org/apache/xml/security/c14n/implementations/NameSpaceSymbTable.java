@@ -19,6 +19,7 @@
 package org.apache.xml.security.c14n.implementations;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -29,41 +30,52 @@ import org.w3c.dom.Node;
 
 /**
  * A stack based Symbol Table.
- *<br>For speed reasons all the symbols are introduced in the same map,
- * and at the same time in a list so it can be removed when the frame is pop back.
+ *<br>For speed reasons all the symbols are introduced in the same map, which is
+ * never copied. Every change made in a frame records the previous entry of the
+ * prefix in an undo log, and popping the frame restores those entries, so push is
+ * O(1) and pop is O(number of changes in the frame) however deep the document is.
  */
 public class NameSpaceSymbTable {
 
-    private static final org.slf4j.Logger LOG =
-        org.slf4j.LoggerFactory.getLogger(NameSpaceSymbTable.class);
-
     private static final String XMLNS = "xmlns";
-    private static final SymbMap initialMap = new SymbMap();
+    private static final NameSpaceSymbEntry INITIAL_XMLNS_ENTRY;
 
     static {
-        NameSpaceSymbEntry ne = new NameSpaceSymbEntry("", null, true, XMLNS);
-        ne.lastrendered = "";
-        initialMap.put(XMLNS, ne);
+        INITIAL_XMLNS_ENTRY = new NameSpaceSymbEntry("", null, true, XMLNS);
+        INITIAL_XMLNS_ENTRY.lastrendered = "";
     }
 
     /**The map betwen prefix-> entry table. */
     private SymbMap symb;
 
-    /**The stacks for removing the definitions when doing pop.*/
-    private List<SymbMap> level;
-    private boolean cloned = true;
+    /**The undo log: prefixes changed in the open frames and their previous entries.*/
+    private String[] undoPrefixes = new String[16];
+    private NameSpaceSymbEntry[] undoEntries = new NameSpaceSymbEntry[16];
+    private int undoSize;
+
+    /**The size of the undo log when each open frame was pushed.*/
+    private int[] levelMarks = new int[16];
+    private int levelSize;
 
     /**
      * Default constractor
      **/
     public NameSpaceSymbTable() {
-        level = new ArrayList<>();
+        reset();
+    }
+
+    /**
+     * Removes all the definitions and frames, so that the table can be reused.
+     * Only the default binding for xmlns is left.
+     **/
+    public void reset() {
+        Arrays.fill(undoPrefixes, 0, undoSize, null);
+        Arrays.fill(undoEntries, 0, undoSize, null);
+        undoSize = 0;
+        levelSize = 0;
         //Insert the default binding for xmlns.
-        try {
-            symb = initialMap.clone();
-        } catch (CloneNotSupportedException e) {
-            LOG.error("Error cloning the initial map");
-        }
+        symb = new SymbMap();
+        symb.put(XMLNS, INITIAL_XMLNS_ENTRY);
     }
 
     /**
@@ -78,8 +90,7 @@ public class NameSpaceSymbTable {
             //put them rendered?
             if (!n.rendered && n.n != null) {
                 n = n.clone();
-                needsClone();
-                symb.put(n.prefix, n);
+                put(n.prefix, n);
                 n.lastrendered = n.uri;
                 n.rendered = true;
 
@@ -108,9 +119,11 @@ public class NameSpaceSymbTable {
      * Inclusive or Exclusive.
      **/
     public void push() {
-        //Put the number of namespace definitions in the stack.
-        level.add(null);
-        cloned = false;
+        //Put the size of the undo log in the stack.
+        if (levelSize == levelMarks.length) {
+            levelMarks = Arrays.copyOf(levelMarks, levelSize << 1);
+        }
+        levelMarks[levelSize++] = undoSize;
     }
 
     /**
@@ -118,33 +131,33 @@ public class NameSpaceSymbTable {
      * Inclusive or Exclusive.
      **/
     public void pop() {
-        int size = level.size() - 1;
-        Object ob = level.remove(size);
-        if (ob != null) {
-            symb = (SymbMap)ob;
-            if (size == 0) {
-                cloned = false;
-            } else {
-                cloned = level.get(size - 1) != symb;
-            }
-        } else {
-            cloned = false;
+        int mark = levelMarks[--levelSize];
+        //Undo the changes of the frame, newest first.
+        while (undoSize > mark) {
+            undoSize--;
+            symb.put(undoPrefixes[undoSize], undoEntries[undoSize]);
+            undoPrefixes[undoSize] = null;
+            undoEntries[undoSize] = null;
         }
     }
 
-    final void needsClone() {
-        if (!cloned) {
-            level.set(level.size() - 1, symb);
-            try {
-                symb = symb.clone();
-            } catch (CloneNotSupportedException e) {
-                LOG.error("Error cloning the symbol map");
+    /**
+     * Binds the prefix to the entry, recording the previous entry for the pop
+     * of the current frame.
+     */
+    private void put(String prefix, NameSpaceSymbEntry entry) {
+        if (levelSize != 0) {
+            if (undoSize == undoPrefixes.length) {
+                undoPrefixes = Arrays.copyOf(undoPrefixes, undoSize << 1);
+                undoEntries = Arrays.copyOf(undoEntries, undoSize << 1);
             }
-            cloned = true;
+            undoPrefixes[undoSize] = prefix;
+            undoEntries[undoSize] = symb.get(prefix);
+            undoSize++;
         }
+        symb.put(prefix, entry);
     }
 
-
     /**
      * Gets the attribute node that defines the binding for the prefix.
      * @param prefix the prefix to obtain the attribute.
@@ -163,8 +176,7 @@ public class NameSpaceSymbTable {
         }
         // Mark this entry as render.
         entry = entry.clone();
-        needsClone();
-        symb.put(prefix, entry);
+        put(prefix, entry);
         entry.rendered = true;
         entry.lastrendered = entry.uri;
         // Return the node for outputing.
@@ -203,8 +215,7 @@ public class NameSpaceSymbTable {
         }
         //Creates and entry in the table for this new definition.
         NameSpaceSymbEntry ne = new NameSpaceSymbEntry(uri, n, false, prefix);
-        needsClone();
-        symb.put(prefix, ne);
+        put(prefix, ne);
         if (ob != null) {
             //We have a previous definition store it for the pop.
             //Check if a previous definition(not the inmidiatly one) has been rendered.
@@ -231,8 +242,7 @@ public class NameSpaceSymbTable {
         if (ob != null && uri.equals(ob.uri)) {
             if (!ob.rendered) {
                 ob = ob.clone();
-                needsClone();
-                symb.put(prefix, ob);
+                put(prefix, ob);
                 ob.lastrendered = uri;
                 ob.rendered = true;
                 return ob.n;
@@ -242,8 +252,7 @@ public class NameSpaceSymbTable {
 
         NameSpaceSymbEntry ne = new NameSpaceSymbEntry(uri, n, true, prefix);
         ne.lastrendered = uri;
-        needsClone();
-        symb.put(prefix, ne);
+        put(prefix, ne);
         if (ob != null && ob.lastrendered != null && ob.lastrendered.equals(uri)) {
             ne.rendered = true;
             return null;
@@ -252,15 +261,14 @@ public class NameSpaceSymbTable {
     }
 
     public int getLevel() {
-        return level.size();
+        return levelSize;
     }
 
     public void removeMapping(String prefix) {
         NameSpaceSymbEntry ob = symb.get(prefix);
 
         if (ob != null) {
-            needsClone();
-            symb.put(prefix, null);
+            put(prefix, null);
         }
     }
 
@@ -268,8 +276,7 @@ public class NameSpaceSymbTable {
         NameSpaceSymbEntry ob = symb.get(prefix);
 
         if (ob != null && !ob.rendered) {
-            needsClone();
-            symb.put(prefix, null);
+            put(prefix, null);
         }
     }
 
@@ -277,8 +284,7 @@ public class NameSpaceSymbTable {
         NameSpaceSymbEntry ob = symb.get(prefix);
 
         if (ob != null && ob.rendered) {
-            needsClone();
-            symb.put(prefix, null);
+            put(prefix, null);
         }
         return false;
     }
@@ -320,7 +326,7 @@ class NameSpaceSymbEntry implements Cloneable {
     }
 }
 
-class SymbMap implements Cloneable {
+class SymbMap {
     int free = 23;
     NameSpaceSymbEntry[] entries;
     String[] keys;
@@ -396,15 +402,4 @@ class SymbMap implements Cloneable {
     NameSpaceSymbEntry get(String key) {
         return entries[index(key)];
     }
-
-    @Override
-    public SymbMap clone() throws CloneNotSupportedException  {
-        SymbMap copy = (SymbMap) super.clone();
-        copy.entries = new NameSpaceSymbEntry[entries.length];
-        System.arraycopy(entries, 0, copy.entries, 0, entries.length);
-        copy.keys = new String[keys.length];
-        System.arraycopy(keys, 0, copy.keys, 0, keys.length);
-
-        return copy;
-    }
 }
@@ -36,10 +36,116 @@ public final class UtfHelpper {
         AccessController.doPrivileged((PrivilegedAction<Boolean>)
             () -> Boolean.getBoolean("org.apache.xml.security.c14n.oldUtf8"));
 
+    /** The largest number of octets a run of US-ASCII characters is written with at once */
+    private static final int ASCII_RUN_CHUNK = 8192;
+
     private UtfHelpper() {
         // complete
     }
 
+    /**
+     * Returns a lookup table flagging the given US-ASCII characters, for use with
+     * {@link #endOfAsciiRun(String, int, int, boolean[])}.
+     *
+     * @param escaped the characters that must not be part of a plain run
+     * @return a table of 128 entries, <code>true</code> for every escaped character
+     */
+    public static boolean[] getAsciiEscapeTable(char... escaped) {
+        boolean[] table = new boolean[0x80];
+        for (char c : escaped) {
+            table[c] = true;
+        }
+        return table;
+    }
+
+    /**
+     * Returns the end of the run of US-ASCII characters starting at <code>start</code>
+     * that can be written as they are, i.e. the index of the first character that is
+     * either outside US-ASCII or flagged in the escape table.
+     *
+     * @param str the string to scan
+     * @param start the index to start at
+     * @param end the index to stop at
+     * @param escaped the escape table
+     * @return the index of the first character not part of the run
+     */
+    public static int endOfAsciiRun(final String str, final int start, final int end, final boolean[] escaped) {
+        int i = start;
+        while (i < end) {
+            char c = str.charAt(i);
+            if (c >= 0x80 || escaped[c]) {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Char array variant of {@link #endOfAsciiRun(String, int, int, boolean[])}.
+     */
+    public static int endOfAsciiRun(final char[] chars, final int start, final int end, final boolean[] escaped) {
+        int i = start;
+        while (i < end) {
+            char c = chars[i];
+            if (c >= 0x80 || escaped[c]) {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Writes a run of US-ASCII characters, whose UTF-8 encoding is the characters
+     * themselves, with a single array write instead of one write per character.
+     *
+     * @param str the string holding the run
+     * @param start the start of the run
+     * @param end the end of the run, as returned by {@link #endOfAsciiRun(String, int, int, boolean[])}
+     * @param out the stream to write to
+     * @throws IOException
+     */
+    public static void writeAsciiRun(
+        final String str, int start, final int end, final OutputStream out
+    ) throws IOException {
+        if (end - start == 1) {
+            out.write(str.charAt(start));
+            return;
+        }
+        // a fresh array, the stream is free to hold on to it
+        byte[] bytes = new byte[Math.min(end - start, ASCII_RUN_CHUNK)];
+        while (start < end) {
+            int length = Math.min(end - start, bytes.length);
+            for (int i = 0; i < length; i++) {
+                bytes[i] = (byte) str.charAt(start + i);
+            }
+            out.write(bytes, 0, length);
+            start += length;
+        }
+    }
+
+    /**
+     * Char array variant of {@link #writeAsciiRun(String, int, int, OutputStream)}.
+     */
+    public static void writeAsciiRun(
+        final char[] chars, int start, final int end, final OutputStream out
+    ) throws IOException {
+        if (end - start == 1) {
+            out.write(chars[start]);
+            return;
+        }
+        byte[] bytes = new byte[Math.min(end - start, ASCII_RUN_CHUNK)];
+        while (start < end) {
+            int length = Math.min(end - start, bytes.length);
+            for (int i = 0; i < length; i++) {
+                bytes[i] = (byte) chars[start + i];
+            }
+            out.write(bytes, 0, length);
+            start += length;
+        }
+    }
+
     public static void writeByte(
         final String str,
         final OutputStream out,
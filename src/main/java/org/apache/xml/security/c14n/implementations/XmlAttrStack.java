@@ -53,6 +53,13 @@ class XmlAttrStack {
         this.c14n11 = c14n11;
     }
 
+    void reset() {
+        currentLevel = 0;
+        lastlevel = 0;
+        cur = null;
+        levels.clear();
+    }
+
     void push(int level) {
         currentLevel = level;
         if (currentLevel == -1) {
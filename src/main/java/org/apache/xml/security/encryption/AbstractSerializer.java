@@ -18,11 +18,16 @@
  */
 package org.apache.xml.security.encryption;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStreamWriter;
+import java.io.SequenceInputStream;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -225,6 +230,29 @@ public abstract class AbstractSerializer implements Serializer {
     }
 
     protected static String createContext(String source, Node ctx) {
+        return createContextPrefix(ctx) + source + "</dummy>";
+    }
+
+    /**
+     * Wraps the source in the same context as {@link #createContext(byte[], Node)}, but
+     * without copying the source octets: the returned stream reads the context start tag,
+     * then the source stream, then the context end tag.
+     *
+     * @param source the octets to wrap
+     * @param ctx the node whose in-scope namespace declarations the context declares
+     * @return the wrapped source
+     */
+    protected static InputStream createContext(InputStream source, Node ctx) {
+        byte[] prefix = createContextPrefix(ctx).getBytes(StandardCharsets.UTF_8);
+        byte[] suffix = "</dummy>".getBytes(StandardCharsets.UTF_8);
+        return new SequenceInputStream(
+            Collections.enumeration(
+                Arrays.asList(new ByteArrayInputStream(prefix), source, new ByteArrayInputStream(suffix))
+            )
+        );
+    }
+
+    private static String createContextPrefix(Node ctx) {
         // Create the context to parse the document against
         StringBuilder sb = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?><dummy");
 
@@ -251,8 +279,6 @@ public abstract class AbstractSerializer implements Serializer {
             wk = wk.getParentNode();
         }
         sb.append('>');
-        sb.append(source);
-        sb.append("</dummy>");
         return sb.toString();
     }
 
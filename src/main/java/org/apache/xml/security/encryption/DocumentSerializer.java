@@ -45,8 +45,22 @@ public class DocumentSerializer extends AbstractSerializer {
      * @throws XMLEncryptionException
      */
     public Node deserialize(byte[] source, Node ctx) throws XMLEncryptionException, IOException {
-        byte[] fragment = createContext(source, ctx);
-        try (InputStream is = new ByteArrayInputStream(fragment)) {
+        return deserialize(new ByteArrayInputStream(source), ctx);
+    }
+
+    /**
+     * Parses the source directly from the stream, with the namespace declarations in scope
+     * at ctx injected around it, so the octets are neither copied into a context buffer nor
+     * decoded into a String first. The stream is closed.
+     *
+     * @param source
+     * @param ctx
+     * @return the Node resulting from the parse of the source
+     * @throws XMLEncryptionException
+     */
+    @Override
+    public Node deserialize(InputStream source, Node ctx) throws XMLEncryptionException, IOException {
+        try (InputStream is = createContext(source, ctx)) {
             return deserialize(ctx, new InputSource(is));
         }
     }
@@ -79,13 +93,18 @@ public class DocumentSerializer extends AbstractSerializer {
                 contextDocument = ctx.getOwnerDocument();
             }
 
-            Element fragElt =
-                    (Element) contextDocument.importNode(d.getDocumentElement(), true);
+            // Move the parsed nodes into the context document instead of deep copying
+            // them, unless the two documents come from different DOM implementations
+            Element fragElt = d.getDocumentElement();
             DocumentFragment result = contextDocument.createDocumentFragment();
             Node child = fragElt.getFirstChild();
             while (child != null) {
-                fragElt.removeChild(child);
-                result.appendChild(child);
+                Node adopted = contextDocument.adoptNode(child);
+                if (adopted == null) {
+                    fragElt.removeChild(child);
+                    adopted = contextDocument.importNode(child, true);
+                }
+                result.appendChild(adopted);
                 child = fragElt.getFirstChild();
             }
             return result;
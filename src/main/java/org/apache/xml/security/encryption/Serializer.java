@@ -19,8 +19,10 @@
 package org.apache.xml.security.encryption;
 
 import java.io.IOException;
+import java.io.InputStream;
 
 import org.apache.xml.security.c14n.Canonicalizer;
+import org.apache.xml.security.utils.JavaUtils;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -72,4 +74,19 @@ public interface Serializer {
      * @throws XMLEncryptionException
      */
     Node deserialize(byte[] source, Node ctx) throws XMLEncryptionException, IOException;
+
+    /**
+     * Parses the source read from a stream. The default implementation reads the stream
+     * into a byte array and calls {@link #deserialize(byte[], Node)}. The stream is closed.
+     *
+     * @param source
+     * @param ctx
+     * @return the Node resulting from the parse of the source
+     * @throws XMLEncryptionException
+     */
+    default Node deserialize(InputStream source, Node ctx) throws XMLEncryptionException, IOException {
+        try (InputStream is = source) {
+            return deserialize(JavaUtils.getBytesFromStream(is), ctx);
+        }
+    }
 }
@@ -49,8 +49,21 @@ public class TransformSerializer extends AbstractSerializer {
      * @throws XMLEncryptionException
      */
     public Node deserialize(byte[] source, Node ctx) throws XMLEncryptionException, IOException {
-        byte[] fragment = createContext(source, ctx);
-        try (InputStream is = new ByteArrayInputStream(fragment)) {
+        return deserialize(new ByteArrayInputStream(source), ctx);
+    }
+
+    /**
+     * Parses the source directly from the stream, with the namespace declarations in scope
+     * at ctx injected around it. The stream is closed.
+     *
+     * @param source
+     * @param ctx
+     * @return the Node resulting from the parse of the source
+     * @throws XMLEncryptionException
+     */
+    @Override
+    public Node deserialize(InputStream source, Node ctx) throws XMLEncryptionException, IOException {
+        try (InputStream is = createContext(source, ctx)) {
             return deserialize(ctx, new StreamSource(is));
         }
     }
@@ -21,6 +21,7 @@ package org.apache.xml.security.encryption;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -64,6 +65,7 @@ import org.apache.xml.security.transforms.TransformationException;
 import org.apache.xml.security.utils.Constants;
 import org.apache.xml.security.utils.ElementProxy;
 import org.apache.xml.security.utils.EncryptionConstants;
+import org.apache.xml.security.utils.UnsyncByteArrayOutputStream;
 import org.apache.xml.security.utils.XMLUtils;
 import org.w3c.dom.Attr;
 import org.w3c.dom.Document;
@@ -1667,15 +1669,19 @@ public class XMLCipher {
             throw new XMLEncryptionException("empty", "XMLCipher unexpectedly not in DECRYPT_MODE...");
         }
 
-        byte[] octets = decryptToByteArray(element);
+        // The encrypted octets are streamed through the cipher. The decrypted octets are
+        // buffered, so that they are only parsed once the cipher has checked the padding
+        // or the authentication tag, and then parsed from the buffer without a copy
+        UnsyncByteArrayOutputStream octets = new UnsyncByteArrayOutputStream();
+        decryptToOutputStream(element, octets);
 
         if (LOG.isDebugEnabled()) {
-            LOG.debug("Decrypted octets:\n" + new String(octets));
+            LOG.debug("Decrypted octets:\n" + new String(octets.toByteArray()));
         }
 
         Node sourceParent = element.getParentNode();
         try {
-            Node decryptedNode = serializer.deserialize(octets, sourceParent);
+            Node decryptedNode = serializer.deserialize(octets.toInputStream(), sourceParent);
 
             // The de-serialiser returns a node whose children we need to take on.
             if (sourceParent != null && Node.DOCUMENT_NODE == sourceParent.getNodeType()) {
@@ -1732,7 +1738,102 @@ public class XMLCipher {
 
         EncryptedData encryptedData = factory.newEncryptedData(element);
         String encMethodAlgorithm = encryptedData.getEncryptionMethod().getAlgorithm();
+        resolveDataDecryptionKey(encryptedData, encMethodAlgorithm);
 
+        // Obtain the encrypted octets
+        XMLCipherInput cipherInput = new XMLCipherInput(encryptedData);
+        cipherInput.setSecureValidation(secureValidation);
+        byte[] encryptedBytes = cipherInput.getBytes();
+
+        int ivLen = JCEMapper.getIVLengthFromURI(encMethodAlgorithm) / 8;
+        byte[] ivBytes = new byte[ivLen];
+
+        // You may be able to pass the entire piece in to IvParameterSpec
+        // and it will only take the first x bytes, but no way to be certain
+        // that this will work for every JCE provider, so lets copy the
+        // necessary bytes into a dedicated array.
+
+        System.arraycopy(encryptedBytes, 0, ivBytes, 0, ivLen);
+
+        Cipher c = createDataDecryptionCipher(encMethodAlgorithm, ivBytes);
+
+        try {
+            return c.doFinal(encryptedBytes, ivLen, encryptedBytes.length - ivLen);
+        } catch (IllegalBlockSizeException ibse) {
+            throw new XMLEncryptionException(ibse);
+        } catch (BadPaddingException bpe) {
+            throw new XMLEncryptionException(bpe);
+        }
+    }
+
+    /**
+     * Decrypt an EncryptedData element to an OutputStream.
+     *
+     * Unlike {@link #decryptToByteArray(Element)} the encrypted octets are not
+     * read into memory: they are streamed from the CipherValue or from the
+     * resource the CipherReference points to through the cipher to the given
+     * stream, so large externally referenced cipher texts (e.g. attachments)
+     * are decrypted with constant memory. Note that JCE providers usually hold
+     * back the plain text of AEAD ciphers such as AES-GCM until the
+     * authentication tag has been verified.
+     *
+     * Does not modify the source document. The OutputStream is not closed.
+     * @param element the EncryptedData element
+     * @param os the stream receiving the decrypted octets
+     * @throws XMLEncryptionException
+     */
+    public void decryptToOutputStream(Element element, OutputStream os) throws XMLEncryptionException {
+        LOG.debug("Decrypting to OutputStream...");
+
+        if (cipherMode != DECRYPT_MODE) {
+            throw new XMLEncryptionException("empty", "XMLCipher unexpectedly not in DECRYPT_MODE...");
+        }
+
+        EncryptedData encryptedData = factory.newEncryptedData(element);
+        String encMethodAlgorithm = encryptedData.getEncryptionMethod().getAlgorithm();
+        resolveDataDecryptionKey(encryptedData, encMethodAlgorithm);
+
+        XMLCipherInput cipherInput = new XMLCipherInput(encryptedData);
+        cipherInput.setSecureValidation(secureValidation);
+
+        try (InputStream is = cipherInput.getInputStream()) {
+            int ivLen = JCEMapper.getIVLengthFromURI(encMethodAlgorithm) / 8;
+            byte[] ivBytes = new byte[ivLen];
+            int pos = 0;
+            while (pos < ivLen) {
+                int read = is.read(ivBytes, pos, ivLen - pos);
+                if (read == -1) {
+                    throw new XMLEncryptionException("empty", "The encrypted octets are shorter than the IV");
+                }
+                pos += read;
+            }
+
+            Cipher c = createDataDecryptionCipher(encMethodAlgorithm, ivBytes);
+
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                byte[] decrypted = c.update(buffer, 0, read);
+                if (decrypted != null) {
+                    os.write(decrypted);
+                }
+            }
+            os.write(c.doFinal());
+        } catch (IOException ioe) {
+            throw new XMLEncryptionException(ioe);
+        } catch (IllegalBlockSizeException ibse) {
+            throw new XMLEncryptionException(ibse);
+        } catch (BadPaddingException bpe) {
+            throw new XMLEncryptionException(bpe);
+        }
+    }
+
+    /**
+     * Resolves the key to decrypt the given EncryptedData with from its KeyInfo,
+     * unless a key has been set already.
+     */
+    private void resolveDataDecryptionKey(EncryptedData encryptedData, String encMethodAlgorithm)
+        throws XMLEncryptionException {
         if (key == null) {
             KeyInfo ki = encryptedData.getKeyInfo();
             if (ki != null) {
@@ -1760,13 +1861,14 @@ public class XMLCipher {
                 throw new XMLEncryptionException("empty", "encryption.nokey");
             }
         }
+    }
 
-        // Obtain the encrypted octets
-        XMLCipherInput cipherInput = new XMLCipherInput(encryptedData);
-        cipherInput.setSecureValidation(secureValidation);
-        byte[] encryptedBytes = cipherInput.getBytes();
-
-        // Now create the working cipher
+    /**
+     * Creates the working cipher for decrypting EncryptedData, initialized with
+     * the key and the IV read from the front of the encrypted octets.
+     */
+    private Cipher createDataDecryptionCipher(String encMethodAlgorithm, byte[] ivBytes)
+        throws XMLEncryptionException {
         String jceAlgorithm =
             JCEMapper.translateURItoJCEID(encMethodAlgorithm);
         LOG.debug("JCE Algorithm = {}", jceAlgorithm);
@@ -1786,16 +1888,6 @@ public class XMLCipher {
             throw new XMLEncryptionException(nspae);
         }
 
-        int ivLen = JCEMapper.getIVLengthFromURI(encMethodAlgorithm) / 8;
-        byte[] ivBytes = new byte[ivLen];
-
-        // You may be able to pass the entire piece in to IvParameterSpec
-        // and it will only take the first x bytes, but no way to be certain
-        // that this will work for every JCE provider, so lets copy the
-        // necessary bytes into a dedicated array.
-
-        System.arraycopy(encryptedBytes, 0, ivBytes, 0, ivLen);
-
         String blockCipherAlg = algorithm;
         if (blockCipherAlg == null) {
             blockCipherAlg = encMethodAlgorithm;
@@ -1809,14 +1901,7 @@ public class XMLCipher {
         } catch (InvalidAlgorithmParameterException iape) {
             throw new XMLEncryptionException(iape);
         }
-
-        try {
-            return c.doFinal(encryptedBytes, ivLen, encryptedBytes.length - ivLen);
-        } catch (IllegalBlockSizeException ibse) {
-            throw new XMLEncryptionException(ibse);
-        } catch (BadPaddingException bpe) {
-            throw new XMLEncryptionException(bpe);
-        }
+        return c;
     }
 
     /*
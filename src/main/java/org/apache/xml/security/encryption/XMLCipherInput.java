@@ -18,7 +18,9 @@
  */
 package org.apache.xml.security.encryption;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 
 import org.apache.xml.security.c14n.CanonicalizationException;
 import org.apache.xml.security.utils.XMLUtils;
@@ -104,52 +106,44 @@ public class XMLCipherInput {
     }
 
     /**
-     * Internal method to get bytes in decryption mode
-     * @return the decrypted bytes
+     * Dereferences the input and returns it as a stream, without reading the
+     * octets of a CipherReference into memory when the referenced resource
+     * (after any transforms) is itself an octet stream. The caller has to
+     * close the returned stream.
+     *
      * @throws XMLEncryptionException
+     * @return a stream of the encrypted octets, or null if not in decryption mode
      */
-    private byte[] getDecryptBytes() throws XMLEncryptionException {
-        String base64EncodedEncryptedOctets = null;
-
+    public InputStream getInputStream() throws XMLEncryptionException {
+        if (mode != XMLCipher.DECRYPT_MODE) {
+            return null;
+        }
         if (cipherData.getDataType() == CipherData.REFERENCE_TYPE) {
-            // Fun time!
-            LOG.debug("Found a reference type CipherData");
-            CipherReference cr = cipherData.getCipherReference();
-
-            // Need to wrap the uri in an Attribute node so that we can
-            // Pass to the resource resolvers
-
-            Attr uriAttr = cr.getURIAsAttr();
-            XMLSignatureInput input = null;
-
+            XMLSignatureInput input = resolveCipherReference();
             try {
-                ResourceResolver resolver =
-                    ResourceResolver.getInstance(uriAttr, null, secureValidation);
-                input = resolver.resolve(uriAttr, null, secureValidation);
-            } catch (ResourceResolverException ex) {
+                if (input.isOctetStream()) {
+                    return input.getOctetStream();
+                }
+                return new ByteArrayInputStream(input.getBytes());
+            } catch (IOException ex) {
+                throw new XMLEncryptionException(ex);
+            } catch (CanonicalizationException ex) {
                 throw new XMLEncryptionException(ex);
             }
+        }
+        return new ByteArrayInputStream(getDecryptBytes());
+    }
 
-            if (input != null) {
-                LOG.debug("Managed to resolve URI \"{}\"", cr.getURI());
-            } else {
-                LOG.debug("Failed to resolve URI \"{}\"", cr.getURI());
-            }
-
-            // Lets see if there are any transforms
-            Transforms transforms = cr.getTransforms();
-            if (transforms != null) {
-                LOG.debug("Have transforms in cipher reference");
-                try {
-                    org.apache.xml.security.transforms.Transforms dsTransforms =
-                        transforms.getDSTransforms();
-                    dsTransforms.setSecureValidation(secureValidation);
-                    input = dsTransforms.performTransforms(input);
-                } catch (TransformationException ex) {
-                    throw new XMLEncryptionException(ex);
-                }
-            }
+    /**
+     * Internal method to get bytes in decryption mode
+     * @return the decrypted bytes
+     * @throws XMLEncryptionException
+     */
+    private byte[] getDecryptBytes() throws XMLEncryptionException {
+        String base64EncodedEncryptedOctets = null;
 
+        if (cipherData.getDataType() == CipherData.REFERENCE_TYPE) {
+            XMLSignatureInput input = resolveCipherReference();
             try {
                 return input.getBytes();
             } catch (IOException ex) {
@@ -169,4 +163,50 @@ public class XMLCipherInput {
 
         return XMLUtils.decode(base64EncodedEncryptedOctets);
     }
+
+    /**
+     * Resolves the CipherReference and applies its transforms.
+     * @return the referenced encrypted octets
+     * @throws XMLEncryptionException
+     */
+    private XMLSignatureInput resolveCipherReference() throws XMLEncryptionException {
+        // Fun time!
+        LOG.debug("Found a reference type CipherData");
+        CipherReference cr = cipherData.getCipherReference();
+
+        // Need to wrap the uri in an Attribute node so that we can
+        // Pass to the resource resolvers
+
+        Attr uriAttr = cr.getURIAsAttr();
+        XMLSignatureInput input = null;
+
+        try {
+            ResourceResolver resolver =
+                ResourceResolver.getInstance(uriAttr, null, secureValidation);
+            input = resolver.resolve(uriAttr, null, secureValidation);
+        } catch (ResourceResolverException ex) {
+            throw new XMLEncryptionException(ex);
+        }
+
+        if (input != null) {
+            LOG.debug("Managed to resolve URI \"{}\"", cr.getURI());
+        } else {
+            LOG.debug("Failed to resolve URI \"{}\"", cr.getURI());
+        }
+
+        // Lets see if there are any transforms
+        Transforms transforms = cr.getTransforms();
+        if (transforms != null) {
+            LOG.debug("Have transforms in cipher reference");
+            try {
+                org.apache.xml.security.transforms.Transforms dsTransforms =
+                    transforms.getDSTransforms();
+                dsTransforms.setSecureValidation(secureValidation);
+                input = dsTransforms.performTransforms(input);
+            } catch (TransformationException ex) {
+                throw new XMLEncryptionException(ex);
+            }
+        }
+        return input;
+    }
 }
@@ -43,6 +43,7 @@ import org.apache.xml.security.keys.content.X509Data;
 import org.apache.xml.security.keys.content.keyvalues.DSAKeyValue;
 import org.apache.xml.security.keys.content.keyvalues.RSAKeyValue;
 import org.apache.xml.security.keys.keyresolver.KeyResolver;
+import org.apache.xml.security.keys.keyresolver.KeyResolverCache;
 import org.apache.xml.security.keys.keyresolver.KeyResolverException;
 import org.apache.xml.security.keys.keyresolver.KeyResolverSpi;
 import org.apache.xml.security.keys.storage.StorageResolver;
@@ -847,6 +848,17 @@ public class KeyInfo extends SignatureElementProxy {
      * @throws KeyResolverException
      */
     PublicKey getPublicKeyFromStaticResolvers() throws KeyResolverException {
+        KeyResolverCache.CacheKey cacheKey =
+            KeyResolverCache.createKey(getElement(), storageResolvers, secureValidation);
+        PublicKey pk = KeyResolverCache.PUBLIC_KEY.get(cacheKey);
+        if (pk == null) {
+            pk = resolvePublicKeyFromStaticResolvers();
+            KeyResolverCache.PUBLIC_KEY.put(cacheKey, pk);
+        }
+        return pk;
+    }
+
+    private PublicKey resolvePublicKeyFromStaticResolvers() throws KeyResolverException {
         Iterator<KeyResolverSpi> it = KeyResolver.iterator();
         while (it.hasNext()) {
             KeyResolverSpi keyResolver = it.next();
@@ -947,6 +959,17 @@ public class KeyInfo extends SignatureElementProxy {
         LOG.debug(
             "Start getX509CertificateFromStaticResolvers() with {} resolvers", KeyResolver.length()
         );
+        KeyResolverCache.CacheKey cacheKey =
+            KeyResolverCache.createKey(getElement(), storageResolvers, secureValidation);
+        X509Certificate cert = KeyResolverCache.X509_CERTIFICATE.get(cacheKey);
+        if (cert == null) {
+            cert = resolveX509CertificateFromStaticResolvers();
+            KeyResolverCache.X509_CERTIFICATE.put(cacheKey, cert);
+        }
+        return cert;
+    }
+
+    private X509Certificate resolveX509CertificateFromStaticResolvers() throws KeyResolverException {
         String uri = this.getBaseURI();
         Iterator<KeyResolverSpi> it = KeyResolver.iterator();
         while (it.hasNext()) {
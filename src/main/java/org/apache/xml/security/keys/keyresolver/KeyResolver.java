@@ -242,6 +242,7 @@ public class KeyResolver {
         } else {
             resolverVector.add(resolver);
         }
+        KeyResolverCache.clearAll();
     }
 
     /**
@@ -271,6 +272,7 @@ public class KeyResolver {
             keyResolverList.add(new KeyResolver(keyResolverSpi));
         }
         resolverVector.addAll(keyResolverList);
+        KeyResolverCache.clearAll();
     }
 
     /**
@@ -292,6 +294,7 @@ public class KeyResolver {
         keyResolverList.add(new KeyResolver(new ECKeyValueResolver()));
 
         resolverVector.addAll(keyResolverList);
+        KeyResolverCache.clearAll();
     }
 
     /**
@@ -0,0 +1,321 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.keys.keyresolver;
+
+import java.nio.charset.StandardCharsets;
+import java.security.AccessController;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.PrivilegedAction;
+import java.security.PublicKey;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.xml.security.algorithms.JCEEnginePool;
+import org.apache.xml.security.keys.storage.StorageResolver;
+import org.apache.xml.security.utils.Constants;
+import org.apache.xml.security.utils.JavaUtils;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * A bounded, time limited cache of the keys and certificates resolved by the system-wide
+ * {@link KeyResolver}s, so that the same KeyInfo sent with every message of a partner is
+ * not parsed and resolved again.
+ * <p>
+ * Entries are keyed by a SHA-256 digest of the KeyInfo content, together with the
+ * {@link StorageResolver#getVersions() versions} of the {@link StorageResolver}s and the
+ * secure validation setting the key was resolved with. The versions identify the underlying
+ * storages, e.g. a KeyStore, rather than the StorageResolver objects, so StorageResolvers
+ * created per message share the entries, and they change when a certificate is added to
+ * or removed from a storage or the storage is refreshed. No storage is scanned and no
+ * StorageResolver is referenced by the cache. Only KeyInfos which consist solely
+ * of X509Data, KeyName, KeyValue and DEREncodedKeyValue elements are cached, as these do
+ * not depend on the base URI or on other documents, and only if all storages know their size.
+ * <p>
+ * The cache is disabled by default. The system property
+ * <code>org.apache.xml.security.keyResolverCache.size</code> sets the maximum number of entries
+ * per cache, which can also be set with {@link #setCacheSize}, and
+ * <code>org.apache.xml.security.keyResolverCache.ttl</code> the number of seconds
+ * an entry is valid (default 300). The caches are cleared whenever a KeyResolver is registered.
+ *
+ * @param <V> the type of the cached values
+ */
+public final class KeyResolverCache<V> {
+
+    private static volatile int cacheSize =
+        AccessController.doPrivileged(
+            (PrivilegedAction<Integer>) () -> Integer.getInteger("org.apache.xml.security.keyResolverCache.size", 0));
+
+    private static final long CACHE_TTL =
+        TimeUnit.SECONDS.toNanos(AccessController.doPrivileged(
+            (PrivilegedAction<Integer>) () -> Integer.getInteger("org.apache.xml.security.keyResolverCache.ttl", 300)));
+
+    public static final KeyResolverCache<PublicKey> PUBLIC_KEY = new KeyResolverCache<>();
+
+    public static final KeyResolverCache<X509Certificate> X509_CERTIFICATE = new KeyResolverCache<>();
+
+    private final Map<CacheKey, CacheEntry<V>> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private KeyResolverCache() {
+        entries = Collections.synchronizedMap(new LinkedHashMap<CacheKey, CacheEntry<V>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, CacheEntry<V>> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Computes the cache key of a KeyInfo element.
+     *
+     * @param keyInfo the KeyInfo element
+     * @param storageResolvers the StorageResolvers the KeyInfo is resolved with
+     * @param secureValidation whether secure validation is enabled
+     * @return the cache key or null if the cache is disabled or the KeyInfo cannot be cached
+     */
+    public static CacheKey createKey(
+        Element keyInfo, List<StorageResolver> storageResolvers, boolean secureValidation
+    ) {
+        if (cacheSize <= 0) {
+            return null;
+        }
+        for (Node child = keyInfo.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE && !isCacheable(child)) {
+                return null;
+            }
+        }
+        long[][] versions = new long[storageResolvers.size()][];
+        for (int i = 0; i < versions.length; i++) {
+            versions[i] = storageResolvers.get(i).getVersions();
+            if (versions[i] == null) {
+                // changes of the storage can't be detected
+                return null;
+            }
+        }
+
+        MessageDigest md;
+        try {
+            md = JCEEnginePool.MESSAGE_DIGEST.acquire("SHA-256", null);
+        } catch (NoSuchAlgorithmException | NoSuchProviderException ex) {
+            return null;
+        }
+        try {
+            for (Node child = keyInfo.getFirstChild(); child != null; child = child.getNextSibling()) {
+                if (child.getNodeType() == Node.ELEMENT_NODE) {
+                    digest(md, child);
+                }
+            }
+            return new CacheKey(md.digest(), versions, secureValidation);
+        } finally {
+            JCEEnginePool.MESSAGE_DIGEST.release(md, "SHA-256", null);
+        }
+    }
+
+    /**
+     * Sets the maximum number of entries per cache, overriding the system property.
+     *
+     * @param size the maximum number of entries, 0 disables the caches
+     * @throws SecurityException if a security manager is installed and the
+     *    caller does not have permission to register the key resolver
+     */
+    public static void setCacheSize(int size) {
+        JavaUtils.checkRegisterPermission();
+        cacheSize = size;
+        clearAll();
+    }
+
+    /**
+     * Clears the public key and the certificate cache.
+     */
+    public static void clearAll() {
+        PUBLIC_KEY.clear();
+        X509_CERTIFICATE.clear();
+    }
+
+    /**
+     * @param key the cache key, may be null
+     * @return the cached value or null if there is no valid entry
+     */
+    public V get(CacheKey key) {
+        if (key == null) {
+            return null;
+        }
+        CacheEntry<V> entry = entries.get(key);
+        if (entry == null || System.nanoTime() - entry.created > CACHE_TTL) {
+            if (entry != null) {
+                entries.remove(key, entry);
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    /**
+     * @param key the cache key, may be null
+     * @param value the resolved value, may be null
+     */
+    public void put(CacheKey key, V value) {
+        if (key != null && value != null) {
+            entries.put(key, new CacheEntry<>(value, System.nanoTime()));
+        }
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * @return the number of lookups which were answered from the cache
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of lookups which were not answered from the cache
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    private static boolean isCacheable(Node node) {
+        String namespace = node.getNamespaceURI();
+        String localName = node.getLocalName();
+        if (Constants.SignatureSpecNS.equals(namespace)) {
+            return Constants._TAG_X509DATA.equals(localName)
+                || Constants._TAG_KEYNAME.equals(localName)
+                || Constants._TAG_KEYVALUE.equals(localName);
+        }
+        return Constants.SignatureSpec11NS.equals(namespace)
+            && Constants._TAG_DERENCODEDKEYVALUE.equals(localName);
+    }
+
+    private static void digest(MessageDigest md, Node node) {
+        switch (node.getNodeType()) {
+        case Node.ELEMENT_NODE :
+            md.update((byte) 1);
+            update(md, node.getNamespaceURI());
+            update(md, node.getLocalName());
+            digestAttributes(md, node.getAttributes());
+            for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+                digest(md, child);
+            }
+            md.update((byte) 2);
+            break;
+        case Node.TEXT_NODE :
+        case Node.CDATA_SECTION_NODE :
+            md.update((byte) 3);
+            update(md, node.getNodeValue());
+            break;
+        default :
+            break;
+        }
+    }
+
+    private static void digestAttributes(MessageDigest md, NamedNodeMap attributes) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < attributes.getLength(); i++) {
+            Attr attr = (Attr) attributes.item(i);
+            if (!Constants.NamespaceSpecNS.equals(attr.getNamespaceURI())) {
+                String name = attr.getNamespaceURI() + ' ' + attr.getLocalName();
+                names.add(name + '\u0000' + attr.getValue());
+            }
+        }
+        Collections.sort(names);
+        for (String name : names) {
+            md.update((byte) 4);
+            update(md, name);
+        }
+    }
+
+    private static void update(MessageDigest md, String value) {
+        if (value != null) {
+            md.update(value.getBytes(StandardCharsets.UTF_8));
+        }
+        md.update((byte) 0);
+    }
+
+    /**
+     * The key of a cache entry
+     */
+    public static final class CacheKey {
+        private final byte[] digest;
+        private final long[][] versions;
+        private final boolean secureValidation;
+        private final int hash;
+
+        CacheKey(byte[] digest, long[][] versions, boolean secureValidation) {
+            this.digest = digest;
+            this.versions = versions;
+            this.secureValidation = secureValidation;
+            int h = 31 * Arrays.hashCode(digest) + Arrays.deepHashCode(versions);
+            hash = secureValidation ? h : ~h;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) obj;
+            // the resolved key depends on the content of the storages, which is identified
+            // by their versions
+            return secureValidation == other.secureValidation && Arrays.equals(digest, other.digest)
+                && Arrays.deepEquals(versions, other.versions);
+        }
+    }
+
+    private static final class CacheEntry<V> {
+        private final V value;
+        private final long created;
+
+        CacheEntry(V value, long created) {
+            this.value = value;
+            this.created = created;
+        }
+    }
+}
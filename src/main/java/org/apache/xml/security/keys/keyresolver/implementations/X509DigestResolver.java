@@ -19,10 +19,7 @@
 package org.apache.xml.security.keys.keyresolver.implementations;
 
 import java.security.PublicKey;
-import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
-import java.util.Arrays;
-import java.util.Iterator;
 
 import javax.crypto.SecretKey;
 
@@ -127,19 +124,15 @@ public class X509DigestResolver extends KeyResolverSpi {
                 x509Digests[i] = new XMLX509Digest(x509childNodes[i], baseURI);
             }
 
-            Iterator<Certificate> storageIterator = storage.getIterator();
-            while (storageIterator.hasNext()) {
-                X509Certificate cert = (X509Certificate) storageIterator.next();
-
-                for (int i = 0; i < x509Digests.length; i++) {
-                    XMLX509Digest keyInfoDigest = x509Digests[i];
-                    byte[] certDigestBytes = XMLX509Digest.getDigestBytesFromCert(cert, keyInfoDigest.getAlgorithm());
-
-                    if (Arrays.equals(keyInfoDigest.getDigestBytes(), certDigestBytes)) {
-                        LOG.debug("Found certificate with: {}", cert.getSubjectX500Principal().getName());
-                        return cert;
-                    }
+            for (int i = 0; i < x509Digests.length; i++) {
+                XMLX509Digest keyInfoDigest = x509Digests[i];
+                X509Certificate cert = storage.getX509CertificateByDigest(
+                    keyInfoDigest.getAlgorithm(), keyInfoDigest.getDigestBytes()
+                );
 
+                if (cert != null) {
+                    LOG.debug("Found certificate with: {}", cert.getSubjectX500Principal().getName());
+                    return cert;
                 }
             }
 
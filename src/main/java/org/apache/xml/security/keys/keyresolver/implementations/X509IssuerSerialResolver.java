@@ -19,9 +19,7 @@
 package org.apache.xml.security.keys.keyresolver.implementations;
 
 import java.security.PublicKey;
-import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
-import java.util.Iterator;
 
 import org.apache.xml.security.exceptions.XMLSecurityException;
 import org.apache.xml.security.keys.content.X509Data;
@@ -86,26 +84,19 @@ public class X509IssuerSerialResolver extends KeyResolverSpi {
 
             int noOfISS = x509data.lengthIssuerSerial();
 
-            Iterator<Certificate> storageIterator = storage.getIterator();
-            while (storageIterator.hasNext()) {
-                X509Certificate cert = (X509Certificate)storageIterator.next();
-                XMLX509IssuerSerial certSerial = new XMLX509IssuerSerial(element.getOwnerDocument(), cert);
+            for (int i = 0; i < noOfISS; i++) {
+                XMLX509IssuerSerial xmliss = x509data.itemIssuerSerial(i);
 
-                LOG.debug("Found Certificate Issuer: {}", certSerial.getIssuerName());
-                LOG.debug("Found Certificate Serial: {}", certSerial.getSerialNumber().toString());
+                LOG.debug("Found Element Issuer:     {}", xmliss.getIssuerName());
+                LOG.debug("Found Element Serial:     {}", xmliss.getSerialNumber().toString());
 
-                for (int i = 0; i < noOfISS; i++) {
-                    XMLX509IssuerSerial xmliss = x509data.itemIssuerSerial(i);
-
-                    LOG.debug("Found Element Issuer:     {}", xmliss.getIssuerName());
-                    LOG.debug("Found Element Serial:     {}", xmliss.getSerialNumber().toString());
-
-                    if (certSerial.equals(xmliss)) {
-                        LOG.debug("match !!! ");
-                        return cert;
-                    }
-                    LOG.debug("no match...");
+                X509Certificate cert =
+                    storage.getX509CertificateByIssuerSerial(xmliss.getIssuerName(), xmliss.getSerialNumber());
+                if (cert != null) {
+                    LOG.debug("match !!! ");
+                    return cert;
                 }
+                LOG.debug("no match...");
             }
 
             return null;
@@ -19,9 +19,7 @@
 package org.apache.xml.security.keys.keyresolver.implementations;
 
 import java.security.PublicKey;
-import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
-import java.util.Iterator;
 
 
 import org.apache.xml.security.exceptions.XMLSecurityException;
@@ -106,17 +104,12 @@ public class X509SKIResolver extends KeyResolverSpi {
                 x509childObject[i] = new XMLX509SKI(x509childNodes[i], baseURI);
             }
 
-            Iterator<Certificate> storageIterator = storage.getIterator();
-            while (storageIterator.hasNext()) {
-                X509Certificate cert = (X509Certificate)storageIterator.next();
-                XMLX509SKI certSKI = new XMLX509SKI(element.getOwnerDocument(), cert);
+            for (int i = 0; i < x509childObject.length; i++) {
+                X509Certificate cert = storage.getX509CertificateBySKI(x509childObject[i].getSKIBytes());
+                if (cert != null) {
+                    LOG.debug("Return PublicKey from {}", cert.getSubjectX500Principal().getName());
 
-                for (int i = 0; i < x509childObject.length; i++) {
-                    if (certSKI.equals(x509childObject[i])) {
-                        LOG.debug("Return PublicKey from {}", cert.getSubjectX500Principal().getName());
-
-                        return cert;
-                    }
+                    return cert;
                 }
             }
         } catch (XMLSecurityException ex) {
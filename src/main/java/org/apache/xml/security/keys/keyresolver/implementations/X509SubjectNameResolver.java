@@ -19,9 +19,7 @@
 package org.apache.xml.security.keys.keyresolver.implementations;
 
 import java.security.PublicKey;
-import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
-import java.util.Iterator;
 
 
 import org.apache.xml.security.exceptions.XMLSecurityException;
@@ -107,24 +105,17 @@ public class X509SubjectNameResolver extends KeyResolverSpi {
                 x509childObject[i] = new XMLX509SubjectName(x509childNodes[i], baseURI);
             }
 
-            Iterator<Certificate> storageIterator = storage.getIterator();
-            while (storageIterator.hasNext()) {
-                X509Certificate cert = (X509Certificate)storageIterator.next();
-                XMLX509SubjectName certSN =
-                    new XMLX509SubjectName(element.getOwnerDocument(), cert);
+            for (int i = 0; i < x509childObject.length; i++) {
+                LOG.debug("Found Element SN:     {}", x509childObject[i].getSubjectName());
 
-                LOG.debug("Found Certificate SN: {}", certSN.getSubjectName());
+                X509Certificate cert =
+                    storage.getX509CertificateBySubjectName(x509childObject[i].getSubjectName());
+                if (cert != null) {
+                    LOG.debug("match !!! ");
 
-                for (int i = 0; i < x509childObject.length; i++) {
-                    LOG.debug("Found Element SN:     {}", x509childObject[i].getSubjectName());
-
-                    if (certSN.equals(x509childObject[i])) {
-                        LOG.debug("match !!! ");
-
-                        return cert;
-                    }
-                    LOG.debug("no match...");
+                    return cert;
                 }
+                LOG.debug("no match...");
             }
 
             return null;
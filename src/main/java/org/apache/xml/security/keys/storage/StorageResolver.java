@@ -18,19 +18,38 @@
  */
 package org.apache.xml.security.keys.storage;
 
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.security.KeyStore;
 import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.xml.security.exceptions.XMLSecurityException;
+import org.apache.xml.security.keys.content.x509.XMLX509Digest;
+import org.apache.xml.security.keys.content.x509.XMLX509SKI;
 import org.apache.xml.security.keys.storage.implementations.KeyStoreResolver;
 import org.apache.xml.security.keys.storage.implementations.SingleCertificateResolver;
+import org.apache.xml.security.utils.RFC2253Parser;
 
 /**
  * This class collects customized resolvers for Certificates.
+ * <p>
+ * The lookup methods use hash indexes of the certificates on their subject key identifier,
+ * issuer and serial number, subject name and digest, which are built on first use. An index
+ * is rebuilt when the size or the modification count of one of the storages changes, or
+ * after {@link #refresh()} was called. A storage is not scanned to detect changes, so
+ * {@link #refresh()} has to be called after an entry of a KeyStore was replaced. If a storage does not know its size, the lookup
+ * methods scan all certificates.
  */
 public class StorageResolver {
 
@@ -40,6 +59,12 @@ public class StorageResolver {
     /** Field storageResolvers */
     private List<StorageResolverSpi> storageResolvers;
 
+    /** Field index */
+    private volatile CertificateIndex index;
+
+    /** The number of calls of {@link #refresh()} */
+    private final AtomicLong refreshCount = new AtomicLong();
+
     /**
      * Constructor StorageResolver
      *
@@ -65,6 +90,7 @@ public class StorageResolver {
             storageResolvers = new ArrayList<>();
         }
         this.storageResolvers.add(resolver);
+        this.index = null;
     }
 
     /**
@@ -115,6 +141,221 @@ public class StorageResolver {
         return new StorageResolverIterator(this.storageResolvers.iterator());
     }
 
+    /**
+     * Discards the certificate indexes, e.g. after a certificate of a storage was replaced.
+     * Replacing an entry of a KeyStore is not detected otherwise, see
+     * {@link KeyStoreResolver#refresh()}.
+     */
+    public void refresh() {
+        if (storageResolvers != null) {
+            for (StorageResolverSpi resolver : storageResolvers) {
+                resolver.refresh();
+            }
+        }
+        refreshCount.incrementAndGet();
+        this.index = null;
+    }
+
+    /**
+     * Returns the id, the size and the modification count of every storage, followed by the
+     * number of calls of {@link #refresh()}. The values are cheap to obtain, no storage is
+     * scanned. If the result of two calls is equal, no change of the storages was detected
+     * in between.
+     *
+     * @return the versions of the storages, or null if a storage does not know its size
+     */
+    public long[] getVersions() {
+        int count = storageResolvers == null ? 0 : storageResolvers.size();
+        long[] versions = new long[3 * count + 1];
+        for (int i = 0; i < count; i++) {
+            StorageResolverSpi resolver = storageResolvers.get(i);
+            int size = resolver.size();
+            if (size < 0) {
+                return null;
+            }
+            versions[3 * i] = resolver.getStorageId();
+            versions[3 * i + 1] = size;
+            versions[3 * i + 2] = resolver.getModificationCount();
+        }
+        versions[3 * count] = refreshCount.get();
+        return versions;
+    }
+
+    /**
+     * Method getX509CertificateBySKI
+     *
+     * @param ski the subject key identifier
+     * @return the first certificate with the given subject key identifier or null
+     */
+    public X509Certificate getX509CertificateBySKI(byte[] ski) {
+        CertificateIndex currentIndex = getIndex();
+        if (currentIndex != null) {
+            return currentIndex.bySKI.get(ByteBuffer.wrap(ski));
+        }
+        Iterator<Certificate> storageIterator = getIterator();
+        while (storageIterator.hasNext()) {
+            X509Certificate cert = (X509Certificate) storageIterator.next();
+            byte[] certSKI = getSKI(cert);
+            if (Arrays.equals(certSKI, ski)) {
+                return cert;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Method getX509CertificateByIssuerSerial
+     *
+     * @param issuerName the issuer name, normalized with {@link RFC2253Parser#normalize(String)}
+     * @param serialNumber the serial number
+     * @return the first certificate with the given issuer name and serial number or null
+     */
+    public X509Certificate getX509CertificateByIssuerSerial(String issuerName, BigInteger serialNumber) {
+        String key = issuerSerial(issuerName, serialNumber);
+        CertificateIndex currentIndex = getIndex();
+        if (currentIndex != null) {
+            return currentIndex.byIssuerSerial.get(key);
+        }
+        Iterator<Certificate> storageIterator = getIterator();
+        while (storageIterator.hasNext()) {
+            X509Certificate cert = (X509Certificate) storageIterator.next();
+            if (key.equals(issuerSerial(cert))) {
+                return cert;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Method getX509CertificateBySubjectName
+     *
+     * @param subjectName the subject name, normalized with {@link RFC2253Parser#normalize(String)}
+     * @return the first certificate with the given subject name or null
+     */
+    public X509Certificate getX509CertificateBySubjectName(String subjectName) {
+        CertificateIndex currentIndex = getIndex();
+        if (currentIndex != null) {
+            return currentIndex.bySubjectName.get(subjectName);
+        }
+        Iterator<Certificate> storageIterator = getIterator();
+        while (storageIterator.hasNext()) {
+            X509Certificate cert = (X509Certificate) storageIterator.next();
+            if (subjectName.equals(subjectName(cert))) {
+                return cert;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Method getX509CertificateByDigest
+     *
+     * @param algorithmURI the URI of the digest algorithm
+     * @param digest the digest of the encoded certificate
+     * @return the first certificate with the given digest or null
+     * @throws XMLSecurityException if the digest algorithm is not supported
+     */
+    public X509Certificate getX509CertificateByDigest(String algorithmURI, byte[] digest)
+        throws XMLSecurityException {
+        CertificateIndex currentIndex = getIndex();
+        if (currentIndex != null) {
+            Map<ByteBuffer, X509Certificate> byDigest = currentIndex.byDigest.get(algorithmURI);
+            if (byDigest == null) {
+                byDigest = new HashMap<>();
+                for (X509Certificate cert : currentIndex.certificates) {
+                    byDigest.putIfAbsent(
+                        ByteBuffer.wrap(XMLX509Digest.getDigestBytesFromCert(cert, algorithmURI)), cert
+                    );
+                }
+                currentIndex.byDigest.put(algorithmURI, byDigest);
+            }
+            return byDigest.get(ByteBuffer.wrap(digest));
+        }
+        Iterator<Certificate> storageIterator = getIterator();
+        while (storageIterator.hasNext()) {
+            X509Certificate cert = (X509Certificate) storageIterator.next();
+            if (Arrays.equals(XMLX509Digest.getDigestBytesFromCert(cert, algorithmURI), digest)) {
+                return cert;
+            }
+        }
+        return null;
+    }
+
+    // Returns the current index, rebuilding it if a storage has changed, or null if
+    // the storages can't be indexed
+    private CertificateIndex getIndex() {
+        if (storageResolvers == null) {
+            return CertificateIndex.EMPTY;
+        }
+        long[] versions = getVersions();
+        if (versions == null) {
+            return null;
+        }
+        CertificateIndex currentIndex = this.index;
+        if (currentIndex == null || !Arrays.equals(currentIndex.versions, versions)) {
+            currentIndex = new CertificateIndex(versions, getIterator());
+            this.index = currentIndex;
+        }
+        return currentIndex;
+    }
+
+    private static byte[] getSKI(X509Certificate cert) {
+        try {
+            return XMLX509SKI.getSKIBytesFromCert(cert);
+        } catch (XMLSecurityException ex) {
+            // no SKI extension
+            return null;
+        }
+    }
+
+    private static String issuerSerial(X509Certificate cert) {
+        return issuerSerial(
+            RFC2253Parser.normalize(cert.getIssuerX500Principal().getName()), cert.getSerialNumber()
+        );
+    }
+
+    private static String issuerSerial(String issuerName, BigInteger serialNumber) {
+        return issuerName + '\u0000' + serialNumber;
+    }
+
+    private static String subjectName(X509Certificate cert) {
+        return RFC2253Parser.normalize(cert.getSubjectX500Principal().getName());
+    }
+
+    /**
+     * The indexes of the certificates of all storages at a point in time
+     */
+    private static final class CertificateIndex {
+
+        static final CertificateIndex EMPTY =
+            new CertificateIndex(new long[0], Collections.<Certificate>emptyIterator());
+
+        final long[] versions;
+        final List<X509Certificate> certificates = new ArrayList<>();
+        final Map<ByteBuffer, X509Certificate> bySKI = new HashMap<>();
+        final Map<String, X509Certificate> byIssuerSerial = new HashMap<>();
+        final Map<String, X509Certificate> bySubjectName = new HashMap<>();
+        final Map<String, Map<ByteBuffer, X509Certificate>> byDigest = new ConcurrentHashMap<>();
+
+        CertificateIndex(long[] versions, Iterator<Certificate> storageIterator) {
+            this.versions = versions;
+            while (storageIterator.hasNext()) {
+                Certificate next = storageIterator.next();
+                if (!(next instanceof X509Certificate)) {
+                    continue;
+                }
+                X509Certificate cert = (X509Certificate) next;
+                certificates.add(cert);
+                byte[] ski = getSKI(cert);
+                if (ski != null) {
+                    bySKI.putIfAbsent(ByteBuffer.wrap(ski), cert);
+                }
+                byIssuerSerial.putIfAbsent(issuerSerial(cert), cert);
+                bySubjectName.putIfAbsent(subjectName(cert), cert);
+            }
+        }
+    }
+
     /**
      * Class StorageResolverIterator
      * This iterates over all the Certificates found in all the resolvers.
@@ -20,13 +20,66 @@ package org.apache.xml.security.keys.storage;
 
 import java.security.cert.Certificate;
 import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
 
 public abstract class StorageResolverSpi {
 
+    private static final AtomicLong NEXT_STORAGE_ID = new AtomicLong();
+
+    private final long storageId = nextStorageId();
+
     /**
      * Method getIterator
      *
      * @return the iterator for the storage
      */
     public abstract Iterator<Certificate> getIterator();
+
+    /**
+     * Method size
+     *
+     * @return the number of entries of the storage, or -1 if it is not known. The
+     * {@link StorageResolver} uses it to detect a changed storage, storages which
+     * return -1 are not indexed.
+     */
+    public int size() {
+        return -1;
+    }
+
+    /**
+     * Method getModificationCount
+     *
+     * @return a number which changes whenever an entry of the storage is replaced without
+     * changing its size
+     */
+    public long getModificationCount() {
+        return 0;
+    }
+
+    /**
+     * Method refresh
+     *
+     * Called by {@link StorageResolver#refresh()}, e.g. after an entry of the storage was
+     * replaced in a way the storage can't detect itself. The default does nothing.
+     */
+    public void refresh() {
+    }
+
+    /**
+     * Method getStorageId
+     *
+     * @return a number which identifies the underlying storage and is never reused. Resolvers
+     * created for the same storage may return the same number. The default is unique per
+     * instance.
+     */
+    public long getStorageId() {
+        return storageId;
+    }
+
+    /**
+     * @return a new storage id
+     */
+    protected static long nextStorageId() {
+        return NEXT_STORAGE_ID.incrementAndGet();
+    }
 }
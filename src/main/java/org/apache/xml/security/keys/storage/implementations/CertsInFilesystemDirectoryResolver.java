@@ -143,6 +143,11 @@ public class CertsInFilesystemDirectoryResolver extends StorageResolverSpi {
         return new FilesystemIterator(this.certs);
     }
 
+    /** {@inheritDoc} */
+    public int size() {
+        return this.certs.size();
+    }
+
     /**
      * Class FilesystemIterator
      */
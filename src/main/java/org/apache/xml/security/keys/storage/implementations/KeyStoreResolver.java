@@ -21,9 +21,13 @@ package org.apache.xml.security.keys.storage.implementations;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
 import java.security.cert.Certificate;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.xml.security.keys.storage.StorageResolverException;
 import org.apache.xml.security.keys.storage.StorageResolverSpi;
@@ -37,6 +41,13 @@ public class KeyStoreResolver extends StorageResolverSpi {
     /** Field keyStore */
     private KeyStore keyStore;
 
+    /** The state of every KeyStore a KeyStoreResolver was created for, weakly keyed by identity */
+    private static final Map<KeyStore, KeyStoreState> STATES =
+        Collections.synchronizedMap(new WeakHashMap<KeyStore, KeyStoreState>());
+
+    /** Field state */
+    private final KeyStoreState state;
+
     /**
      * Constructor KeyStoreResolver
      *
@@ -51,6 +62,7 @@ public class KeyStoreResolver extends StorageResolverSpi {
         } catch (KeyStoreException ex) {
             throw new StorageResolverException(ex);
         }
+        this.state = STATES.computeIfAbsent(keyStore, k -> new KeyStoreState());
     }
 
     /** {@inheritDoc} */
@@ -58,6 +70,60 @@ public class KeyStoreResolver extends StorageResolverSpi {
         return new KeyStoreIterator(this.keyStore);
     }
 
+    /** {@inheritDoc} */
+    public int size() {
+        try {
+            return keyStore.size();
+        } catch (KeyStoreException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The count is shared by all KeyStoreResolvers of the same KeyStore and is increased
+     * by {@link #refresh()}.
+     */
+    @Override
+    public long getModificationCount() {
+        return state.generation.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * A KeyStore has no change counter of its own, and comparing its entries on every
+     * lookup would make each lookup linear again. Entries which are added or removed change
+     * the size of the KeyStore and are detected by the
+     * {@link org.apache.xml.security.keys.storage.StorageResolver}. After an entry was
+     * replaced, or exchanged for one with another alias, this method has to be called,
+     * normally through {@link org.apache.xml.security.keys.storage.StorageResolver#refresh()}.
+     * It affects all KeyStoreResolvers of the same KeyStore.
+     */
+    @Override
+    public void refresh() {
+        state.generation.incrementAndGet();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * All KeyStoreResolvers of the same KeyStore return the same id.
+     */
+    @Override
+    public long getStorageId() {
+        return state.id;
+    }
+
+    /**
+     * The id and modification count of a KeyStore, shared by its KeyStoreResolvers
+     */
+    private static final class KeyStoreState {
+        private final long id = nextStorageId();
+        private final AtomicLong generation = new AtomicLong();
+    }
+
     /**
      * Class KeyStoreIterator
      */
@@ -46,6 +46,11 @@ public class SingleCertificateResolver extends StorageResolverSpi {
         return new InternalIterator(this.certificate);
     }
 
+    /** {@inheritDoc} */
+    public int size() {
+        return 1;
+    }
+
     /**
      * Class InternalIterator
      */
@@ -0,0 +1,284 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.keys.storage.implementations;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.xml.security.keys.storage.StorageResolverException;
+import org.apache.xml.security.keys.storage.StorageResolverSpi;
+
+/**
+ * A variant of {@link CertsInFilesystemDirectoryResolver} which keeps the certificates of
+ * the directory current: a {@link WatchService} adds, replaces and removes the certificate of
+ * a single ".crt" file as it is created, modified or deleted, so that the directory does not
+ * have to be read again. The files which exist at construction time are parsed in parallel,
+ * using either the given {@link Executor} or a pool which is only used for that purpose.
+ * <p>
+ * The directory is watched by a daemon thread until {@link #close()} is called. The
+ * {@link org.apache.xml.security.keys.storage.StorageResolver} indexes are rebuilt from the
+ * certificates in memory on the first lookup after a change; all the events which are
+ * reported together count as one change.
+ */
+public class WatchedCertsInFilesystemDirectoryResolver extends StorageResolverSpi implements Closeable {
+
+    private static final org.slf4j.Logger LOG =
+        org.slf4j.LoggerFactory.getLogger(
+            WatchedCertsInFilesystemDirectoryResolver.class
+        );
+
+    /** Field certificatesDir */
+    private final Path certificatesDir;
+
+    /** Field certs */
+    private final Map<Path, X509Certificate> certs = new ConcurrentSkipListMap<>();
+
+    /** Field modificationCount */
+    private final AtomicLong modificationCount = new AtomicLong();
+
+    /** Field watchService */
+    private final WatchService watchService;
+
+    /** Field watcher */
+    private final Thread watcher;
+
+    /**
+     * @param directoryName
+     * @throws StorageResolverException
+     */
+    public WatchedCertsInFilesystemDirectoryResolver(String directoryName)
+        throws StorageResolverException {
+        this(directoryName, null);
+    }
+
+    /**
+     * @param directoryName
+     * @param executor the executor which parses the certificates which exist at construction
+     * time, or null to use a pool which is shut down once they have been parsed
+     * @throws StorageResolverException
+     */
+    public WatchedCertsInFilesystemDirectoryResolver(String directoryName, Executor executor)
+        throws StorageResolverException {
+        this.certificatesDir = Paths.get(directoryName).toAbsolutePath();
+
+        try {
+            this.watchService = certificatesDir.getFileSystem().newWatchService();
+            certificatesDir.register(
+                watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE
+            );
+        } catch (IOException ex) {
+            throw new StorageResolverException(ex);
+        }
+
+        // Register before reading, so that no change gets lost
+        ExecutorService startupPool = null;
+        try {
+            if (executor == null) {
+                startupPool = Executors.newFixedThreadPool(
+                    Runtime.getRuntime().availableProcessors(),
+                    r -> {
+                        Thread thread = new Thread(r, "xmlsec-certificate-directory-reader");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                );
+                executor = startupPool;
+            }
+            this.readCertsFromHarddrive(executor);
+        } catch (StorageResolverException ex) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                LOG.debug(e.getMessage(), e);
+            }
+            throw ex;
+        } finally {
+            if (startupPool != null) {
+                startupPool.shutdown();
+            }
+        }
+
+        this.watcher = new Thread(this::watch, "xmlsec-certificate-directory-watcher");
+        this.watcher.setDaemon(true);
+        this.watcher.start();
+    }
+
+    /**
+     * Method readCertsFromHarddrive
+     *
+     * @param executor the executor which parses the certificates, or null to parse them
+     * on the calling thread
+     * @throws StorageResolverException
+     */
+    private void readCertsFromHarddrive(Executor executor) throws StorageResolverException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(certificatesDir, "*.crt")) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        } catch (IOException ex) {
+            throw new StorageResolverException(ex);
+        }
+
+        Set<Path> found = new HashSet<>(files);
+        certs.keySet().retainAll(found);
+        if (executor == null) {
+            files.forEach(this::readCertificate);
+        } else {
+            CompletableFuture<?>[] tasks = new CompletableFuture<?>[files.size()];
+            for (int i = 0; i < tasks.length; i++) {
+                Path file = files.get(i);
+                tasks[i] = CompletableFuture.runAsync(() -> readCertificate(file), executor);
+            }
+            try {
+                CompletableFuture.allOf(tasks).join();
+            } catch (CompletionException ex) {
+                throw new StorageResolverException(ex);
+            }
+        }
+        modificationCount.incrementAndGet();
+    }
+
+    /**
+     * Adds or replaces the certificate of a file, or removes it if the file does not
+     * contain a valid certificate.
+     *
+     * @param file
+     */
+    private void readCertificate(Path file) {
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            CertificateFactory cf = CertificateFactory.getInstance("X.509");
+            X509Certificate cert = (X509Certificate) cf.generateCertificate(inputStream);
+            cert.checkValidity();
+            certs.put(file, cert);
+
+            LOG.debug("Added certificate: {}", cert.getSubjectX500Principal().getName());
+        } catch (CertificateException | IOException ex) {
+            certs.remove(file);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Could not add certificate from file " + file, ex);
+            }
+        }
+    }
+
+    private void watch() {
+        boolean rescan = false;
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        rescan = true;
+                        continue;
+                    }
+                    Path file = certificatesDir.resolve((Path) event.context());
+                    if (!file.getFileName().toString().endsWith(".crt")) {
+                        continue;
+                    }
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                        if (certs.remove(file) != null) {
+                            LOG.debug("Removed certificate from file {}", file);
+                        }
+                    } else {
+                        readCertificate(file);
+                    }
+                    changed = true;
+                }
+                if (changed) {
+                    modificationCount.incrementAndGet();
+                }
+                if (rescan) {
+                    // events were lost, read the whole directory again. If that fails,
+                    // it is retried with the next event
+                    try {
+                        readCertsFromHarddrive(null);
+                        rescan = false;
+                    } catch (StorageResolverException ex) {
+                        LOG.warn("Could not read certificate directory " + certificatesDir
+                                 + ", the certificates may be out of date", ex);
+                    }
+                }
+                if (!key.reset()) {
+                    LOG.debug("Certificate directory {} is no longer accessible", certificatesDir);
+                    certs.clear();
+                    modificationCount.incrementAndGet();
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ex) {
+            // closed
+        }
+    }
+
+    /** {@inheritDoc} */
+    public Iterator<Certificate> getIterator() {
+        List<Certificate> snapshot = new ArrayList<Certificate>(this.certs.values());
+        return Collections.unmodifiableList(snapshot).iterator();
+    }
+
+    /** {@inheritDoc} */
+    public int size() {
+        return this.certs.size();
+    }
+
+    /** {@inheritDoc} */
+    public long getModificationCount() {
+        return this.modificationCount.get();
+    }
+
+    /**
+     * Stops watching the directory.
+     */
+    public void close() throws IOException {
+        watchService.close();
+        watcher.interrupt();
+    }
+}
@@ -22,12 +22,18 @@ import java.io.IOException;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.xml.parsers.ParserConfigurationException;
 
@@ -37,6 +43,7 @@ import org.apache.xml.security.exceptions.XMLSecurityException;
 import org.apache.xml.security.transforms.Transforms;
 import org.apache.xml.security.utils.Constants;
 import org.apache.xml.security.utils.I18n;
+import org.apache.xml.security.utils.IdIndex;
 import org.apache.xml.security.utils.SignatureElementProxy;
 import org.apache.xml.security.utils.XMLUtils;
 import org.apache.xml.security.utils.resolver.ResourceResolver;
@@ -67,6 +74,18 @@ public class Manifest extends SignatureElementProxy {
             (PrivilegedAction<Integer>) () -> Integer.parseInt(System.getProperty("org.apache.xml.security.maxReferences",
                                                                 Integer.toString(MAXIMUM_REFERENCE_COUNT))));
 
+    /** The Transforms which only read the document, see {@link #isConcurrentlyVerifiable} */
+    private static final Set<String> CONCURRENT_TRANSFORMS = new HashSet<>(Arrays.asList(
+        Transforms.TRANSFORM_C14N_OMIT_COMMENTS,
+        Transforms.TRANSFORM_C14N_WITH_COMMENTS,
+        Transforms.TRANSFORM_C14N11_OMIT_COMMENTS,
+        Transforms.TRANSFORM_C14N11_WITH_COMMENTS,
+        Transforms.TRANSFORM_C14N_EXCL_OMIT_COMMENTS,
+        Transforms.TRANSFORM_C14N_EXCL_WITH_COMMENTS,
+        Transforms.TRANSFORM_ENVELOPED_SIGNATURE,
+        Transforms.TRANSFORM_BASE64_DECODE
+    ));
+
     /** Field references */
     private List<Reference> references;
     private Element[] referencesEl;
@@ -82,6 +101,9 @@ public class Manifest extends SignatureElementProxy {
 
     private boolean secureValidation;
 
+    /** Executor used to verify the References concurrently, or null */
+    private Executor verificationExecutor;
+
     /**
      * Constructs {@link Manifest}
      *
@@ -207,10 +229,17 @@ public class Manifest extends SignatureElementProxy {
      */
     public void generateDigestValues()
         throws XMLSignatureException, ReferenceNotInitializedException {
-        for (int i = 0; i < this.getLength(); i++) {
-            // update the cached Reference object, the Element content is automatically updated
-            Reference currentRef = this.references.get(i);
-            currentRef.generateDigestValue();
+        // the same-document references of this Manifest share one index of the IDs
+        Document doc = getDocument();
+        IdIndex.attach(doc);
+        try {
+            for (int i = 0; i < this.getLength(); i++) {
+                // update the cached Reference object, the Element content is automatically updated
+                Reference currentRef = this.references.get(i);
+                currentRef.generateDigestValue();
+            }
+        } finally {
+            IdIndex.detach(doc);
         }
     }
 
@@ -308,6 +337,19 @@ public class Manifest extends SignatureElementProxy {
      * @throws XMLSecurityException
      */
     public boolean verifyReferences(boolean followManifests)
+        throws MissingResourceFailureException, XMLSecurityException {
+        // the same-document references, including those of nested Manifests,
+        // share one index of the IDs
+        Document doc = getDocument();
+        IdIndex.attach(doc);
+        try {
+            return verifyReferencesInternal(followManifests);
+        } finally {
+            IdIndex.detach(doc);
+        }
+    }
+
+    private boolean verifyReferencesInternal(boolean followManifests)
         throws MissingResourceFailureException, XMLSecurityException {
         if (referencesEl == null) {
             this.referencesEl =
@@ -328,16 +370,33 @@ public class Manifest extends SignatureElementProxy {
         }
 
         this.verificationResults = new ArrayList<>(referencesEl.length);
+        Boolean[] digestsVerified = null;
+        if (verificationExecutor != null && referencesEl.length > 1) {
+            for (int i = 0; i < this.referencesEl.length; i++) {
+                this.references.set(i,
+                    new Reference(referencesEl[i], this.baseURI, this, secureValidation));
+            }
+            digestsVerified = verifyDigestsConcurrently();
+        }
+
         boolean verify = true;
         for (int i = 0; i < this.referencesEl.length; i++) {
-            Reference currentRef =
-                new Reference(referencesEl[i], this.baseURI, this, secureValidation);
-
-            this.references.set(i, currentRef);
+            Reference currentRef;
+            if (digestsVerified == null) {
+                currentRef = new Reference(referencesEl[i], this.baseURI, this, secureValidation);
+                this.references.set(i, currentRef);
+            } else {
+                currentRef = this.references.get(i);
+            }
 
             // if only one item does not verify, the whole verification fails
             try {
-                boolean currentRefVerified = currentRef.verify();
+                boolean currentRefVerified;
+                if (digestsVerified == null || digestsVerified[i] == null) {
+                    currentRefVerified = currentRef.verify();
+                } else {
+                    currentRefVerified = digestsVerified[i];
+                }
 
                 if (!currentRefVerified) {
                     verify = false;
@@ -386,6 +445,7 @@ public class Manifest extends SignatureElementProxy {
 
                         referencedManifest.perManifestResolvers = this.perManifestResolvers;
                         referencedManifest.resolverProperties = this.resolverProperties;
+                        referencedManifest.verificationExecutor = this.verificationExecutor;
 
                         boolean referencedManifestValid =
                             referencedManifest.verifyReferences(followManifests);
@@ -421,6 +481,126 @@ public class Manifest extends SignatureElementProxy {
         return verify;
     }
 
+    /**
+     * Verifies the digests of all References using the verification executor. References
+     * which cannot be verified concurrently (see {@link #isConcurrentlyVerifiable}) are
+     * verified first on the calling thread; the others are then verified concurrently. As
+     * soon as one digest does not match, the References which have not been started yet are
+     * skipped. This method only returns once no task is running any more.
+     *
+     * @return the result of each digest comparison, or null for the References which were
+     * skipped and still have to be verified
+     * @throws MissingResourceFailureException
+     * @throws XMLSecurityException
+     */
+    private Boolean[] verifyDigestsConcurrently()
+        throws MissingResourceFailureException, XMLSecurityException {
+        Boolean[] results = new Boolean[referencesEl.length];
+        List<Integer> concurrent = new ArrayList<>(referencesEl.length);
+        for (int i = 0; i < referencesEl.length; i++) {
+            Reference ref = this.references.get(i);
+            if (isConcurrentlyVerifiable(ref)) {
+                concurrent.add(i);
+                continue;
+            }
+            results[i] = verifyDigest(ref);
+            if (!results[i]) {
+                return results;
+            }
+        }
+
+        AtomicBoolean failed = new AtomicBoolean();
+        ExecutorCompletionService<Void> completionService =
+            new ExecutorCompletionService<>(verificationExecutor);
+        for (Integer index : concurrent) {
+            Reference ref = this.references.get(index);
+            completionService.submit(() -> {
+                if (!failed.get()) {
+                    // published to the calling thread by Future.get()
+                    results[index] = verifyDigest(ref);
+                    if (!results[index]) {
+                        failed.set(true);
+                    }
+                }
+                return null;
+            });
+        }
+
+        // wait for all the tasks, so that none of them reads the document after we return
+        Exception exception = null;
+        boolean interrupted = false;
+        for (int i = 0; i < concurrent.size(); i++) {
+            try {
+                completionService.take().get();
+            } catch (InterruptedException ex) {
+                failed.set(true);
+                interrupted = true;
+                i--;
+            } catch (ExecutionException ex) {
+                failed.set(true);
+                if (exception == null) {
+                    exception = ex.getCause() instanceof Exception ? (Exception) ex.getCause() : ex;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+            if (exception == null) {
+                exception = new InterruptedException();
+            }
+        }
+
+        if (exception instanceof XMLSecurityException) {
+            throw (XMLSecurityException) exception;
+        } else if (exception instanceof RuntimeException) {
+            throw (RuntimeException) exception;
+        } else if (exception != null) {
+            throw new XMLSecurityException(exception);
+        }
+        return results;
+    }
+
+    private static boolean verifyDigest(Reference ref)
+        throws MissingResourceFailureException, XMLSecurityException {
+        try {
+            return ref.verify();
+        } catch (ReferenceNotInitializedException ex) {
+            Object[] exArgs = { ref.getURI() };
+
+            throw new MissingResourceFailureException(
+                ex, ref, "signature.Verification.Reference.NoInput", exArgs
+            );
+        }
+    }
+
+    /**
+     * Returns whether the Reference may be verified concurrently with the other References
+     * of the same document. This is only the case if all of its Transforms merely read the
+     * shared DOM: the canonicalization transforms, the enveloped signature transform (which
+     * only adds a filter to the Reference's own {@link XMLSignatureInput}) and the base64
+     * transform. The XPath transform may expand the namespace declarations of the whole
+     * document (see {@link org.apache.xml.security.utils.XMLUtils#circumventBug2650}), and the
+     * XPath Filter 2.0, XPointer and XSLT transforms as well as any custom transform are
+     * evaluated by implementations which give no guarantees about concurrent use of one DOM,
+     * so those References are verified sequentially.
+     *
+     * @param ref the Reference
+     * @return true if the Reference may be verified concurrently
+     * @throws XMLSecurityException
+     */
+    private static boolean isConcurrentlyVerifiable(Reference ref) throws XMLSecurityException {
+        Transforms transforms = ref.getTransforms();
+        if (transforms == null) {
+            return true;
+        }
+        for (int i = 0; i < transforms.getLength(); i++) {
+            if (!CONCURRENT_TRANSFORMS.contains(transforms.item(i).getURI())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * After verifying a {@link Manifest} or a {@link SignedInfo} using the
      * {@link Manifest#verifyReferences()} or {@link SignedInfo#verify()} methods,
@@ -600,6 +780,33 @@ public class Manifest extends SignatureElementProxy {
         return Constants._TAG_MANIFEST;
     }
 
+    /**
+     * Sets an Executor used to verify the References of this Manifest concurrently, or null
+     * (the default) to verify them one after the other on the calling thread. This is
+     * also used for nested Manifests, which are followed on the calling thread once the
+     * References of this Manifest have been verified.
+     * <p>
+     * If a digest does not match, the References which were not verified yet are
+     * skipped and reported as invalid. The document is read concurrently by several
+     * threads: it must not be modified during the verification, and the DOM
+     * implementation must support concurrent reads (for Xerces, the document must be
+     * parsed with deferred node expansion disabled). References with an XPath transform, which may
+     * add namespace declarations to the document, are verified on the calling thread
+     * before the others.
+     *
+     * @param verificationExecutor the Executor to use, or null
+     */
+    public void setVerificationExecutor(Executor verificationExecutor) {
+        this.verificationExecutor = verificationExecutor;
+    }
+
+    /**
+     * @return the Executor used to verify the References concurrently, or null
+     */
+    public Executor getVerificationExecutor() {
+        return verificationExecutor;
+    }
+
     public boolean isSecureValidation() {
         return secureValidation;
     }
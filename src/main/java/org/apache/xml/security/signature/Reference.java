@@ -24,6 +24,7 @@ import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 import org.apache.xml.security.algorithms.Algorithm;
@@ -40,10 +41,9 @@ import org.apache.xml.security.transforms.Transform;
 import org.apache.xml.security.transforms.TransformationException;
 import org.apache.xml.security.transforms.Transforms;
 import org.apache.xml.security.transforms.params.InclusiveNamespaces;
+import org.apache.xml.security.utils.BufferedDigesterOutputStream;
 import org.apache.xml.security.utils.Constants;
-import org.apache.xml.security.utils.DigesterOutputStream;
 import org.apache.xml.security.utils.SignatureElementProxy;
-import org.apache.xml.security.utils.UnsyncBufferedOutputStream;
 import org.apache.xml.security.utils.XMLUtils;
 import org.apache.xml.security.utils.resolver.ResourceResolver;
 import org.apache.xml.security.utils.resolver.ResourceResolverException;
@@ -617,7 +617,8 @@ public class Reference extends SignatureElementProxy {
     private void cacheDereferencedElement(XMLSignatureInput input) {
         if (input.isNodeSet()) {
             try {
-                final Set<Node> s = input.getNodeSet();
+                // take a snapshot, as a subtree node-set is a live view of the document
+                final Set<Node> s = new LinkedHashSet<>(input.getNodeSet());
                 referenceData = new ReferenceNodeSetData() {
                     public Iterator<Node> iterator() {
                         return new Iterator<Node>() {
@@ -715,8 +716,7 @@ public class Reference extends SignatureElementProxy {
         MessageDigestAlgorithm mda = this.getMessageDigestAlgorithm();
         mda.reset();
 
-        try (DigesterOutputStream diOs = new DigesterOutputStream(mda);
-            OutputStream os = new UnsyncBufferedOutputStream(diOs)) {
+        try (BufferedDigesterOutputStream os = new BufferedDigesterOutputStream(mda.getAlgorithm())) {
 
             XMLSignatureInput output = this.getContentsAfterTransformation(input, os);
             this.transformsOutput = output;
@@ -741,14 +741,13 @@ public class Reference extends SignatureElementProxy {
                 output.getOctetStreamReal().close();
             }
 
-            //this.getReferencedBytes(diOs);
-            //mda.update(data);
-
-            return diOs.getDigestValue();
+            return os.getDigestValue();
         } catch (XMLSecurityException ex) {
             throw new ReferenceNotInitializedException(ex);
         } catch (IOException ex) {
             throw new ReferenceNotInitializedException(ex);
+        } finally {
+            mda.release();
         }
     }
 
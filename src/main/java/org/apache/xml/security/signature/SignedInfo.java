@@ -317,14 +317,18 @@ public class SignedInfo extends Manifest {
         throws CanonicalizationException, InvalidCanonicalizerException, XMLSecurityException {
         if (this.c14nizedBytes == null) {
             Canonicalizer c14nizer =
-                Canonicalizer.getInstance(this.getCanonicalizationMethodURI());
-            c14nizer.setSecureValidation(isSecureValidation());
-
-            String inclusiveNamespaces = this.getInclusiveNamespaces();
-            if (inclusiveNamespaces == null) {
-                this.c14nizedBytes = c14nizer.canonicalizeSubtree(getElement());
-            } else {
-                this.c14nizedBytes = c14nizer.canonicalizeSubtree(getElement(), inclusiveNamespaces);
+                Canonicalizer.acquire(this.getCanonicalizationMethodURI());
+            try {
+                c14nizer.setSecureValidation(isSecureValidation());
+
+                String inclusiveNamespaces = this.getInclusiveNamespaces();
+                if (inclusiveNamespaces == null) {
+                    this.c14nizedBytes = c14nizer.canonicalizeSubtree(getElement());
+                } else {
+                    this.c14nizedBytes = c14nizer.canonicalizeSubtree(getElement(), inclusiveNamespaces);
+                }
+            } finally {
+                Canonicalizer.release(c14nizer);
             }
         }
 
@@ -343,15 +347,19 @@ public class SignedInfo extends Manifest {
         throws CanonicalizationException, InvalidCanonicalizerException, XMLSecurityException {
         if (this.c14nizedBytes == null) {
             Canonicalizer c14nizer =
-                Canonicalizer.getInstance(this.getCanonicalizationMethodURI());
-            c14nizer.setSecureValidation(isSecureValidation());
-            c14nizer.setWriter(os);
-            String inclusiveNamespaces = this.getInclusiveNamespaces();
-
-            if (inclusiveNamespaces == null) {
-                c14nizer.canonicalizeSubtree(getElement());
-            } else {
-                c14nizer.canonicalizeSubtree(getElement(), inclusiveNamespaces);
+                Canonicalizer.acquire(this.getCanonicalizationMethodURI());
+            try {
+                c14nizer.setSecureValidation(isSecureValidation());
+                c14nizer.setWriter(os);
+                String inclusiveNamespaces = this.getInclusiveNamespaces();
+
+                if (inclusiveNamespaces == null) {
+                    c14nizer.canonicalizeSubtree(getElement());
+                } else {
+                    c14nizer.canonicalizeSubtree(getElement(), inclusiveNamespaces);
+                }
+            } finally {
+                Canonicalizer.release(c14nizer);
             }
         } else {
             try {
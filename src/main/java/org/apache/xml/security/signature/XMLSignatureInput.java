@@ -22,10 +22,16 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
 
 import javax.xml.parsers.ParserConfigurationException;
 
@@ -34,7 +40,9 @@ import org.apache.xml.security.c14n.implementations.Canonicalizer11_OmitComments
 import org.apache.xml.security.c14n.implementations.Canonicalizer20010315OmitComments;
 import org.apache.xml.security.c14n.implementations.CanonicalizerBase;
 import org.apache.xml.security.exceptions.XMLSecurityRuntimeException;
+import org.apache.xml.security.utils.BufferedDigesterOutputStream;
 import org.apache.xml.security.utils.JavaUtils;
+import org.apache.xml.security.utils.SubtreeNodeSet;
 import org.apache.xml.security.utils.XMLUtils;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
@@ -46,6 +54,18 @@ import org.xml.sax.SAXException;
  * $todo$ check whether an XMLSignatureInput can be _both_, octet stream _and_ node set?
  */
 public class XMLSignatureInput {
+
+    private static final long MAPPED_REGION_SIZE = 64L * 1024 * 1024;
+
+    private static final int MAX_IDLE_C14NIZERS = 8;
+
+    /**
+     * Idle canonicalizers for converting node-sets to octets. They are created from their
+     * classes rather than looked up by URI, so the conversion does not depend on the
+     * registered canonicalizers.
+     */
+    private static final Queue<CanonicalizerBase> IDLE_C14N10 = new ArrayBlockingQueue<>(MAX_IDLE_C14NIZERS);
+    private static final Queue<CanonicalizerBase> IDLE_C14N11 = new ArrayBlockingQueue<>(MAX_IDLE_C14NIZERS);
     /*
      * The XMLSignature Input can be either:
      *   A byteArray like with/or without InputStream.
@@ -60,6 +80,10 @@ public class XMLSignatureInput {
      * method, so we read it in completely and work on our Proxy.
      */
     private InputStream inputOctetStreamProxy;
+    /**
+     * The file channel behind inputOctetStreamProxy, if the input is a file
+     */
+    private FileChannel octetChannel;
     /**
      * The original NodeSet for this XMLSignatureInput
      */
@@ -136,6 +160,19 @@ public class XMLSignatureInput {
         this.inputOctetStreamProxy = inputOctetStream;
     }
 
+    /**
+     * Constructs a <code>XMLSignatureInput</code> from the content of a file.
+     * The file is not read into memory: it is digested from memory mapped
+     * regions of the file, or read sequentially as an octet stream.
+     *
+     * @param octetFile the file
+     * @throws IOException if the file cannot be opened
+     */
+    public XMLSignatureInput(Path octetFile) throws IOException {
+        this.octetChannel = FileChannel.open(octetFile, StandardOpenOption.READ);
+        this.inputOctetStreamProxy = Channels.newInputStream(octetChannel);
+    }
+
     /**
      * Construct a XMLSignatureInput from a subtree rooted by rootNode. This
      * method included the node and <I>all</I> his descendants in the output.
@@ -183,6 +220,11 @@ public class XMLSignatureInput {
     /**
      * Returns the node set from input which was specified as the parameter of
      * {@link XMLSignatureInput} constructor
+     * <p>
+     * If the input is a subtree or an octet stream, the result is a read-only
+     * {@link SubtreeNodeSet}, a view of the subtree rather than a copy. Adding or removing
+     * nodes throws an UnsupportedOperationException, so callers which need to modify the
+     * set have to copy it first, e.g. into a LinkedHashSet, which keeps the document order.
      *
      * @return the node set
      * @throws SAXException
@@ -206,6 +248,9 @@ public class XMLSignatureInput {
     /**
      * Returns the node set from input which was specified as the parameter of
      * {@link XMLSignatureInput} constructor
+     * <p>
+     * If the input is a subtree or an octet stream, the result is a read-only view as
+     * described for {@link #getNodeSet()}.
      * @param circumvent
      *
      * @return the node set
@@ -223,14 +268,11 @@ public class XMLSignatureInput {
             if (circumvent) {
                 XMLUtils.circumventBug2650(XMLUtils.getOwnerDocument(subNode));
             }
-            inputNodeSet = new LinkedHashSet<>();
-            XMLUtils.getSet(subNode, inputNodeSet, excludeNode, excludeComments);
+            inputNodeSet = new SubtreeNodeSet(subNode, excludeNode, excludeComments);
             return inputNodeSet;
         } else if (isOctetStream()) {
             convertToNodes();
-            Set<Node> result = new LinkedHashSet<>();
-            XMLUtils.getSet(subNode, result, null, false);
-            return result;
+            return new SubtreeNodeSet(subNode, null, false);
         }
 
         throw new RuntimeException("getNodeSet() called but no input data present");
@@ -400,6 +442,18 @@ public class XMLSignatureInput {
                 + " exclude "+ excludeNode + " comments:"
                 + excludeComments +"/" + getSourceURI();
         }
+        if (bytes == null && octetChannel != null) {
+            try {
+                return "XMLSignatureInput/OctetStream/" + octetChannel.size()
+                       + " octets/" + getSourceURI();
+            } catch (IOException iex) {
+                return "XMLSignatureInput/OctetStream//" + getSourceURI();
+            }
+        }
+        if (bytes == null && inputOctetStreamProxy != null) {
+            // don't read a possibly large stream just for its length
+            return "XMLSignatureInput/OctetStream//" + getSourceURI();
+        }
         try {
             return "XMLSignatureInput/OctetStream/" + getBytes().length
                    + " octets/" + getSourceURI();
@@ -491,14 +545,29 @@ public class XMLSignatureInput {
         if (bytes != null) {
             diOs.write(bytes);
         } else if (inputOctetStreamProxy == null) {
-            CanonicalizerBase c14nizer = null;
-            if (c14n11) {
-                c14nizer = new Canonicalizer11_OmitComments();
-            } else {
-                c14nizer = new Canonicalizer20010315OmitComments();
+            Queue<CanonicalizerBase> idle = c14n11 ? IDLE_C14N11 : IDLE_C14N10;
+            CanonicalizerBase c14nizer = idle.poll();
+            if (c14nizer == null) {
+                if (c14n11) {
+                    c14nizer = new Canonicalizer11_OmitComments();
+                } else {
+                    c14nizer = new Canonicalizer20010315OmitComments();
+                }
+            }
+            try {
+                c14nizer.setWriter(diOs);
+                c14nizer.engineCanonicalize(this);
+            } finally {
+                c14nizer.engineReset();
+                idle.offer(c14nizer);
+            }
+        } else if (octetChannel != null) {
+            try {
+                writeMappedFile(diOs);
+            } catch (IOException ex) {
+                inputOctetStreamProxy.close();
+                throw ex;
             }
-            c14nizer.setWriter(diOs);
-            c14nizer.engineCanonicalize(this);
         } else {
             byte[] buffer = new byte[4 * 1024];
             int bytesread = 0;
@@ -520,6 +589,35 @@ public class XMLSignatureInput {
         outputStream = os;
     }
 
+    /**
+     * Writes the rest of the file to the OutputStream, mapping the file in regions.
+     * A BufferedDigesterOutputStream digests the mapped regions without copying them
+     * to the heap.
+     */
+    private void writeMappedFile(OutputStream diOs) throws IOException {
+        long position = octetChannel.position();
+        long size = octetChannel.size();
+        byte[] buffer = null;
+        while (position < size) {
+            long length = Math.min(MAPPED_REGION_SIZE, size - position);
+            MappedByteBuffer region = octetChannel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            if (diOs instanceof BufferedDigesterOutputStream) {
+                ((BufferedDigesterOutputStream) diOs).write(region);
+            } else {
+                if (buffer == null) {
+                    buffer = new byte[8 * 1024];
+                }
+                while (region.hasRemaining()) {
+                    int len = Math.min(buffer.length, region.remaining());
+                    region.get(buffer, 0, len);
+                    diOs.write(buffer, 0, len);
+                }
+            }
+            position += length;
+        }
+        octetChannel.position(size);
+    }
+
     private byte[] getBytesFromInputStream() throws IOException {
         if (bytes != null) {
             return bytes;
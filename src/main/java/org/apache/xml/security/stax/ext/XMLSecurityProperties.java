@@ -23,6 +23,7 @@ import org.apache.xml.security.stax.securityToken.SecurityTokenConstants;
 import java.security.Key;
 import java.security.cert.X509Certificate;
 import java.util.*;
+import java.util.concurrent.Executor;
 
 import javax.xml.namespace.QName;
 
@@ -53,6 +54,9 @@ public class XMLSecurityProperties {
     private String encryptionKeyName;
 
     private Key decryptionKey;
+    private Executor decryptionExecutor;
+    private boolean decryptInCallingThread = false;
+    private int decryptionPipeBufferSize = 8192 * 5;
 
     private final List<SecurePart> signatureParts = new LinkedList<>();
     private String signatureAlgorithm;
@@ -66,6 +70,7 @@ public class XMLSecurityProperties {
     private boolean useSingleCert = true;
 
     private Key signatureVerificationKey;
+    private Executor signatureDigestExecutor;
 
     private int signaturePosition;
 
@@ -98,6 +103,9 @@ public class XMLSecurityProperties {
         this.encryptionTransportKey = xmlSecurityProperties.encryptionTransportKey;
         this.encryptionKeyIdentifier = xmlSecurityProperties.encryptionKeyIdentifier;
         this.decryptionKey = xmlSecurityProperties.decryptionKey;
+        this.decryptionExecutor = xmlSecurityProperties.decryptionExecutor;
+        this.decryptInCallingThread = xmlSecurityProperties.decryptInCallingThread;
+        this.decryptionPipeBufferSize = xmlSecurityProperties.decryptionPipeBufferSize;
         this.signatureParts.addAll(xmlSecurityProperties.signatureParts);
         this.signatureAlgorithm = xmlSecurityProperties.signatureAlgorithm;
         this.signatureDigestAlgorithm = xmlSecurityProperties.signatureDigestAlgorithm;
@@ -108,6 +116,7 @@ public class XMLSecurityProperties {
         this.signatureKeyIdentifiers.addAll(xmlSecurityProperties.signatureKeyIdentifiers);
         this.useSingleCert = xmlSecurityProperties.useSingleCert;
         this.signatureVerificationKey = xmlSecurityProperties.signatureVerificationKey;
+        this.signatureDigestExecutor = xmlSecurityProperties.signatureDigestExecutor;
         this.signaturePosition = xmlSecurityProperties.signaturePosition;
         this.idAttributeNS = xmlSecurityProperties.idAttributeNS;
         this.signatureKeyName = xmlSecurityProperties.signatureKeyName;
@@ -230,6 +239,70 @@ public class XMLSecurityProperties {
         return decryptionKey;
     }
 
+    /**
+     * Returns the Executor which runs the streaming decryption of EncryptedData structures.
+     *
+     * @return the Executor or null if a new Thread is started for each EncryptedData structure
+     */
+    public Executor getDecryptionExecutor() {
+        return decryptionExecutor;
+    }
+
+    /**
+     * Specifies the Executor which runs the streaming decryption of EncryptedData structures,
+     * e.g. a shared thread pool or a virtual-thread-per-task executor on newer JDKs.
+     * The Executor must be able to run one task per EncryptedData structure which is currently
+     * being read (including nested ones), otherwise the decryption will block.
+     *
+     * @param decryptionExecutor the Executor to use or null (default) to start a new Thread
+     *         for each EncryptedData structure
+     */
+    public void setDecryptionExecutor(Executor decryptionExecutor) {
+        this.decryptionExecutor = decryptionExecutor;
+    }
+
+    /**
+     * Returns if EncryptedData structures are decrypted in the thread which reads the document
+     *
+     * @return true if the decryption happens in the calling thread, false otherwise
+     */
+    public boolean isDecryptInCallingThread() {
+        return decryptInCallingThread;
+    }
+
+    /**
+     * Specifies if EncryptedData structures should be decrypted in the thread which reads the document.
+     * The CipherValue is then decrypted on demand while the decrypted content is parsed, without
+     * a separate decryption thread and pipe. The decryption executor is not used in this mode.
+     *
+     * @param decryptInCallingThread set to true to decrypt in the calling thread, false (default) otherwise
+     */
+    public void setDecryptInCallingThread(boolean decryptInCallingThread) {
+        this.decryptInCallingThread = decryptInCallingThread;
+    }
+
+    /**
+     * Returns the size of the pipe buffer between the decryption task and the StAX reader
+     *
+     * @return the buffer size in bytes
+     */
+    public int getDecryptionPipeBufferSize() {
+        return decryptionPipeBufferSize;
+    }
+
+    /**
+     * Specifies the size of the pipe buffer between the decryption task and the StAX reader
+     *
+     * @param decryptionPipeBufferSize the buffer size in bytes (by default: 40960)
+     * @throws IllegalArgumentException if the buffer size is less than 1
+     */
+    public void setDecryptionPipeBufferSize(int decryptionPipeBufferSize) {
+        if (decryptionPipeBufferSize < 1) {
+            throw new IllegalArgumentException("Decryption pipe buffer size must be positive: " + decryptionPipeBufferSize);
+        }
+        this.decryptionPipeBufferSize = decryptionPipeBufferSize;
+    }
+
     public void setEncryptionTransportKey(Key encryptionTransportKey) {
         this.encryptionTransportKey = encryptionTransportKey;
     }
@@ -430,6 +503,29 @@ public class XMLSecurityProperties {
         this.signatureVerificationKey = signatureVerificationKey;
     }
 
+    /**
+     * Returns the Executor which digests the canonicalized references during signature verification.
+     *
+     * @return the Executor or null if the references are digested in the thread which reads the document
+     */
+    public Executor getSignatureDigestExecutor() {
+        return signatureDigestExecutor;
+    }
+
+    /**
+     * Specifies an Executor which digests the canonicalized references during signature verification.
+     * The canonicalized bytes of each reference are handed off in chunks through a small bounded
+     * buffer, so that parsing and canonicalization overlap with the hashing. The digests are still
+     * compared in the thread which reads the document, at the end of each referenced element, so the
+     * order of the SecurityEvents does not change.
+     *
+     * @param signatureDigestExecutor the Executor to use or null (default) to digest in the thread
+     *         which reads the document
+     */
+    public void setSignatureDigestExecutor(Executor signatureDigestExecutor) {
+        this.signatureDigestExecutor = signatureDigestExecutor;
+    }
+
     /**
      * Returns if the framework is skipping document-events
      *
@@ -37,6 +37,11 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
@@ -303,9 +308,19 @@ public abstract class AbstractDecryptInputProcessor extends AbstractInputProcess
                     } catch (JAXBException e) {
                         throw new XMLSecurityException(e);
                     }
+                } else if (getSecurityProperties().isDecryptInCallingThread()) {
+                    //decrypt on demand while the StAX reader pulls the cleartext
+                    Key decryptionKey =
+                        inboundSecurityToken.getSecretKey(algorithmURI, XMLSecurityConstants.Enc, encryptedDataType.getId());
+                    decryptionKey = XMLSecurityUtils.prepareSecretKey(algorithmURI, decryptionKey.getEncoded());
+                    decryptInputStream =
+                        new DecryptionInputStream(subInputProcessorChain, isSecurityHeaderEvent, nextEvent,
+                                                  symCipher, decryptionKey, ivLength);
                 } else {
                     //create a new Thread for streaming decryption
-                    DecryptionThread decryptionThread = new DecryptionThread(subInputProcessorChain, isSecurityHeaderEvent, nextEvent);
+                    DecryptionThread decryptionThread =
+                        new DecryptionThread(subInputProcessorChain, isSecurityHeaderEvent, nextEvent,
+                                             getSecurityProperties().getDecryptionPipeBufferSize());
                     Key decryptionKey =
                         inboundSecurityToken.getSecretKey(algorithmURI, XMLSecurityConstants.Enc, encryptedDataType.getId());
                     decryptionKey = XMLSecurityUtils.prepareSecretKey(algorithmURI, decryptionKey.getEncoded());
@@ -313,19 +328,34 @@ public abstract class AbstractDecryptInputProcessor extends AbstractInputProcess
                     decryptionThread.setSymmetricCipher(symCipher);
                     decryptionThread.setIvLength(ivLength);
 
-                    Thread thread = new Thread(decryptionThread);
-                    thread.setPriority(Thread.NORM_PRIORITY + 1);
-                    thread.setName("decryption thread");
-                    //when an exception in the decryption thread occurs, we want to forward them:
-                    thread.setUncaughtExceptionHandler(decryptedEventReaderInputProcessor);
-
-                    decryptedEventReaderInputProcessor.setDecryptionThread(thread);
+                    Executor decryptionExecutor = getSecurityProperties().getDecryptionExecutor();
+                    if (decryptionExecutor != null) {
+                        //the executor decides on which thread the decryption runs. Exceptions are
+                        //captured by the FutureTask and forwarded by the DecryptedEventReaderInputProcessor
+                        FutureTask<Void> decryptionTask = new FutureTask<>(decryptionThread, null);
+                        decryptedEventReaderInputProcessor.setDecryptionTask(decryptionTask);
 
-                    //we have to start the thread before we call decryptionThread.getPipedInputStream().
-                    //Otherwise we will end in a deadlock, because the StAX reader expects already data.
-                    //@See some lines below:
-                    LOG.debug("Starting decryption thread");
-                    thread.start();
+                        LOG.debug("Submitting decryption task");
+                        try {
+                            decryptionExecutor.execute(decryptionTask);
+                        } catch (RejectedExecutionException e) {
+                            throw new XMLSecurityException(e);
+                        }
+                    } else {
+                        Thread thread = new Thread(decryptionThread);
+                        thread.setPriority(Thread.NORM_PRIORITY + 1);
+                        thread.setName("decryption thread");
+                        //when an exception in the decryption thread occurs, we want to forward them:
+                        thread.setUncaughtExceptionHandler(decryptedEventReaderInputProcessor);
+
+                        decryptedEventReaderInputProcessor.setDecryptionThread(thread);
+
+                        //we have to start the thread before we call decryptionThread.getPipedInputStream().
+                        //Otherwise we will end in a deadlock, because the StAX reader expects already data.
+                        //@See some lines below:
+                        LOG.debug("Starting decryption thread");
+                        thread.start();
+                    }
 
                     decryptInputStream = decryptionThread.getPipedInputStream();
                 }
@@ -616,6 +646,99 @@ public abstract class AbstractDecryptInputProcessor extends AbstractInputProcess
         }
     }
 
+    /**
+     * Creates the writer which base64-decodes the CipherValue characters, splits off the IV and
+     * writes the decrypted octets to the given OutputStream. Closing the writer finishes the decryption.
+     */
+    private static OutputStreamWriter createDecryptionWriter(OutputStream decryptedOutputStream, final Cipher cipher,
+                                                             Key secretKey, int ivLength, String encoding) {
+        OutputStream base64OutputStream =
+            new Base64OutputStream(createDecryptionOutputStream(decryptedOutputStream, cipher, secretKey, ivLength), false);
+        return new OutputStreamWriter(base64OutputStream, Charset.forName(encoding));
+    }
+
+    /**
+     * Creates the stream which splits off the IV of the encrypted octets written to it and
+     * writes the decrypted octets to the given OutputStream. Closing the stream finishes the decryption.
+     */
+    private static OutputStream createDecryptionOutputStream(OutputStream decryptedOutputStream, final Cipher cipher,
+                                                             Key secretKey, int ivLength) {
+        final OutputStream outputStream;
+        if (cipher.getAlgorithm().toUpperCase().contains("GCM")) {
+            //we have to buffer the whole data until they are authenticated.
+            //In GCM mode the authentication tag is appended after the last cipher block...
+            outputStream = new FullyBufferedOutputStream(decryptedOutputStream);
+        } else {
+            outputStream = decryptedOutputStream;
+        }
+
+        final CipherOutputStream cipherOutputStream = new CipherOutputStream(outputStream, cipher) {
+            //override close() to workaround a bug in oracle-jdk:
+            //authentication failures when using AEAD ciphers are silently ignored...
+            @Override
+            public void close() throws IOException {
+                super.flush();
+                try {
+                    byte[] bytes = cipher.doFinal();
+                    outputStream.write(bytes);
+                    outputStream.close();
+                } catch (IllegalBlockSizeException e) {
+                    throw new IOException(e);
+                } catch (BadPaddingException e) {
+                    throw new IOException(e);
+                }
+            }
+        };
+        IVSplittingOutputStream ivSplittingOutputStream = new IVSplittingOutputStream(
+                cipherOutputStream,
+                cipher, secretKey, ivLength);
+        //buffering seems not to help
+        //bufferedOutputStream = new BufferedOutputStream(new Base64OutputStream(ivSplittingOutputStream, false), 8192 * 5);
+        ReplaceableOuputStream replaceableOuputStream = new ReplaceableOuputStream(ivSplittingOutputStream);
+        ivSplittingOutputStream.setParentOutputStream(replaceableOuputStream);
+        return replaceableOuputStream;
+    }
+
+    /**
+     * Decrypts raw encrypted octets, i.e. the IV followed by the cipher text as found in the
+     * resource a CipherReference or an xop:Include points to, from the given InputStream to the
+     * given OutputStream. The octets are streamed through the cipher in fixed-size chunks, so
+     * subclasses implementing {@link #handleCipherReference} or {@link #handleXOPInclude} can
+     * decrypt large content without holding the cipher text in memory. For AES-GCM the decrypted
+     * octets are still buffered until the authentication tag has been verified. The InputStream is
+     * read to its end; the OutputStream is closed.
+     *
+     * @param encryptedInputStream the encrypted octets
+     * @param decryptedOutputStream the stream receiving the decrypted octets
+     * @param cipher the cipher for the encryption algorithm
+     * @param secretKey the decryption key
+     * @param ivLength the length of the IV in bytes
+     * @throws XMLSecurityException if reading, decrypting or writing fails
+     */
+    protected static void decrypt(InputStream encryptedInputStream, OutputStream decryptedOutputStream,
+                                  Cipher cipher, Key secretKey, int ivLength) throws XMLSecurityException {
+        try (OutputStream outputStream =
+                 createDecryptionOutputStream(decryptedOutputStream, cipher, secretKey, ivLength)) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = encryptedInputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new XMLSecurityException(e);
+        }
+    }
+
+    private static void destroySecretKey(Key secretKey) {
+        if (secretKey instanceof Destroyable) {
+            try {
+                ((Destroyable)secretKey).destroy();
+            } catch (DestroyFailedException e) {
+                LOG.debug("Error destroying key: {}", e.getMessage());
+            }
+        }
+    }
+
     /**
      * The DecryptedEventReaderInputProcessor reads the decrypted stream with a StAX reader and
      * forwards the generated XMLEvents
@@ -631,6 +754,7 @@ public abstract class AbstractDecryptInputProcessor extends AbstractInputProcess
         private boolean rootElementProcessed;
         private EncryptedDataType encryptedDataType;
         private Thread decryptionThread;
+        private Future<?> decryptionTask;
 
         public AbstractDecryptedEventReaderInputProcessor(
                 XMLSecurityProperties securityProperties, SecurePart.Modifier encryptionModifier,
@@ -656,6 +780,10 @@ public abstract class AbstractDecryptInputProcessor extends AbstractInputProcess
             this.decryptionThread = decryptionThread;
         }
 
+        public void setDecryptionTask(Future<?> decryptionTask) {
+            this.decryptionTask = decryptionTask;
+        }
+
         public void setXmlStreamReader(XMLStreamReader xmlStreamReader) {
             this.xmlStreamReader = xmlStreamReader;
         }
@@ -743,6 +871,17 @@ public abstract class AbstractDecryptInputProcessor extends AbstractInputProcess
                         }
                         //...and test again for an exception in the decryption thread.
                         testAndThrowUncaughtException();
+                    } else if (decryptionTask != null) {
+                        //wait until the decryption task is finished...
+                        try {
+                            decryptionTask.get();
+                        } catch (InterruptedException e) {
+                            throw new XMLStreamException(e);
+                        } catch (ExecutionException e) {
+                            this.thrownException = e.getCause();
+                        }
+                        //...and test again for an exception in the decryption task.
+                        testAndThrowUncaughtException();
                     }
                     inputProcessorChain.removeProcessor(this);
                 }
@@ -763,6 +902,15 @@ public abstract class AbstractDecryptInputProcessor extends AbstractInputProcess
         }
 
         private void testAndThrowUncaughtException() throws XMLStreamException {
+            if (this.thrownException == null && decryptionTask != null && decryptionTask.isDone()) {
+                try {
+                    decryptionTask.get();
+                } catch (InterruptedException e) {
+                    throw new XMLStreamException(e);
+                } catch (ExecutionException e) {
+                    this.thrownException = e.getCause();
+                }
+            }
             if (this.thrownException != null) {
                 if (this.thrownException instanceof UncheckedXMLSecurityException) {
                     UncheckedXMLSecurityException uxse = (UncheckedXMLSecurityException) this.thrownException;
@@ -791,13 +939,20 @@ public abstract class AbstractDecryptInputProcessor extends AbstractInputProcess
         protected DecryptionThread(InputProcessorChain inputProcessorChain,
                                    boolean header,
                                    XMLSecEvent firstEvent) throws XMLStreamException, XMLSecurityException {
+            this(inputProcessorChain, header, firstEvent, 8192 * 5);
+        }
+
+        protected DecryptionThread(InputProcessorChain inputProcessorChain,
+                                   boolean header,
+                                   XMLSecEvent firstEvent,
+                                   int pipeBufferSize) throws XMLStreamException, XMLSecurityException {
 
             this.inputProcessorChain = inputProcessorChain;
             this.header = header;
             this.firstEvent = firstEvent;
 
             //prepare the piped streams and connect them:
-            this.pipedInputStream = new PipedInputStream(8192 * 5);
+            this.pipedInputStream = new PipedInputStream(pipeBufferSize);
             try {
                 this.pipedOutputStream = new PipedOutputStream(pipedInputStream);
             } catch (IOException e) {
@@ -822,45 +977,9 @@ public abstract class AbstractDecryptInputProcessor extends AbstractInputProcess
         public void run() {
 
             try {
-                final OutputStream outputStream;
-
-                final Cipher cipher = getSymmetricCipher();
-                if (cipher.getAlgorithm().toUpperCase().contains("GCM")) {
-                    //we have to buffer the whole data until they are authenticated.
-                    //In GCM mode the authentication tag is appended after the last cipher block...
-                    outputStream = new FullyBufferedOutputStream(pipedOutputStream);
-                } else {
-                    outputStream = pipedOutputStream;
-                }
-
-                final CipherOutputStream cipherOutputStream = new CipherOutputStream(outputStream, cipher) {
-                    //override close() to workaround a bug in oracle-jdk:
-                    //authentication failures when using AEAD ciphers are silently ignored...
-                    @Override
-                    public void close() throws IOException {
-                        super.flush();
-                        try {
-                            byte[] bytes = cipher.doFinal();
-                            outputStream.write(bytes);
-                            outputStream.close();
-                        } catch (IllegalBlockSizeException e) {
-                            throw new IOException(e);
-                        } catch (BadPaddingException e) {
-                            throw new IOException(e);
-                        }
-                    }
-                };
-                IVSplittingOutputStream ivSplittingOutputStream = new IVSplittingOutputStream(
-                        cipherOutputStream,
-                        cipher, getSecretKey(), getIvLength());
-                //buffering seems not to help
-                //bufferedOutputStream = new BufferedOutputStream(new Base64OutputStream(ivSplittingOutputStream, false), 8192 * 5);
-                ReplaceableOuputStream replaceableOuputStream = new ReplaceableOuputStream(ivSplittingOutputStream);
-                OutputStream base64OutputStream = new Base64OutputStream(replaceableOuputStream, false);
-                ivSplittingOutputStream.setParentOutputStream(replaceableOuputStream);
                 OutputStreamWriter outputStreamWriter =
-                        new OutputStreamWriter(base64OutputStream,
-                                               Charset.forName(inputProcessorChain.getDocumentContext().getEncoding()));
+                    createDecryptionWriter(pipedOutputStream, getSymmetricCipher(), getSecretKey(), getIvLength(),
+                                           inputProcessorChain.getDocumentContext().getEncoding());
 
                 //read the encrypted data from the stream until an end-element occurs and write then
                 //to the decrypter-stream
@@ -889,13 +1008,7 @@ public abstract class AbstractDecryptInputProcessor extends AbstractInputProcess
                 outputStreamWriter.close();
 
                 // Clean the secret key from memory now that we're done with it
-                if (secretKey instanceof Destroyable) {
-                    try {
-                        ((Destroyable)secretKey).destroy();
-                    } catch (DestroyFailedException e) {
-                        LOG.debug("Error destroying key: {}", e.getMessage());
-                    }
-                }
+                destroySecretKey(secretKey);
 
                 LOG.debug("Decryption thread finished");
 
@@ -935,4 +1048,127 @@ public abstract class AbstractDecryptInputProcessor extends AbstractInputProcess
             this.secretKey = secretKey;
         }
     }
+
+    /**
+     * The DecryptionInputStream decrypts the encrypted XML-Parts on the thread which reads the stream.
+     * CipherValue events are pulled from the processor chain only when the StAX reader needs more data,
+     * so no thread handoff and no pipe is involved.
+     */
+    static class DecryptionInputStream extends InputStream {
+
+        private final InputProcessorChain inputProcessorChain;
+        private final boolean header;
+        private final Key secretKey;
+        private final OutputStreamWriter outputStreamWriter;
+        private XMLSecEvent nextEvent;
+        private boolean finished;
+
+        private byte[] buffer = new byte[8192];
+        private int position;
+        private int limit;
+
+        protected DecryptionInputStream(InputProcessorChain inputProcessorChain, boolean header,
+                                        XMLSecEvent firstEvent, Cipher symmetricCipher,
+                                        Key secretKey, int ivLength) {
+            this.inputProcessorChain = inputProcessorChain;
+            this.header = header;
+            this.nextEvent = firstEvent;
+            this.secretKey = secretKey;
+
+            OutputStream decryptedOutputStream = new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    ensureCapacity(1);
+                    buffer[limit++] = (byte) b;
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    ensureCapacity(len);
+                    System.arraycopy(b, off, buffer, limit, len);
+                    limit += len;
+                }
+            };
+            this.outputStreamWriter =
+                createDecryptionWriter(decryptedOutputStream, symmetricCipher, secretKey, ivLength,
+                                       inputProcessorChain.getDocumentContext().getEncoding());
+        }
+
+        private void ensureCapacity(int len) {
+            if (limit + len > buffer.length) {
+                byte[] newBuffer = new byte[Math.max(buffer.length << 1, limit + len)];
+                System.arraycopy(buffer, 0, newBuffer, 0, limit);
+                buffer = newBuffer;
+            }
+        }
+
+        /**
+         * Feeds CipherValue characters into the decryption chain until cleartext is available
+         * or the CipherValue end-element is reached.
+         */
+        private boolean fill() throws IOException {
+            position = 0;
+            limit = 0;
+            try {
+                while (limit == 0 && !finished) {
+                    switch (nextEvent.getEventType()) {
+                        case XMLStreamConstants.END_ELEMENT:
+                            //this must be the CipherValue EndElement.
+                            //close to get Cipher.doFinal() called
+                            finished = true;
+                            outputStreamWriter.close();
+                            destroySecretKey(secretKey);
+                            LOG.debug("Decryption finished");
+                            break;
+                        case XMLStreamConstants.CHARACTERS:
+                            outputStreamWriter.write(nextEvent.asCharacters().getText());
+                            outputStreamWriter.flush();
+                            inputProcessorChain.reset();
+                            if (header) {
+                                nextEvent = inputProcessorChain.processHeaderEvent();
+                            } else {
+                                nextEvent = inputProcessorChain.processEvent();
+                            }
+                            break;
+                        default:
+                            throw new XMLSecurityException(
+                                    "stax.unexpectedXMLEvent",
+                                    new Object[] {XMLSecurityUtils.getXMLEventAsString(nextEvent)}
+                            );
+                    }
+                }
+            } catch (XMLSecurityException | XMLStreamException e) {
+                finished = true;
+                throw new IOException(e);
+            }
+            return limit > 0;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            int count = Math.min(len, limit - position);
+            System.arraycopy(buffer, position, b, off, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return limit - position;
+        }
+    }
 }
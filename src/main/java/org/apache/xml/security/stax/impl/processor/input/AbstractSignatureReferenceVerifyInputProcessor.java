@@ -33,6 +33,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLStreamConstants;
@@ -41,6 +42,7 @@ import javax.xml.stream.XMLStreamException;
 import org.apache.xml.security.binding.excc14n.InclusiveNamespaces;
 import org.apache.xml.security.binding.xmldsig.ReferenceType;
 import org.apache.xml.security.binding.xmldsig.SignatureType;
+import org.apache.xml.security.algorithms.JCEEnginePool;
 import org.apache.xml.security.binding.xmldsig.TransformType;
 import org.apache.xml.security.exceptions.XMLSecurityException;
 import org.apache.xml.security.stax.config.ConfigurationProperties;
@@ -59,6 +61,7 @@ import org.apache.xml.security.stax.ext.stax.XMLSecEvent;
 import org.apache.xml.security.stax.ext.stax.XMLSecStartElement;
 import org.apache.xml.security.stax.impl.transformer.canonicalizer.Canonicalizer20010315_Excl;
 import org.apache.xml.security.stax.impl.transformer.canonicalizer.Canonicalizer20010315_OmitCommentsTransformer;
+import org.apache.xml.security.stax.impl.util.AsyncBufferedOutputStream;
 import org.apache.xml.security.stax.impl.util.DigestOutputStream;
 import org.apache.xml.security.stax.impl.util.IDGenerator;
 import org.apache.xml.security.stax.impl.util.KeyValue;
@@ -287,7 +290,9 @@ public abstract class AbstractSignatureReferenceVerifyInputProcessor extends Abs
                 XMLSecurityUtils.copy(bufferedInputStream, bufferedDigestOutputStream);
                 bufferedDigestOutputStream.close();
             }
-            compareDigest(digestOutputStream.getDigestValue(), referenceType);
+            byte[] calculatedDigest = digestOutputStream.getDigestValue();
+            releaseMessageDigestOutputStream(digestOutputStream, referenceType);
+            compareDigest(calculatedDigest, referenceType);
         } catch (IOException e) {
             throw new XMLSecurityException(e);
         }
@@ -312,11 +317,7 @@ public abstract class AbstractSignatureReferenceVerifyInputProcessor extends Abs
 
         MessageDigest messageDigest;
         try {
-            if (jceProvider != null) {
-                messageDigest = MessageDigest.getInstance(jceName, jceProvider);
-            } else {
-                messageDigest = MessageDigest.getInstance(jceName);
-            }
+            messageDigest = JCEEnginePool.MESSAGE_DIGEST.acquire(jceName, jceProvider);
         } catch (NoSuchAlgorithmException e) {
             throw new XMLSecurityException(e);
         } catch (NoSuchProviderException e) {
@@ -326,6 +327,19 @@ public abstract class AbstractSignatureReferenceVerifyInputProcessor extends Abs
         return new DigestOutputStream(messageDigest);
     }
 
+    /**
+     * Hands the MessageDigest of a DigestOutputStream created by
+     * {@link #createMessageDigestOutputStream} back to the {@link JCEEnginePool}
+     * after the digest value was computed.
+     */
+    protected void releaseMessageDigestOutputStream(DigestOutputStream digestOutputStream, ReferenceType referenceType) {
+        String digestMethodAlgorithm = referenceType.getDigestMethod().getAlgorithm();
+        JCEEnginePool.MESSAGE_DIGEST.release(
+                digestOutputStream.getMessageDigest(),
+                JCEAlgorithmMapper.translateURItoJCEID(digestMethodAlgorithm),
+                JCEAlgorithmMapper.getJCEProviderFromURI(digestMethodAlgorithm));
+    }
+
     protected Transformer buildTransformerChain(ReferenceType referenceType, OutputStream outputStream,
                                                 InputProcessorChain inputProcessorChain,
                                                 InternalSignatureReferenceVerifier internalSignatureReferenceVerifier)
@@ -427,7 +441,13 @@ public abstract class AbstractSignatureReferenceVerifyInputProcessor extends Abs
             this.setStartElement(startElement);
             this.setReferenceType(referenceType);
             this.digestOutputStream = createMessageDigestOutputStream(referenceType, inputProcessorChain.getSecurityContext());
-            this.bufferedDigestOutputStream = new UnsyncBufferedOutputStream(this.getDigestOutputStream());
+            Executor digestExecutor = securityProperties.getSignatureDigestExecutor();
+            if (digestExecutor != null) {
+                this.bufferedDigestOutputStream =
+                        new AsyncBufferedOutputStream(this.getDigestOutputStream(), digestExecutor);
+            } else {
+                this.bufferedDigestOutputStream = new UnsyncBufferedOutputStream(this.getDigestOutputStream());
+            }
             this.transformer = buildTransformerChain(referenceType, bufferedDigestOutputStream, inputProcessorChain);
         }
 
@@ -469,7 +489,9 @@ public abstract class AbstractSignatureReferenceVerifyInputProcessor extends Abs
                         throw new XMLSecurityException(e);
                     }
 
-                    compareDigest(this.getDigestOutputStream().getDigestValue(), getReferenceType());
+                    byte[] calculatedDigest = this.getDigestOutputStream().getDigestValue();
+                    releaseMessageDigestOutputStream(this.getDigestOutputStream(), getReferenceType());
+                    compareDigest(calculatedDigest, getReferenceType());
 
                     inputProcessorChain.removeProcessor(this);
                     inputProcessorChain.getDocumentContext().unsetIsInSignedContent(this);
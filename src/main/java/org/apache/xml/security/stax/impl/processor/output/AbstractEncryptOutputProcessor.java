@@ -26,6 +26,7 @@ import java.security.NoSuchAlgorithmException;
 import java.security.spec.AlgorithmParameterSpec;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
@@ -237,6 +238,7 @@ public abstract class AbstractEncryptOutputProcessor extends AbstractOutputProce
                         }
                     } else {
                         encryptEvent(xmlSecEvent);
+                        outputCharactersBuffer(outputProcessorChain);
                     }
 
                     this.elementCounter++;
@@ -259,28 +261,34 @@ public abstract class AbstractEncryptOutputProcessor extends AbstractOutputProce
 
                     } else {
                         encryptEvent(xmlSecEvent);
+                        outputCharactersBuffer(outputProcessorChain);
                     }
                     break;
                 default:
                     //not an interesting start nor an interesting end element
                     //so encrypt this
                     encryptEvent(xmlSecEvent);
-
-                    //push all buffered encrypted character events through the chain
-                    final Deque<XMLSecCharacters> charactersBuffer = characterEventGeneratorOutputStream.getCharactersBuffer();
-                    if (charactersBuffer.size() > 5) {
-                        OutputProcessorChain subOutputProcessorChain = outputProcessorChain.createSubChain(this);
-                        Iterator<XMLSecCharacters> charactersIterator = charactersBuffer.iterator();
-                        while (charactersIterator.hasNext()) {
-                            XMLSecCharacters characters = charactersIterator.next();
-                            outputAsEvent(subOutputProcessorChain, characters);
-                            charactersIterator.remove();
-                        }
-                    }
+                    outputCharactersBuffer(outputProcessorChain);
                     break;
             }
         }
 
+        /**
+         * Pushes all the encrypted character events which are complete so far through the chain,
+         * so that at most one chunk of encrypted data is held in memory
+         */
+        private void outputCharactersBuffer(OutputProcessorChain outputProcessorChain)
+                throws XMLStreamException, XMLSecurityException {
+            final Deque<XMLSecCharacters> charactersBuffer = characterEventGeneratorOutputStream.getCharactersBuffer();
+            if (!charactersBuffer.isEmpty()) {
+                OutputProcessorChain subOutputProcessorChain = outputProcessorChain.createSubChain(this);
+                XMLSecCharacters characters;
+                while ((characters = charactersBuffer.poll()) != null) {
+                    outputAsEvent(subOutputProcessorChain, characters);
+                }
+            }
+        }
+
         private void encryptEvent(XMLSecEvent xmlSecEvent) throws XMLStreamException {
             xmlEventWriter.add(xmlSecEvent);
         }
@@ -342,13 +350,9 @@ public abstract class AbstractEncryptOutputProcessor extends AbstractOutputProce
 
             //push all buffered encrypted character events through the chain
             final Deque<XMLSecCharacters> charactersBuffer = characterEventGeneratorOutputStream.getCharactersBuffer();
-            if (!charactersBuffer.isEmpty()) {
-                Iterator<XMLSecCharacters> charactersIterator = charactersBuffer.iterator();
-                while (charactersIterator.hasNext()) {
-                    XMLSecCharacters characters = charactersIterator.next();
-                    outputAsEvent(outputProcessorChain, characters);
-                    charactersIterator.remove();
-                }
+            XMLSecCharacters characters;
+            while ((characters = charactersBuffer.poll()) != null) {
+                outputAsEvent(outputProcessorChain, characters);
             }
 
             createEndElementAndOutputAsEvent(outputProcessorChain, XMLSecurityConstants.TAG_xenc_CipherValue);
@@ -382,11 +386,18 @@ public abstract class AbstractEncryptOutputProcessor extends AbstractOutputProce
     }
 
     /**
-     * Creates Character-XMLEvents from the byte stream
+     * Creates Character-XMLEvents from the (base64 encoded) byte stream. The bytes are collected
+     * in chunks of a fixed size and a Character-XMLEvent is created for every full chunk and
+     * for the remainder on close(). The char array of a chunk is handed over to the event
+     * and not reused, since events can be buffered further down the chain.
      */
     public class CharacterEventGeneratorOutputStream extends OutputStream {
 
+        private static final int CHUNK_SIZE = 8192;
+
         private final Deque<XMLSecCharacters> charactersBuffer = new ArrayDeque<>();
+        private char[] chunk = new char[CHUNK_SIZE];
+        private int count;
 
         public Deque<XMLSecCharacters> getCharactersBuffer() {
             return charactersBuffer;
@@ -394,25 +405,46 @@ public abstract class AbstractEncryptOutputProcessor extends AbstractOutputProce
 
         @Override
         public void write(int b) throws IOException {
-            charactersBuffer.offer(createCharacters(new char[]{(char)b}));
+            chunk[count++] = (char) (b & 0xff);
+            if (count == CHUNK_SIZE) {
+                emitChunk();
+            }
         }
 
         @Override
         public void write(byte[] b) throws IOException {
-            charactersBuffer.offer(createCharacters(byteToCharArray(b, 0, b.length)));
+            write(b, 0, b.length);
         }
 
         @Override
         public void write(byte[] b, int off, int len) throws IOException {
-            charactersBuffer.offer(createCharacters(byteToCharArray(b, off, len)));
+            while (len > 0) {
+                int toCopy = Math.min(len, CHUNK_SIZE - count);
+                for (int i = 0; i < toCopy; i++) {
+                    //base64 is ascii, so a byte is a char
+                    chunk[count + i] = (char) (b[off + i] & 0xff);
+                }
+                count += toCopy;
+                off += toCopy;
+                len -= toCopy;
+                if (count == CHUNK_SIZE) {
+                    emitChunk();
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (count > 0) {
+                charactersBuffer.offer(createCharacters(Arrays.copyOf(chunk, count)));
+                count = 0;
+            }
         }
-    }
 
-    private char[] byteToCharArray(byte[]  bytes, int off, int len) {
-        char[] chars = new char[len - off];
-        for (int i = off; i < len; i++) {
-            chars[i] = (char)bytes[i];
+        private void emitChunk() {
+            charactersBuffer.offer(createCharacters(chunk));
+            chunk = new char[CHUNK_SIZE];
+            count = 0;
         }
-        return chars;
     }
 }
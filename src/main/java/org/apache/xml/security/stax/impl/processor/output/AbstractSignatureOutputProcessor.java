@@ -34,6 +34,7 @@ import java.util.Set;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
 
+import org.apache.xml.security.algorithms.JCEEnginePool;
 import org.apache.xml.security.exceptions.XMLSecurityException;
 import org.apache.xml.security.stax.config.JCEAlgorithmMapper;
 import org.apache.xml.security.stax.config.ResourceResolverMapper;
@@ -140,6 +141,7 @@ public abstract class AbstractSignatureOutputProcessor extends AbstractOutputPro
 
         String calculatedDigest =
             XMLUtils.encodeToString(digestOutputStream.getDigestValue());
+        releaseMessageDigestOutputStream(digestOutputStream, digestAlgo);
         LOG.debug("Calculated Digest: {}", calculatedDigest);
 
         signaturePartDef.setDigestValue(calculatedDigest);
@@ -192,11 +194,7 @@ public abstract class AbstractSignatureOutputProcessor extends AbstractOutputPro
         }
         MessageDigest messageDigest;
         try {
-            if (jceProvider != null) {
-                messageDigest = MessageDigest.getInstance(jceName, jceProvider);
-            } else {
-                messageDigest = MessageDigest.getInstance(jceName);
-            }
+            messageDigest = JCEEnginePool.MESSAGE_DIGEST.acquire(jceName, jceProvider);
         } catch (NoSuchAlgorithmException e) {
             throw new XMLSecurityException(e);
         } catch (NoSuchProviderException e) {
@@ -205,6 +203,18 @@ public abstract class AbstractSignatureOutputProcessor extends AbstractOutputPro
         return new DigestOutputStream(messageDigest);
     }
 
+    /**
+     * Hands the MessageDigest of a DigestOutputStream created by
+     * {@link #createMessageDigestOutputStream} back to the {@link JCEEnginePool}
+     * after the digest value was computed.
+     */
+    protected void releaseMessageDigestOutputStream(DigestOutputStream digestOutputStream, String digestAlgorithm) {
+        JCEEnginePool.MESSAGE_DIGEST.release(
+                digestOutputStream.getMessageDigest(),
+                JCEAlgorithmMapper.translateURItoJCEID(digestAlgorithm),
+                JCEAlgorithmMapper.getJCEProviderFromURI(digestAlgorithm));
+    }
+
     protected Transformer buildTransformerChain(OutputStream outputStream,
                                                 SignaturePartDef signaturePartDef,
                                                 XMLSecStartElement xmlSecStartElement)
@@ -303,6 +313,7 @@ public abstract class AbstractSignatureOutputProcessor extends AbstractOutputPro
                     }
                     String calculatedDigest =
                         XMLUtils.encodeToString(this.digestOutputStream.getDigestValue());
+                    releaseMessageDigestOutputStream(this.digestOutputStream, signaturePartDef.getDigestAlgo());
                     LOG.debug("Calculated Digest: {}", calculatedDigest);
                     signaturePartDef.setDigestValue(calculatedDigest);
 
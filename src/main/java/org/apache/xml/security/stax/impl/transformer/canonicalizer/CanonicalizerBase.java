@@ -70,6 +70,13 @@ public abstract class CanonicalizerBase extends TransformIdentity {
     static final byte[] EQUAL_STRING = {'=', '\"'};
     static final byte[] NEWLINE = {'\n'};
 
+    // The US-ASCII characters escaped in text, in attribute values and in comments and PIs;
+    // runs of any other US-ASCII characters are written with a single array write.
+    private static final boolean[] TEXT_ESCAPES = UtfHelpper.getAsciiEscapeTable('&', '<', '>', '\r');
+    private static final boolean[] ATTR_ESCAPES =
+        UtfHelpper.getAsciiEscapeTable('&', '<', '"', '\t', '\n', '\r');
+    private static final boolean[] CR_ESCAPES = UtfHelpper.getAsciiEscapeTable('\r');
+
     protected static final String XML = "xml";
     protected static final String XMLNS = "xmlns";
     protected static final char DOUBLEPOINT = ':';
@@ -428,6 +435,12 @@ public abstract class CanonicalizerBase extends TransformIdentity {
         final int length = value.length();
         int i = 0;
         while (i < length) {
+            final int run = UtfHelpper.endOfAsciiRun(value, i, length, ATTR_ESCAPES);
+            if (run != i) {
+                UtfHelpper.writeAsciiRun(value, i, run, writer);
+                i = run;
+                continue;
+            }
             final int c = value.codePointAt(i);
             i += Character.charCount(c);
 
@@ -482,6 +495,12 @@ public abstract class CanonicalizerBase extends TransformIdentity {
         final int length = text.length();
         byte[] toWrite;
         for (int i = 0; i < length; ) {
+            final int run = UtfHelpper.endOfAsciiRun(text, i, length, TEXT_ESCAPES);
+            if (run != i) {
+                UtfHelpper.writeAsciiRun(text, i, run, writer);
+                i = run;
+                continue;
+            }
             final int c = text.codePointAt(i);
             i += Character.charCount(c);
 
@@ -519,6 +538,12 @@ public abstract class CanonicalizerBase extends TransformIdentity {
         final int length = text.length;
         byte[] toWrite;
         for (int i = 0; i < length; i++) {
+            final int run = UtfHelpper.endOfAsciiRun(text, i, length, TEXT_ESCAPES);
+            if (run != i) {
+                UtfHelpper.writeAsciiRun(text, i, run, writer);
+                i = run - 1;
+                continue;
+            }
             int c;
             if (Character.isHighSurrogate(text[i]) && i + 1 != length && Character.isLowSurrogate(text[i+1])) {
                 c = Character.toCodePoint(text[i], text[++i]);
@@ -573,6 +598,12 @@ public abstract class CanonicalizerBase extends TransformIdentity {
         int length = target.length();
 
         for (int i = 0; i < length; ) {
+            final int run = UtfHelpper.endOfAsciiRun(target, i, length, CR_ESCAPES);
+            if (run != i) {
+                UtfHelpper.writeAsciiRun(target, i, run, writer);
+                i = run;
+                continue;
+            }
             final int c = target.codePointAt(i);
             i += Character.charCount(c);
             if (c == 0x0D) {
@@ -594,6 +625,12 @@ public abstract class CanonicalizerBase extends TransformIdentity {
             writer.write(' ');
 
             for (int i = 0; i < length; ) {
+                final int run = UtfHelpper.endOfAsciiRun(data, i, length, CR_ESCAPES);
+                if (run != i) {
+                    UtfHelpper.writeAsciiRun(data, i, run, writer);
+                    i = run;
+                    continue;
+                }
                 int c = data.codePointAt(i);
                 i += Character.charCount(c);
                 if (c == 0x0D) {
@@ -627,6 +664,12 @@ public abstract class CanonicalizerBase extends TransformIdentity {
         final int length = data.length();
 
         for (int i = 0; i < length; ) {
+            final int run = UtfHelpper.endOfAsciiRun(data, i, length, CR_ESCAPES);
+            if (run != i) {
+                UtfHelpper.writeAsciiRun(data, i, run, writer);
+                i = run;
+                continue;
+            }
             final int c = data.codePointAt(i);
             i += Character.charCount(c);
             if (c == 0x0D) {
@@ -0,0 +1,235 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.stax.impl.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * An OutputStream which collects the written bytes in chunks and writes the chunks to the
+ * wrapped OutputStream on an Executor, e.g. to hash canonicalized data on another core
+ * while the document is parsed. Only a fixed number of chunks exist, they are reused as
+ * a ring buffer and the writer blocks when all of them are waiting to be written.
+ * <p>
+ * A task is only scheduled while there are chunks to write, so no thread of the Executor
+ * waits for data and a single thread can serve many streams. Small contents which fit in
+ * one chunk are written on the calling thread when the stream is closed. flush() does not
+ * hand off a partially filled chunk. close() returns once every chunk has been written
+ * and the wrapped stream has been closed.
+ */
+public class AsyncBufferedOutputStream extends OutputStream {
+
+    private static final int DEFAULT_CHUNK_SIZE = 8192;
+    private static final int DEFAULT_CHUNK_COUNT = 4;
+
+    private final OutputStream outputStream;
+    private final Executor executor;
+    private final int chunkSize;
+    private final int chunkCount;
+    private final BlockingQueue<Chunk> pending;
+    private final BlockingQueue<byte[]> free;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+    private volatile Throwable failure;
+
+    private int allocatedChunks;
+    private boolean handedOff;
+    private boolean closed;
+    private byte[] buffer;
+    private int count;
+
+    public AsyncBufferedOutputStream(OutputStream outputStream, Executor executor) {
+        this(outputStream, executor, DEFAULT_CHUNK_SIZE, DEFAULT_CHUNK_COUNT);
+    }
+
+    /**
+     * @param outputStream the OutputStream to write to
+     * @param executor the Executor which writes to the outputStream
+     * @param chunkSize the size of a chunk in bytes
+     * @param chunkCount the number of chunks
+     */
+    public AsyncBufferedOutputStream(OutputStream outputStream, Executor executor, int chunkSize, int chunkCount) {
+        if (chunkSize <= 0 || chunkCount <= 0) {
+            throw new IllegalArgumentException("chunkSize and chunkCount must be > 0");
+        }
+        this.outputStream = outputStream;
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+        this.chunkCount = chunkCount;
+        // one more for the empty last chunk which close() might hand off
+        this.pending = new ArrayBlockingQueue<>(chunkCount + 1);
+        this.free = new ArrayBlockingQueue<>(chunkCount);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (buffer == null) {
+            buffer = nextBuffer();
+        }
+        buffer[count++] = (byte) b;
+        if (count == chunkSize) {
+            handOff(false);
+        }
+    }
+
+    @Override
+    public void write(byte[] b) throws IOException {
+        write(b, 0, b.length);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (buffer == null) {
+                buffer = nextBuffer();
+            }
+            int toCopy = Math.min(len, chunkSize - count);
+            System.arraycopy(b, off, buffer, count, toCopy);
+            count += toCopy;
+            off += toCopy;
+            len -= toCopy;
+            if (count == chunkSize) {
+                handOff(false);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (!handedOff) {
+            if (count > 0) {
+                outputStream.write(buffer, 0, count);
+            }
+            outputStream.close();
+            return;
+        }
+
+        handOff(true);
+        // the wrapped stream must not be in use any more when we return
+        boolean interrupted = false;
+        while (true) {
+            try {
+                done.get();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            } catch (ExecutionException e) {
+                break;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        checkFailure();
+        outputStream.close();
+    }
+
+    private byte[] nextBuffer() throws IOException {
+        checkFailure();
+        byte[] b = free.poll();
+        if (b == null) {
+            if (allocatedChunks < chunkCount) {
+                allocatedChunks++;
+                return new byte[chunkSize];
+            }
+            try {
+                b = free.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            checkFailure();
+        }
+        return b;
+    }
+
+    private void handOff(boolean last) {
+        // never blocks: there are never more chunks than the capacity of the queue
+        pending.add(new Chunk(buffer, count, last));
+        buffer = null;
+        count = 0;
+        handedOff = true;
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                drain();
+            }
+        }
+    }
+
+    private void drain() {
+        do {
+            Chunk chunk;
+            while ((chunk = pending.poll()) != null) {
+                if (failure == null && chunk.length > 0) {
+                    try {
+                        outputStream.write(chunk.data, 0, chunk.length);
+                    } catch (Throwable t) { //NOPMD
+                        failure = t;
+                    }
+                }
+                if (chunk.data != null) {
+                    free.offer(chunk.data);
+                }
+                if (chunk.last) {
+                    done.complete(null);
+                }
+            }
+            scheduled.set(false);
+        } while (!pending.isEmpty() && scheduled.compareAndSet(false, true));
+    }
+
+    private void checkFailure() throws IOException {
+        Throwable t = failure;
+        if (t instanceof IOException) {
+            throw (IOException) t;
+        } else if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        } else if (t instanceof Error) {
+            throw (Error) t;
+        } else if (t != null) {
+            throw new IOException(t);
+        }
+    }
+
+    private static final class Chunk {
+        final byte[] data;
+        final int length;
+        final boolean last;
+
+        Chunk(byte[] data, int length, boolean last) {
+            this.data = data;
+            this.length = length;
+            this.last = last;
+        }
+    }
+}
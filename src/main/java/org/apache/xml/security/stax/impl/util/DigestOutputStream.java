@@ -65,6 +65,10 @@ public class DigestOutputStream extends OutputStream {
         }
     }
 
+    public MessageDigest getMessageDigest() {
+        return messageDigest;
+    }
+
     public byte[] getDigestValue() {
         if (isDebugEnabled) {
             LOG.debug("Pre Digest: ");
@@ -41,6 +41,7 @@ import org.apache.xml.security.transforms.params.XPath2FilterContainer;
 import org.apache.xml.security.utils.XMLUtils;
 import org.apache.xml.security.utils.XPathAPI;
 import org.apache.xml.security.utils.XPathFactory;
+import org.w3c.dom.Attr;
 import org.w3c.dom.DOMException;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -245,7 +246,8 @@ class XPath2NodeFilter implements NodeFilter {
     }
 
     /**
-     * Method rooted
+     * Method rooted. Looks up the current node and each of its ancestors in the set,
+     * so the cost is bounded by the depth of the node rather than the number of roots.
      * @param currentNode
      * @param nodeList
      *
@@ -255,13 +257,16 @@ class XPath2NodeFilter implements NodeFilter {
         if (nodeList.isEmpty()) {
             return false;
         }
-        if (nodeList.contains(currentNode)) {
-            return true;
-        }
-        for (Node rootNode : nodeList) {
-            if (XMLUtils.isDescendantOrSelf(rootNode, currentNode)) {
+        Node parent = currentNode;
+        while (parent != null) {
+            if (nodeList.contains(parent)) {
                 return true;
             }
+            if (parent.getNodeType() == Node.ATTRIBUTE_NODE) {
+                parent = ((Attr) parent).getOwnerElement();
+            } else {
+                parent = parent.getParentNode();
+            }
         }
         return false;
     }
@@ -23,9 +23,20 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.AccessController;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.PrivilegedAction;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import javax.xml.XMLConstants;
 import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
@@ -34,6 +45,7 @@ import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 
+import org.apache.xml.security.algorithms.JCEEnginePool;
 import org.apache.xml.security.exceptions.XMLSecurityException;
 import org.apache.xml.security.signature.XMLSignatureInput;
 import org.apache.xml.security.transforms.Transform;
@@ -42,6 +54,8 @@ import org.apache.xml.security.transforms.TransformationException;
 import org.apache.xml.security.transforms.Transforms;
 import org.apache.xml.security.utils.XMLUtils;
 import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
 
 /**
  * Class TransformXSLT
@@ -63,6 +77,25 @@ public class TransformXSLT extends TransformSpi {
     private static final org.slf4j.Logger LOG =
         org.slf4j.LoggerFactory.getLogger(TransformXSLT.class);
 
+    /**
+     * The maximum number of compiled stylesheets which are cached, set by the system property
+     * <code>org.apache.xml.security.xslt.templatesCacheSize</code>. 0 disables the cache.
+     */
+    private static final int TEMPLATES_CACHE_SIZE =
+        AccessController.doPrivileged(
+            (PrivilegedAction<Integer>) () -> Integer.getInteger("org.apache.xml.security.xslt.templatesCacheSize", 32));
+
+    /** The compiled stylesheets, keyed on a SHA-256 digest of their DOM subtree */
+    private static final Map<ByteBuffer, Templates> TEMPLATES_CACHE =
+        Collections.synchronizedMap(new LinkedHashMap<ByteBuffer, Templates>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ByteBuffer, Templates> eldest) {
+                return size() > TEMPLATES_CACHE_SIZE;
+            }
+        });
+
     /**
      * Method engineGetURI
      *
@@ -90,40 +123,13 @@ public class TransformXSLT extends TransformSpi {
                 throw new TransformationException("xml.WrongContent", exArgs);
             }
 
-            TransformerFactory tFactory = TransformerFactory.newInstance();
-            // Process XSLT stylesheets in a secure manner
-            tFactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, Boolean.TRUE);
-
             /*
              * This transform requires an octet stream as input. If the actual
              * input is an XPath node-set, then the signature application should
              * attempt to convert it to octets (apply Canonical XML]) as described
              * in the Reference Processing Model (section 4.3.3.2).
              */
-            Source stylesheet;
-
-            /*
-             * This complicated transformation of the stylesheet itself is necessary
-             * because of the need to get the pure style sheet. If we simply say
-             * Source stylesheet = new DOMSource(this.xsltElement);
-             * whereby this.xsltElement is not the rootElement of the Document,
-             * this causes problems;
-             * so we convert the stylesheet to byte[] and use this as input stream
-             */
-            {
-                try (ByteArrayOutputStream os = new ByteArrayOutputStream()) {
-                    Transformer transformer = tFactory.newTransformer();
-                    DOMSource source = new DOMSource(xsltElement);
-                    StreamResult result = new StreamResult(os);
-
-                    transformer.transform(source, result);
-
-                    stylesheet =
-                        new StreamSource(new ByteArrayInputStream(os.toByteArray()));
-                }
-            }
-
-            Transformer transformer = tFactory.newTransformer(stylesheet);
+            Transformer transformer = getTemplates(xsltElement).newTransformer();
 
             // Force Xalan to use \n as line separator on all OSes. This
             // avoids OS specific signature validation failures due to line
@@ -163,4 +169,106 @@ public class TransformXSLT extends TransformSpi {
             throw new TransformationException(ex);
         }
     }
+
+    /**
+     * Returns the compiled stylesheet, from the cache if the same stylesheet was used before.
+     *
+     * @param xsltElement the stylesheet element
+     * @return the compiled stylesheet
+     * @throws IOException
+     * @throws TransformerException
+     */
+    private static Templates getTemplates(Element xsltElement) throws IOException, TransformerException {
+        ByteBuffer key = getTemplatesKey(xsltElement);
+        if (key != null) {
+            Templates templates = TEMPLATES_CACHE.get(key);
+            if (templates != null) {
+                return templates;
+            }
+        }
+
+        TransformerFactory tFactory = TransformerFactory.newInstance();
+        // Process XSLT stylesheets in a secure manner
+        tFactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, Boolean.TRUE);
+
+        Source stylesheet;
+
+        /*
+         * This complicated transformation of the stylesheet itself is necessary
+         * because of the need to get the pure style sheet. If we simply say
+         * Source stylesheet = new DOMSource(this.xsltElement);
+         * whereby this.xsltElement is not the rootElement of the Document,
+         * this causes problems;
+         * so we convert the stylesheet to byte[] and use this as input stream
+         */
+        {
+            try (ByteArrayOutputStream os = new ByteArrayOutputStream()) {
+                Transformer transformer = tFactory.newTransformer();
+                DOMSource source = new DOMSource(xsltElement);
+                StreamResult result = new StreamResult(os);
+
+                transformer.transform(source, result);
+
+                stylesheet =
+                    new StreamSource(new ByteArrayInputStream(os.toByteArray()));
+            }
+        }
+
+        Templates templates = tFactory.newTemplates(stylesheet);
+        if (key != null) {
+            TEMPLATES_CACHE.put(key, templates);
+        }
+        return templates;
+    }
+
+    /**
+     * The cache key is a digest of everything the serialization of the stylesheet depends on:
+     * the names, prefixes, namespaces and values of all nodes of the subtree, in document order.
+     */
+    private static ByteBuffer getTemplatesKey(Element xsltElement) {
+        if (TEMPLATES_CACHE_SIZE <= 0) {
+            return null;
+        }
+        MessageDigest md;
+        try {
+            md = JCEEnginePool.MESSAGE_DIGEST.acquire("SHA-256", null);
+        } catch (NoSuchAlgorithmException | NoSuchProviderException ex) {
+            LOG.debug("Unable to cache XSLT stylesheets: " + ex.getMessage());
+            return null;
+        }
+        try {
+            digest(md, xsltElement);
+            return ByteBuffer.wrap(md.digest());
+        } finally {
+            JCEEnginePool.MESSAGE_DIGEST.release(md, "SHA-256", null);
+        }
+    }
+
+    private static void digest(MessageDigest md, Node node) {
+        md.update((byte) node.getNodeType());
+        update(md, node.getNamespaceURI());
+        update(md, node.getNodeName());
+        update(md, node.getNodeValue());
+        if (node.getNodeType() == Node.ELEMENT_NODE) {
+            NamedNodeMap attributes = node.getAttributes();
+            for (int i = 0; i < attributes.getLength(); i++) {
+                digest(md, attributes.item(i));
+            }
+        }
+        if (node.getNodeType() != Node.ATTRIBUTE_NODE) {
+            for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+                digest(md, child);
+            }
+            md.update((byte) 0);
+        }
+    }
+
+    private static void update(MessageDigest md, String value) {
+        if (value != null) {
+            md.update(value.getBytes(StandardCharsets.UTF_8));
+            md.update((byte) 0);
+        } else {
+            md.update((byte) 1);
+        }
+    }
 }
@@ -32,8 +32,9 @@ import org.w3c.dom.Text;
 
 /**
  * Implementation of MIME's Base64 encoding and decoding conversions.
- * Optimized code. (raw version taken from oreilly.jonathan.util,
- * and currently org.apache.xerces.ds.util.Base64)
+ * Encoding is delegated to {@link java.util.Base64}, decoding is table driven
+ * and decodes a whole quadruple per lookup round, streaming through a fixed
+ * size buffer when writing to an <code>OutputStream</code>.
  *
  * @see <A HREF="ftp://ftp.isi.edu/in-notes/rfc2045.txt">RFC 2045</A>
  * @see org.apache.xml.security.transforms.implementations.TransformBase64Decode
@@ -44,48 +45,34 @@ public final class Base64 {
     /** Field BASE64DEFAULTLENGTH */
     public static final int BASE64DEFAULTLENGTH = 76;
 
-    private static final int BASELENGTH = 255;
-    private static final int LOOKUPLENGTH = 64;
-    private static final int TWENTYFOURBITGROUP = 24;
-    private static final int EIGHTBIT = 8;
-    private static final int SIXTEENBIT = 16;
+    private static final int BASELENGTH = 256;
     private static final int FOURBYTE = 4;
-    private static final int SIGN = -128;
     private static final char PAD = '=';
-    private static final byte [] base64Alphabet = new byte[BASELENGTH];
-    private static final char [] lookUpBase64Alphabet = new char[LOOKUPLENGTH];
+    /** The number of Base64 characters decoded per chunk when streaming */
+    private static final int CHUNK_SIZE = 8192;
+    private static final byte[] LINE_SEPARATOR = {'\r', '\n'};
+    private static final java.util.Base64.Encoder UNWRAPPED_ENCODER = java.util.Base64.getEncoder();
+    private static final java.util.Base64.Encoder DEFAULT_ENCODER =
+        java.util.Base64.getMimeEncoder(BASE64DEFAULTLENGTH, LINE_SEPARATOR);
+    private static final int [] base64Alphabet = new int[BASELENGTH];
 
     static {
         for (int i = 0; i < BASELENGTH; i++) {
             base64Alphabet[i] = -1;
         }
         for (int i = 'Z'; i >= 'A'; i--) {
-            base64Alphabet[i] = (byte) (i - 'A');
+            base64Alphabet[i] = i - 'A';
         }
         for (int i = 'z'; i>= 'a'; i--) {
-            base64Alphabet[i] = (byte) (i - 'a' + 26);
+            base64Alphabet[i] = i - 'a' + 26;
         }
 
         for (int i = '9'; i >= '0'; i--) {
-            base64Alphabet[i] = (byte) (i - '0' + 52);
+            base64Alphabet[i] = i - '0' + 52;
         }
 
         base64Alphabet['+'] = 62;
         base64Alphabet['/'] = 63;
-
-        for (int i = 0; i <= 25; i++) {
-            lookUpBase64Alphabet[i] = (char)('A' + i);
-        }
-
-        for (int i = 26,  j = 0; i <= 51; i++, j++) {
-            lookUpBase64Alphabet[i] = (char)('a' + j);
-        }
-
-        for (int i = 52,  j = 0; i <= 61; i++, j++) {
-            lookUpBase64Alphabet[i] = (char)('0' + j);
-        }
-        lookUpBase64Alphabet[62] = '+';
-        lookUpBase64Alphabet[63] = '/';
     }
 
     private Base64() {
@@ -345,12 +332,6 @@ public final class Base64 {
         return octet == PAD;
     }
 
-    /**
-     * Encodes hex octets into Base64
-     *
-     * @param binaryData Array containing binaryData
-     * @return Encoded Base64 array
-     */
     /**
      * Encode a byte array in Base64 format and return an optionally
      * wrapped line.
@@ -360,106 +341,21 @@ public final class Base64 {
      * @return a <code>String</code> with encoded data
      */
     public static final String  encode(byte[] binaryData, int length) {
-        if (length < 4) {
-            length = Integer.MAX_VALUE;
-        }
-
         if (binaryData == null) {
             return null;
         }
 
-        long lengthDataBits = ((long) binaryData.length) * ((long) EIGHTBIT);
-        if (lengthDataBits == 0L) {
-            return "";
-        }
-
-        long fewerThan24bits = lengthDataBits % (TWENTYFOURBITGROUP);
-        int numberTriplets = (int) (lengthDataBits / TWENTYFOURBITGROUP);
-        int numberQuartet = fewerThan24bits != 0L ? numberTriplets + 1 : numberTriplets;
-        int quartesPerLine = length / 4;
-        int numberLines = (numberQuartet - 1) / quartesPerLine;
-        char[] encodedData = null;
-
-        encodedData = new char[numberQuartet * 4 + numberLines * 2];
-
-        byte k = 0, l = 0, b1 = 0, b2 = 0, b3 = 0;
-        int encodedIndex = 0;
-        int dataIndex = 0;
-        int i = 0;
-
-        for (int line = 0; line < numberLines; line++) {
-            for (int quartet = 0; quartet < 19; quartet++) {
-                b1 = binaryData[dataIndex++];
-                b2 = binaryData[dataIndex++];
-                b3 = binaryData[dataIndex++];
-
-                l = (byte)(b2 & 0x0f);
-                k = (byte)(b1 & 0x03);
-
-                byte val1 = ((b1 & SIGN) == 0) ? (byte)(b1 >> 2): (byte)((b1) >> 2 ^ 0xc0);
-
-                byte val2 = ((b2 & SIGN) == 0) ? (byte)(b2 >> 4) : (byte)((b2) >> 4 ^ 0xf0);
-                byte val3 = ((b3 & SIGN) == 0) ? (byte)(b3 >> 6) : (byte)((b3) >> 6 ^ 0xfc);
-
-
-                encodedData[encodedIndex++] = lookUpBase64Alphabet[val1];
-                encodedData[encodedIndex++] = lookUpBase64Alphabet[val2 | (k << 4)];
-                encodedData[encodedIndex++] = lookUpBase64Alphabet[(l << 2) | val3];
-                encodedData[encodedIndex++] = lookUpBase64Alphabet[b3 & 0x3f];
-
-                i++;
-            }
-            encodedData[encodedIndex++] = 0xd;
-            encodedData[encodedIndex++] = 0xa;
-        }
-
-        for (; i < numberTriplets; i++) {
-            b1 = binaryData[dataIndex++];
-            b2 = binaryData[dataIndex++];
-            b3 = binaryData[dataIndex++];
-
-            l = (byte)(b2 & 0x0f);
-            k = (byte)(b1 & 0x03);
-
-            byte val1 = ((b1 & SIGN) == 0) ? (byte)(b1 >> 2) : (byte)((b1) >> 2 ^ 0xc0);
-
-            byte val2 = ((b2 & SIGN) == 0) ? (byte)(b2 >> 4) : (byte)((b2) >> 4 ^ 0xf0);
-            byte val3 = ((b3 & SIGN) == 0) ? (byte)(b3 >> 6) : (byte)((b3) >> 6 ^ 0xfc);
-
-
-            encodedData[encodedIndex++] = lookUpBase64Alphabet[val1];
-            encodedData[encodedIndex++] = lookUpBase64Alphabet[val2 | (k << 4)];
-            encodedData[encodedIndex++] = lookUpBase64Alphabet[(l << 2) | val3];
-            encodedData[encodedIndex++] = lookUpBase64Alphabet[b3 & 0x3f];
-        }
-
-        // form integral number of 6-bit groups
-        if (fewerThan24bits == EIGHTBIT) {
-            b1 = binaryData[dataIndex];
-            k = (byte) (b1 &0x03);
-            byte val1 = ((b1 & SIGN) == 0) ? (byte)(b1 >> 2):(byte)((b1) >> 2 ^ 0xc0);
-            encodedData[encodedIndex++] = lookUpBase64Alphabet[val1];
-            encodedData[encodedIndex++] = lookUpBase64Alphabet[k << 4];
-            encodedData[encodedIndex++] = PAD;
-            encodedData[encodedIndex++] = PAD;
-        } else if (fewerThan24bits == SIXTEENBIT) {
-            b1 = binaryData[dataIndex];
-            b2 = binaryData[dataIndex +1 ];
-            l = ( byte ) (b2 & 0x0f);
-            k = ( byte ) (b1 & 0x03);
-
-            byte val1 = ((b1 & SIGN) == 0) ? (byte)(b1 >> 2) : (byte)((b1) >> 2 ^ 0xc0);
-            byte val2 = ((b2 & SIGN) == 0) ? (byte)(b2 >> 4) : (byte)((b2) >> 4 ^ 0xf0);
-
-            encodedData[encodedIndex++] = lookUpBase64Alphabet[val1];
-            encodedData[encodedIndex++] = lookUpBase64Alphabet[val2 | (k << 4)];
-            encodedData[encodedIndex++] = lookUpBase64Alphabet[l << 2];
-            encodedData[encodedIndex++] = PAD;
+        // Lines are folded with CRLF after every length / 4 quartets and the last
+        // line is not terminated, which is exactly what the JDK MIME encoder does.
+        java.util.Base64.Encoder encoder;
+        if (length < 4 || (binaryData.length + 2) / 3 <= length / 4) {
+            encoder = UNWRAPPED_ENCODER;
+        } else if (length == BASE64DEFAULTLENGTH) {
+            encoder = DEFAULT_ENCODER;
+        } else {
+            encoder = java.util.Base64.getMimeEncoder(length, LINE_SEPARATOR);
         }
-
-        //encodedData[encodedIndex] = 0xa;
-
-        return new String(encodedData);
+        return encoder.encodeToString(binaryData);
     }
 
     /**
@@ -483,7 +379,9 @@ public final class Base64 {
 
         int newSize = 0;
         for (int i = 0; i < length; i++) {
-            byte dataS = (byte)s.charAt(i);
+            char c = s.charAt(i);
+            // anything outside of US-ASCII is mapped to an illegal octet
+            byte dataS = c < 0x80 ? (byte)c : (byte)-1;
             if (!isWhiteSpace(dataS)) {
                 result[newSize++] = dataS;
             }
@@ -503,78 +401,8 @@ public final class Base64 {
             //should be divisible by four
         }
 
-        int numberQuadruple = len / FOURBYTE;
-
-        if (numberQuadruple == 0) {
-            return new byte[0];
-        }
-
-        byte[] decodedData = null;
-        byte b1 = 0, b2 = 0, b3 = 0, b4 = 0;
-
-        int i = 0;
-        int encodedIndex = 0;
-        int dataIndex = 0;
-
-        //decodedData = new byte[ (numberQuadruple)*3];
-        dataIndex = (numberQuadruple - 1) * 4;
-        encodedIndex = (numberQuadruple - 1) * 3;
-        //first last bits.
-        b1 = base64Alphabet[base64Data[dataIndex++]];
-        b2 = base64Alphabet[base64Data[dataIndex++]];
-        if (b1 == -1 || b2 == -1) {
-             //if found "no data" just return null
-            throw new Base64DecodingException("decoding.general");
-        }
-
-
-        byte d3, d4;
-        b3 = base64Alphabet[d3 = base64Data[dataIndex++]];
-        b4 = base64Alphabet[d4 = base64Data[dataIndex++]];
-        if (b3 == -1 || b4 == -1) {
-            //Check if they are PAD characters
-            if (isPad(d3) && isPad(d4)) {               //Two PAD e.g. 3c[Pad][Pad]
-                if ((b2 & 0xf) != 0) { //last 4 bits should be zero
-                    throw new Base64DecodingException("decoding.general");
-                }
-                decodedData = new byte[encodedIndex + 1];
-                decodedData[encodedIndex]   = (byte)(b1 << 2 | b2 >> 4) ;
-            } else if (!isPad(d3) && isPad(d4)) {               //One PAD  e.g. 3cQ[Pad]
-                if ((b3 & 0x3) != 0) { //last 2 bits should be zero
-                    throw new Base64DecodingException("decoding.general");
-                }
-                decodedData = new byte[encodedIndex + 2];
-                decodedData[encodedIndex++] = (byte)(b1 << 2 | b2 >> 4);
-                decodedData[encodedIndex] = (byte)(((b2 & 0xf) << 4) |((b3 >> 2) & 0xf));
-            } else {
-                //an error  like "3c[Pad]r", "3cdX", "3cXd", "3cXX" where X is non data
-                throw new Base64DecodingException("decoding.general");
-            }
-        } else {
-            //No PAD e.g 3cQl
-            decodedData = new byte[encodedIndex+3];
-            decodedData[encodedIndex++] = (byte)(b1 << 2 | b2 >> 4) ;
-            decodedData[encodedIndex++] = (byte)(((b2 & 0xf) << 4) | ((b3 >> 2) & 0xf));
-            decodedData[encodedIndex++] = (byte)(b3 << 6 | b4);
-        }
-        encodedIndex = 0;
-        dataIndex = 0;
-        //the begin
-        for (i = numberQuadruple - 1; i > 0; i--) {
-            b1 = base64Alphabet[base64Data[dataIndex++]];
-            b2 = base64Alphabet[base64Data[dataIndex++]];
-            b3 = base64Alphabet[base64Data[dataIndex++]];
-            b4 = base64Alphabet[base64Data[dataIndex++]];
-
-            if (b1 == -1 || b2 == -1 || b3 == -1 || b4 == -1) {
-                //if found "no data" just return null
-                throw new Base64DecodingException("decoding.general");
-            }
-
-            decodedData[encodedIndex++] = (byte)(b1 << 2 | b2 >> 4) ;
-            decodedData[encodedIndex++] = (byte)(((b2 & 0xf) << 4) |((b3 >> 2) & 0xf));
-            decodedData[encodedIndex++] = (byte)(b3 << 6 | b4 );
-        }
+        byte[] decodedData = new byte[decodedLength(base64Data, len)];
+        decodeQuadruples(base64Data, 0, len, decodedData, 0, true);
         return decodedData;
     }
 
@@ -618,66 +446,13 @@ public final class Base64 {
             //should be divisible by four
         }
 
-        int numberQuadruple = len / FOURBYTE;
-
-        if (numberQuadruple == 0) {
-            return;
-        }
-
-        //byte[] decodedData = null;
-        byte b1 = 0, b2 = 0, b3 = 0, b4 = 0;
-
-        int i = 0;
-        int dataIndex = 0;
-
-        //the begin
-        for (i = numberQuadruple - 1; i > 0; i--) {
-            b1 = base64Alphabet[base64Data[dataIndex++]];
-            b2 = base64Alphabet[base64Data[dataIndex++]];
-            b3 = base64Alphabet[base64Data[dataIndex++]];
-            b4 = base64Alphabet[base64Data[dataIndex++]];
-            if (b1 == -1 || b2 == -1 || b3 == -1 || b4 == -1) {
-                //if found "no data" just return null
-                throw new Base64DecodingException("decoding.general");
-            }
-
-            os.write((byte)(b1 << 2 | b2 >> 4));
-            os.write((byte)(((b2 & 0xf) << 4 ) | ((b3 >> 2) & 0xf)));
-            os.write((byte)(b3 << 6 | b4));
-        }
-        b1 = base64Alphabet[base64Data[dataIndex++]];
-        b2 = base64Alphabet[base64Data[dataIndex++]];
-
-        //  first last bits.
-        if (b1 == -1 || b2 == -1) {
-            //if found "no data" just return null
-            throw new Base64DecodingException("decoding.general");
-        }
-
-        byte d3, d4;
-        b3 = base64Alphabet[d3 = base64Data[dataIndex++]];
-        b4 = base64Alphabet[d4 = base64Data[dataIndex++]];
-        if (b3 == -1 || b4 == -1) { //Check if they are PAD characters
-            if (isPad(d3) && isPad(d4)) {               //Two PAD e.g. 3c[Pad][Pad]
-                if ((b2 & 0xf) != 0) { //last 4 bits should be zero
-                    throw new Base64DecodingException("decoding.general");
-                }
-                os.write((byte)(b1 << 2 | b2 >> 4));
-            } else if (!isPad(d3) && isPad(d4)) {               //One PAD  e.g. 3cQ[Pad]
-                if ((b3 & 0x3 ) != 0) { //last 2 bits should be zero
-                    throw new Base64DecodingException("decoding.general");
-                }
-                os.write((byte)(b1 << 2 | b2 >> 4));
-                os.write((byte)(((b2 & 0xf) << 4) | ((b3 >> 2) & 0xf)));
-            } else {
-                //an error  like "3c[Pad]r", "3cdX", "3cXd", "3cXX" where X is non data
-                throw new Base64DecodingException("decoding.general");
-            }
-        } else {
-            //No PAD e.g 3cQl
-            os.write((byte)(b1 << 2 | b2 >> 4));
-            os.write( (byte)(((b2 & 0xf) << 4) | ((b3 >> 2) & 0xf)));
-            os.write((byte)(b3 << 6 | b4));
+        // decode chunk by chunk through one reusable buffer instead of writing
+        // the stream octet by octet
+        byte[] buffer = new byte[Math.min(len, CHUNK_SIZE) / FOURBYTE * 3];
+        for (int off = 0; off < len; off += CHUNK_SIZE) {
+            int chunk = Math.min(len - off, CHUNK_SIZE);
+            boolean last = off + chunk == len;
+            os.write(buffer, 0, decodeQuadruples(base64Data, off, chunk, buffer, 0, last));
         }
     }
 
@@ -691,73 +466,40 @@ public final class Base64 {
      */
     public static final void decode(InputStream is, OutputStream os)
         throws Base64DecodingException, IOException {
-        //byte[] decodedData = null;
-        byte b1 = 0, b2 = 0, b3 = 0, b4 = 0;
+        byte[] input = new byte[CHUNK_SIZE];
+        // whitespace free Base64 data not decoded yet
+        byte[] pending = new byte[CHUNK_SIZE];
+        byte[] buffer = new byte[CHUNK_SIZE / FOURBYTE * 3];
+        int pendingLen = 0;
+        boolean padFound = false;
+        boolean end = false;
 
-        int index = 0;
-        byte[] data = new byte[4];
         int read;
-        //the begin
-        while ((read = is.read()) > 0) {
-            byte readed = (byte)read;
-            if (isWhiteSpace(readed)) {
-                continue;
-            }
-            if (isPad(readed)) {
-                data[index++] = readed;
-                if (index == 3) {
-                    data[index++] = (byte)is.read();
+        while (!end && (read = is.read(input)) != -1) {
+            for (int i = 0; i < read; i++) {
+                byte octet = input[i];
+                if (isWhiteSpace(octet)) {
+                    continue;
                 }
-                break;
-            }
-
-            if ((data[index++] = readed) == -1) {
-                //if found "no data" just return null
-                throw new Base64DecodingException("decoding.general");
-            }
-
-            if (index != 4) {
-                continue;
-            }
-            index = 0;
-            b1 = base64Alphabet[data[0]];
-            b2 = base64Alphabet[data[1]];
-            b3 = base64Alphabet[data[2]];
-            b4 = base64Alphabet[data[3]];
-
-            os.write((byte)(b1 << 2 | b2 >> 4));
-            os.write((byte)(((b2 & 0xf) << 4) | ((b3 >> 2) & 0xf)));
-            os.write((byte)(b3 << 6 | b4));
-        }
-
-        byte d1 = data[0], d2 = data[1], d3 = data[2], d4 = data[3];
-        b1 = base64Alphabet[d1];
-        b2 = base64Alphabet[d2];
-        b3 = base64Alphabet[d3];
-        b4 = base64Alphabet[d4];
-        if (b3 == -1 || b4 == -1) { //Check if they are PAD characters
-            if (isPad(d3) && isPad(d4)) {               //Two PAD e.g. 3c[Pad][Pad]
-                if ((b2 & 0xf) != 0) { //last 4 bits should be zero
-                    throw new Base64DecodingException("decoding.general");
+                pending[pendingLen++] = octet;
+                padFound |= isPad(octet);
+                // the quadruple holding the first PAD is the last one, anything after it is ignored
+                if (padFound && pendingLen % FOURBYTE != 3) {
+                    end = true;
+                    break;
                 }
-                os.write((byte)(b1 << 2 | b2 >> 4));
-            } else if (!isPad(d3) && isPad(d4)) {               //One PAD  e.g. 3cQ[Pad]
-                b3 = base64Alphabet[d3];
-                if ((b3 & 0x3) != 0) { //last 2 bits should be zero
-                    throw new Base64DecodingException("decoding.general");
+                if (pendingLen == CHUNK_SIZE) {
+                    os.write(buffer, 0, decodeQuadruples(pending, 0, pendingLen, buffer, 0, false));
+                    pendingLen = 0;
                 }
-                os.write((byte)(b1 << 2 | b2 >> 4));
-                os.write((byte)(((b2 & 0xf) << 4) | ((b3 >> 2) & 0xf)));
-            } else {
-                //an error  like "3c[Pad]r", "3cdX", "3cXd", "3cXX" where X is non data
-                throw new Base64DecodingException("decoding.general");
             }
-        } else {
-            //No PAD e.g 3cQl
-            os.write((byte)(b1 << 2 | b2 >> 4));
-            os.write((byte)(((b2 & 0xf) << 4) | ((b3 >> 2) & 0xf)));
-            os.write((byte)(b3 << 6 | b4));
         }
+
+        if (pendingLen % FOURBYTE != 0) {
+            throw new Base64DecodingException("decoding.divisible.four");
+            //should be divisible by four
+        }
+        os.write(buffer, 0, decodeQuadruples(pending, 0, pendingLen, buffer, 0, true));
     }
 
     /**
@@ -782,4 +524,104 @@ public final class Base64 {
         }
         return newSize;
     }
+
+    /**
+     * Returns the number of octets encoded by whitespace free Base64 data.
+     *
+     * @param base64Data the Base64 data
+     * @param len the length of the data, a multiple of four
+     * @return the number of decoded octets
+     */
+    private static int decodedLength(byte[] base64Data, int len) {
+        if (len == 0) {
+            return 0;
+        }
+        int decodedLength = len / FOURBYTE * 3;
+        if (isPad(base64Data[len - 1])) {
+            decodedLength--;
+            if (isPad(base64Data[len - 2])) {
+                decodedLength--;
+            }
+        }
+        return decodedLength;
+    }
+
+    /**
+     * Decodes whitespace free Base64 data into a caller supplied buffer.
+     *
+     * @param base64Data the Base64 data
+     * @param off the offset of the data
+     * @param len the length of the data, a multiple of four
+     * @param decodedData the buffer receiving the octets
+     * @param decodedOff the offset in the buffer
+     * @param last whether the last quadruple may hold PAD characters
+     * @return the number of octets written
+     * @throws Base64DecodingException if the data is not valid Base64
+     */
+    private static int decodeQuadruples(byte[] base64Data, int off, int len,
+                                        byte[] decodedData, int decodedOff, boolean last)
+        throws Base64DecodingException {
+        if (len == 0) {
+            return 0;
+        }
+
+        int dataIndex = off;
+        int encodedIndex = decodedOff;
+        int end = last ? off + len - FOURBYTE : off + len;
+
+        // Illegal characters (including PAD) map to -1, so any of them turns the
+        // combined 24-bit group negative and a single comparison checks the quadruple.
+        while (dataIndex < end) {
+            int group = base64Alphabet[base64Data[dataIndex] & 0xff] << 18
+                | base64Alphabet[base64Data[dataIndex + 1] & 0xff] << 12
+                | base64Alphabet[base64Data[dataIndex + 2] & 0xff] << 6
+                | base64Alphabet[base64Data[dataIndex + 3] & 0xff];
+            if (group < 0) {
+                throw new Base64DecodingException("decoding.general");
+            }
+            decodedData[encodedIndex++] = (byte)(group >> 16);
+            decodedData[encodedIndex++] = (byte)(group >> 8);
+            decodedData[encodedIndex++] = (byte)group;
+            dataIndex += FOURBYTE;
+        }
+
+        if (!last) {
+            return encodedIndex - decodedOff;
+        }
+
+        int b1 = base64Alphabet[base64Data[dataIndex] & 0xff];
+        int b2 = base64Alphabet[base64Data[dataIndex + 1] & 0xff];
+        byte d3 = base64Data[dataIndex + 2];
+        byte d4 = base64Data[dataIndex + 3];
+        int b3 = base64Alphabet[d3 & 0xff];
+        int b4 = base64Alphabet[d4 & 0xff];
+        if (b1 == -1 || b2 == -1) {
+            throw new Base64DecodingException("decoding.general");
+        }
+
+        if (b3 == -1 || b4 == -1) {
+            //Check if they are PAD characters
+            if (isPad(d3) && isPad(d4)) {               //Two PAD e.g. 3c[Pad][Pad]
+                if ((b2 & 0xf) != 0) { //last 4 bits should be zero
+                    throw new Base64DecodingException("decoding.general");
+                }
+                decodedData[encodedIndex++] = (byte)(b1 << 2 | b2 >> 4);
+            } else if (!isPad(d3) && isPad(d4)) {               //One PAD  e.g. 3cQ[Pad]
+                if ((b3 & 0x3) != 0) { //last 2 bits should be zero
+                    throw new Base64DecodingException("decoding.general");
+                }
+                decodedData[encodedIndex++] = (byte)(b1 << 2 | b2 >> 4);
+                decodedData[encodedIndex++] = (byte)(((b2 & 0xf) << 4) | ((b3 >> 2) & 0xf));
+            } else {
+                //an error  like "3c[Pad]r", "3cdX", "3cXd", "3cXX" where X is non data
+                throw new Base64DecodingException("decoding.general");
+            }
+        } else {
+            //No PAD e.g 3cQl
+            decodedData[encodedIndex++] = (byte)(b1 << 2 | b2 >> 4);
+            decodedData[encodedIndex++] = (byte)(((b2 & 0xf) << 4) | ((b3 >> 2) & 0xf));
+            decodedData[encodedIndex++] = (byte)(b3 << 6 | b4);
+        }
+        return encodedIndex - decodedOff;
+    }
 }
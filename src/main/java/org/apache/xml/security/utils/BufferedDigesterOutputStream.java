@@ -0,0 +1,131 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.utils;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+
+/**
+ * An unsynchronized OutputStream which collects the written bytes in a ByteBuffer and
+ * feeds them to a MessageDigest in large chunks. It replaces the combination of an
+ * UnsyncBufferedOutputStream and a DigesterOutputStream for canonicalizing directly
+ * into a digest: single-byte writes of the canonicalizer only touch the buffer, and
+ * large writes are passed to the digest without being copied.
+ */
+public class BufferedDigesterOutputStream extends OutputStream {
+
+    private static final org.slf4j.Logger LOG =
+        org.slf4j.LoggerFactory.getLogger(BufferedDigesterOutputStream.class);
+
+    private final MessageDigest messageDigest;
+    private final ByteBuffer buffer;
+
+    /**
+     * @param messageDigest the MessageDigest to update
+     */
+    public BufferedDigesterOutputStream(MessageDigest messageDigest) {
+        this(messageDigest, 8192);
+    }
+
+    /**
+     * @param messageDigest the MessageDigest to update
+     * @param size the size of the internal buffer
+     */
+    public BufferedDigesterOutputStream(MessageDigest messageDigest, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be > 0");
+        }
+        this.messageDigest = messageDigest;
+        this.buffer = ByteBuffer.allocate(size);
+    }
+
+    @Override
+    public void write(int b) {
+        if (!buffer.hasRemaining()) {
+            flushInternal();
+        }
+        buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b) {
+        write(b, 0, b.length);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        if (len > buffer.remaining()) {
+            flushInternal();
+            if (len >= buffer.capacity()) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Pre-digested input:");
+                    LOG.debug(new String(b, off, len, java.nio.charset.StandardCharsets.UTF_8));
+                }
+                messageDigest.update(b, off, len);
+                return;
+            }
+        }
+        buffer.put(b, off, len);
+    }
+
+    /**
+     * Passes the remaining bytes of the given ByteBuffer to the digest without
+     * copying them, e.g. a memory mapped region of a file.
+     *
+     * @param src the bytes to digest
+     */
+    public void write(ByteBuffer src) {
+        flushInternal();
+        messageDigest.update(src);
+    }
+
+    @Override
+    public void flush() {
+        flushInternal();
+    }
+
+    @Override
+    public void close() {
+        flushInternal();
+    }
+
+    /**
+     * Flushes the buffered bytes and completes the digest computation.
+     *
+     * @return the digest value
+     */
+    public byte[] getDigestValue() {
+        flushInternal();
+        return messageDigest.digest();
+    }
+
+    private void flushInternal() {
+        if (buffer.position() > 0) {
+            buffer.flip();
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Pre-digested input:");
+                LOG.debug(new String(buffer.array(), buffer.arrayOffset(), buffer.limit(),
+                                     java.nio.charset.StandardCharsets.UTF_8));
+            }
+            messageDigest.update(buffer);
+            buffer.clear();
+        }
+    }
+}
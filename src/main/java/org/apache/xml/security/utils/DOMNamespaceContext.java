@@ -57,6 +57,17 @@ public class DOMNamespaceContext implements NamespaceContext {
         return namespaceMap.keySet().iterator();
     }
 
+    @Override
+    public int hashCode() {
+        return namespaceMap.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof DOMNamespaceContext
+            && namespaceMap.equals(((DOMNamespaceContext) obj).namespaceMap);
+    }
+
     private void addNamespaces(Node element) {
         if (element.getParentNode() != null) {
             addNamespaces(element.getParentNode());
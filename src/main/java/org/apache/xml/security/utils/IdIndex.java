@@ -0,0 +1,276 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.utils;
+
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * An index of the ID attribute values of a document, built with a single walk over the
+ * document and shared by all the same-document references of a signature operation.
+ * <p>
+ * An attribute is an ID attribute if {@link Attr#isId()} returns true or if its qualified
+ * name is listed in the system property <code>org.apache.xml.security.idAttributes</code>, a
+ * comma separated list of names either as <code>localName</code> (no namespace) or as
+ * <code>{namespaceURI}localName</code>. The configured names apply whether or not an index
+ * is attached, see {@link #getInstance}.
+ * <p>
+ * The index is attached to a Document with {@link #attach} for the duration of signing or
+ * verifying, and resolvers look it up with {@link #getInstance}. It is built on first use and
+ * does not follow later changes to the document, which is why it is detached once the
+ * operation has finished. Attaching is reference counted, so that nested or concurrent
+ * operations on the same document share one index, which is only removed once each of them
+ * has called {@link #detach}.
+ */
+public final class IdIndex {
+
+    private static final String USER_DATA_KEY = IdIndex.class.getName();
+
+    private static final List<String[]> ID_ATTRIBUTES =
+        parseAttributeNames(AccessController.doPrivileged(
+            (PrivilegedAction<String>) () -> System.getProperty("org.apache.xml.security.idAttributes")));
+
+    private final Document doc;
+    private volatile Map<String, IdEntry> index;
+
+    /** The number of attach calls without a matching detach, guarded by the Document */
+    private int attachCount;
+
+    private IdIndex(Document doc) {
+        this.doc = doc;
+    }
+
+    /**
+     * Attaches an index to the given document, or shares the one which is already attached.
+     * Each call must be followed by a call to {@link #detach}.
+     *
+     * @param doc the document, may be null
+     */
+    public static void attach(Document doc) {
+        if (doc == null) {
+            return;
+        }
+        synchronized (doc) {
+            IdIndex index = getAttached(doc);
+            if (index == null) {
+                index = new IdIndex(doc);
+                doc.setUserData(USER_DATA_KEY, index, null);
+            }
+            index.attachCount++;
+        }
+    }
+
+    /**
+     * Releases the index attached to the given document, and removes it once every
+     * {@link #attach} call has been matched.
+     *
+     * @param doc the document, may be null
+     */
+    public static void detach(Document doc) {
+        if (doc == null) {
+            return;
+        }
+        synchronized (doc) {
+            IdIndex index = getAttached(doc);
+            if (index != null && --index.attachCount == 0) {
+                doc.setUserData(USER_DATA_KEY, null, null);
+            }
+        }
+    }
+
+    /**
+     * Returns the index attached to the given document. If none is attached but
+     * <code>org.apache.xml.security.idAttributes</code> names extra ID attributes, a new
+     * index is returned which the caller uses for the current lookup only, so that these
+     * attributes are taken into account in the same way with or without an attached index.
+     *
+     * @param doc the document
+     * @return the index, or null if none is attached and no extra ID attributes are configured
+     */
+    public static IdIndex getInstance(Document doc) {
+        if (doc == null) {
+            return null;
+        }
+        IdIndex index;
+        synchronized (doc) {
+            index = getAttached(doc);
+        }
+        if (index == null && !ID_ATTRIBUTES.isEmpty()) {
+            index = new IdIndex(doc);
+        }
+        return index;
+    }
+
+    private static IdIndex getAttached(Document doc) {
+        Object index = doc.getUserData(USER_DATA_KEY);
+        return index instanceof IdIndex ? (IdIndex) index : null;
+    }
+
+    /**
+     * Returns the first element, in document order, with an ID attribute of the given value.
+     *
+     * @param id the ID value
+     * @return the element, or null if there is none
+     */
+    public Element getElementById(String id) {
+        IdEntry entry = getIndex().get(normalize(id));
+        return entry == null ? null : entry.element;
+    }
+
+    /**
+     * Tells whether at most one ID attribute of the document element subtree has the
+     * given value. This is the indexed form of
+     * {@link XMLUtils#protectAgainstWrappingAttack(Node, String)}.
+     *
+     * @param id the ID value
+     * @return true if the value is not used more than once
+     */
+    public boolean isUnique(String id) {
+        IdEntry entry = getIndex().get(normalize(id));
+        return entry == null || entry.count == 1;
+    }
+
+    /**
+     * Tells whether no element other than the given one has an ID attribute of the given
+     * value. This is the indexed form of
+     * {@link XMLUtils#protectAgainstWrappingAttack(Node, Element, String)}.
+     *
+     * @param knownElement the element the ID is expected to belong to
+     * @param id the ID value
+     * @return true if no other element uses the value
+     */
+    public boolean isUnique(Element knownElement, String id) {
+        IdEntry entry = getIndex().get(normalize(id));
+        return entry == null || entry.element == knownElement && !entry.otherElements;
+    }
+
+    private Map<String, IdEntry> getIndex() {
+        Map<String, IdEntry> result = index;
+        if (result == null) {
+            synchronized (this) {
+                result = index;
+                if (result == null) {
+                    result = build(doc.getDocumentElement());
+                    index = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private static Map<String, IdEntry> build(Node startNode) {
+        Map<String, IdEntry> result = new HashMap<>();
+        Node startParent = startNode == null ? null : startNode.getParentNode();
+        Node node = startNode;
+        while (node != null) {
+            if (node.getNodeType() == Node.ELEMENT_NODE) {
+                NamedNodeMap attributes = node.getAttributes();
+                int length = attributes.getLength();
+                for (int i = 0; i < length; i++) {
+                    Attr attr = (Attr) attributes.item(i);
+                    if (isIdAttribute(attr)) {
+                        IdEntry entry = result.get(attr.getValue());
+                        if (entry == null) {
+                            result.put(attr.getValue(), new IdEntry((Element) node));
+                        } else {
+                            entry.count++;
+                            entry.otherElements |= entry.element != node;
+                        }
+                    }
+                }
+            }
+
+            Node next = node.getFirstChild();
+            while (next == null && node != startParent) {
+                next = node.getNextSibling();
+                if (next == null) {
+                    node = node.getParentNode();
+                    if (node == startParent) {
+                        break;
+                    }
+                }
+            }
+            node = next;
+        }
+        return result;
+    }
+
+    private static boolean isIdAttribute(Attr attr) {
+        if (attr.isId()) {
+            return true;
+        }
+        for (String[] name : ID_ATTRIBUTES) {
+            String localName = attr.getLocalName() != null ? attr.getLocalName() : attr.getName();
+            if (name[1].equals(localName)
+                && (name[0] == null ? attr.getNamespaceURI() == null : name[0].equals(attr.getNamespaceURI()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String normalize(String value) {
+        String id = value.trim();
+        if (!id.isEmpty() && id.charAt(0) == '#') {
+            id = id.substring(1);
+        }
+        return id;
+    }
+
+    private static List<String[]> parseAttributeNames(String names) {
+        if (names == null || names.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String[]> result = new ArrayList<>();
+        for (String name : names.split(",")) {
+            name = name.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            int end = name.indexOf('}');
+            if (name.charAt(0) == '{' && end > 0) {
+                result.add(new String[] {name.substring(1, end), name.substring(end + 1)});
+            } else {
+                result.add(new String[] {null, name});
+            }
+        }
+        return result;
+    }
+
+    private static final class IdEntry {
+        private final Element element;
+        private int count = 1;
+        private boolean otherElements;
+
+        IdEntry(Element element) {
+            this.element = element;
+        }
+    }
+}
@@ -35,11 +35,15 @@ import org.w3c.dom.NodeList;
  */
 public class JDKXPathAPI implements XPathAPI {
 
+    private static final XPathExpressionCache<XPathExpression> EXPRESSIONS = new XPathExpressionCache<>();
+
     private XPathFactory xpf;
 
     private String xpathStr;
 
-    private XPathExpression xpathExpression;
+    private Node namespaceNode;
+
+    private XPathExpressionCache.Key key;
 
     /**
      *  Use an XPath string to select a nodelist.
@@ -56,28 +60,14 @@ public class JDKXPathAPI implements XPathAPI {
     public NodeList selectNodeList(
         Node contextNode, Node xpathnode, String str, Node namespaceNode
     ) throws TransformerException {
-        if (!str.equals(xpathStr) || xpathExpression == null) {
-            if (xpf == null) {
-                xpf = XPathFactory.newInstance();
-                try {
-                    xpf.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, Boolean.TRUE);
-                } catch (XPathFactoryConfigurationException ex) {
-                    throw new TransformerException(ex);
-                }
-            }
-            XPath xpath = xpf.newXPath();
-            xpath.setNamespaceContext(new DOMNamespaceContext(namespaceNode));
-            xpathStr = str;
-            try {
-                xpathExpression = xpath.compile(xpathStr);
-            } catch (XPathExpressionException ex) {
-                throw new TransformerException(ex);
-            }
-        }
+        XPathExpressionCache.Key expressionKey = getKey(str, namespaceNode);
+        XPathExpression xpathExpression = getExpression(expressionKey);
         try {
             return (NodeList)xpathExpression.evaluate(contextNode, XPathConstants.NODESET);
         } catch (XPathExpressionException ex) {
             throw new TransformerException(ex);
+        } finally {
+            EXPRESSIONS.release(expressionKey, xpathExpression);
         }
     }
 
@@ -90,28 +80,14 @@ public class JDKXPathAPI implements XPathAPI {
      */
     public boolean evaluate(Node contextNode, Node xpathnode, String str, Node namespaceNode)
         throws TransformerException {
-        if (!str.equals(xpathStr) || xpathExpression == null) {
-            if (xpf == null) {
-                xpf = XPathFactory.newInstance();
-                try {
-                    xpf.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, Boolean.TRUE);
-                } catch (XPathFactoryConfigurationException ex) {
-                    throw new TransformerException(ex);
-                }
-            }
-            XPath xpath = xpf.newXPath();
-            xpath.setNamespaceContext(new DOMNamespaceContext(namespaceNode));
-            xpathStr = str;
-            try {
-                xpathExpression = xpath.compile(xpathStr);
-            } catch (XPathExpressionException ex) {
-                throw new TransformerException(ex);
-            }
-        }
+        XPathExpressionCache.Key expressionKey = getKey(str, namespaceNode);
+        XPathExpression xpathExpression = getExpression(expressionKey);
         try {
             return (Boolean)xpathExpression.evaluate(contextNode, XPathConstants.BOOLEAN);
         } catch (XPathExpressionException ex) {
             throw new TransformerException(ex);
+        } finally {
+            EXPRESSIONS.release(expressionKey, xpathExpression);
         }
     }
 
@@ -120,8 +96,55 @@ public class JDKXPathAPI implements XPathAPI {
      */
     public void clear() {
         xpathStr = null;
-        xpathExpression = null;
+        namespaceNode = null;
+        key = null;
         xpf = null;
     }
 
+    /**
+     * @return the number of XPath expressions which were taken from the shared cache
+     */
+    public static long getCacheHitCount() {
+        return EXPRESSIONS.getHitCount();
+    }
+
+    /**
+     * @return the number of XPath expressions which had to be compiled
+     */
+    public static long getCacheMissCount() {
+        return EXPRESSIONS.getMissCount();
+    }
+
+    // The namespace bindings are only collected again if the XPath or its namespace node changes
+    private XPathExpressionCache.Key getKey(String str, Node namespaceNode) {
+        if (key == null || !str.equals(xpathStr) || namespaceNode != this.namespaceNode) {
+            key = XPathExpressionCache.newKey(str, new DOMNamespaceContext(namespaceNode));
+            xpathStr = str;
+            this.namespaceNode = namespaceNode;
+        }
+        return key;
+    }
+
+    private XPathExpression getExpression(XPathExpressionCache.Key expressionKey) throws TransformerException {
+        XPathExpression xpathExpression = EXPRESSIONS.acquire(expressionKey);
+        if (xpathExpression != null) {
+            return xpathExpression;
+        }
+        if (xpf == null) {
+            xpf = XPathFactory.newInstance();
+            try {
+                xpf.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, Boolean.TRUE);
+            } catch (XPathFactoryConfigurationException ex) {
+                throw new TransformerException(ex);
+            }
+        }
+        XPath xpath = xpf.newXPath();
+        xpath.setNamespaceContext(expressionKey.getNamespaces());
+        try {
+            return xpath.compile(expressionKey.getXPath());
+        } catch (XPathExpressionException ex) {
+            throw new TransformerException(ex);
+        }
+    }
+
 }
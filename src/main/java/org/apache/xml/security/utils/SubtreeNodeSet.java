@@ -0,0 +1,232 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.utils;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * A read-only node-set holding the nodes of a DOM subtree, optionally without the subtree of
+ * an excluded node and without comments. It contains the same nodes, in the same document
+ * order, as the set filled by {@link XMLUtils#getSet(Node, java.util.Set, Node, boolean)}.
+ * <p>
+ * As a subtree is a single interval of the document order, the set is described by its
+ * bounds only instead of a hash entry per node: membership is decided by walking up from the
+ * node to the root, and iteration walks the tree. The set is a view, so it reflects changes
+ * made to the subtree afterwards.
+ */
+public class SubtreeNodeSet extends AbstractSet<Node> {
+
+    private final Node root;
+    private final Node exclude;
+    private final boolean withComments;
+    private final boolean empty;
+    private int size = -1;
+
+    /**
+     * @param root the root of the subtree
+     * @param exclude a node whose subtree is left out, may be null
+     * @param withComments whether comment nodes are members of the set
+     */
+    public SubtreeNodeSet(Node root, Node exclude, boolean withComments) {
+        this.root = root;
+        this.exclude = exclude;
+        this.withComments = withComments;
+        this.empty = exclude != null && XMLUtils.isDescendantOrSelf(exclude, root);
+    }
+
+    /**
+     * @return the root of the subtree
+     */
+    public Node getRoot() {
+        return root;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (empty || !(o instanceof Node)) {
+            return false;
+        }
+        Node node = (Node) o;
+        switch (node.getNodeType()) {
+        case Node.DOCUMENT_NODE:
+        case Node.DOCUMENT_TYPE_NODE:
+            return false;
+        case Node.COMMENT_NODE:
+            if (!withComments) {
+                return false;
+            }
+            break;
+        case Node.TEXT_NODE:
+            // only the first of adjacent text nodes is a member
+            if (node != root) {
+                Node previous = node.getPreviousSibling();
+                if (previous != null && previous.getNodeType() == Node.TEXT_NODE) {
+                    return false;
+                }
+            }
+            break;
+        default:
+            break;
+        }
+
+        Node current = node;
+        while (current != root) {
+            if (current == exclude) {
+                return false;
+            }
+            Node parent;
+            if (current.getNodeType() == Node.ATTRIBUTE_NODE) {
+                parent = ((Attr) current).getOwnerElement();
+            } else {
+                parent = current.getParentNode();
+            }
+            // only the children of elements and documents are part of the subtree
+            if (parent == null || parent.getNodeType() != Node.ELEMENT_NODE
+                && parent.getNodeType() != Node.DOCUMENT_NODE) {
+                return false;
+            }
+            current = parent;
+        }
+        return true;
+    }
+
+    @Override
+    public Iterator<Node> iterator() {
+        return new SubtreeIterator();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return !iterator().hasNext();
+    }
+
+    @Override
+    public int size() {
+        if (size < 0) {
+            int count = 0;
+            for (Iterator<Node> it = iterator(); it.hasNext(); it.next()) {
+                count++;
+            }
+            size = count;
+        }
+        return size;
+    }
+
+    /**
+     * Walks the subtree in document order, an element being followed by its attributes.
+     */
+    private final class SubtreeIterator implements Iterator<Node> {
+
+        private Node current;
+        private NamedNodeMap attributes;
+        private int attributeIndex;
+        private Node next;
+
+        SubtreeIterator() {
+            current = empty ? null : root;
+            next = advance();
+        }
+
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        public Node next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Node result = next;
+            next = advance();
+            return result;
+        }
+
+        private Node advance() {
+            while (true) {
+                if (attributes != null) {
+                    if (attributeIndex < attributes.getLength()) {
+                        return attributes.item(attributeIndex++);
+                    }
+                    attributes = null;
+                }
+                Node node = current;
+                if (node == null) {
+                    return null;
+                }
+                if (node == exclude) {
+                    current = following(node);
+                    continue;
+                }
+                switch (node.getNodeType()) {
+                case Node.ELEMENT_NODE:
+                    current = firstChild(node);
+                    if (node.hasAttributes()) {
+                        attributes = node.getAttributes();
+                        attributeIndex = 0;
+                    }
+                    return node;
+                case Node.DOCUMENT_NODE:
+                    current = firstChild(node);
+                    continue;
+                case Node.DOCUMENT_TYPE_NODE:
+                    current = following(node);
+                    continue;
+                case Node.COMMENT_NODE:
+                    current = following(node);
+                    if (withComments) {
+                        return node;
+                    }
+                    continue;
+                default:
+                    current = following(node);
+                    return node;
+                }
+            }
+        }
+
+        private Node firstChild(Node node) {
+            Node child = node.getFirstChild();
+            return child != null ? child : following(node);
+        }
+
+        /**
+         * Returns the node following the subtree of the given node, a run of adjacent text
+         * nodes counting as a single node.
+         */
+        private Node following(Node node) {
+            for (Node n = node; n != null && n != root; n = n.getParentNode()) {
+                Node sibling = n.getNextSibling();
+                if (n.getNodeType() == Node.TEXT_NODE) {
+                    while (sibling != null && sibling.getNodeType() == Node.TEXT_NODE) {
+                        sibling = sibling.getNextSibling();
+                    }
+                }
+                if (sibling != null) {
+                    return sibling;
+                }
+            }
+            return null;
+        }
+    }
+}
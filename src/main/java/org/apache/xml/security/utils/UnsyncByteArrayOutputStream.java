@@ -18,7 +18,9 @@
  */
 package org.apache.xml.security.utils;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 
 /**
@@ -85,6 +87,16 @@ public class UnsyncByteArrayOutputStream extends OutputStream  {
         pos = 0;
     }
 
+    /**
+     * Returns a stream reading the bytes written so far, without copying them. The stream
+     * must not be used after this stream was written to or reset.
+     *
+     * @return a stream reading the contents of this stream
+     */
+    public InputStream toInputStream() {
+        return new ByteArrayInputStream(buf, 0, pos);
+    }
+
     /**
      * Takes the contents of this stream and writes it to the output stream
      * {@code out}.
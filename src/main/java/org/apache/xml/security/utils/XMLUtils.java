@@ -21,20 +21,24 @@ package org.apache.xml.security.utils;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.math.BigInteger;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
 import java.util.Base64;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
-import java.util.WeakHashMap;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -75,11 +79,23 @@ public final class XMLUtils {
     private static final org.slf4j.Logger LOG =
         org.slf4j.LoggerFactory.getLogger(XMLUtils.class);
 
-    private static final Map<ClassLoader, Queue<DocumentBuilder>> DOCUMENT_BUILDERS =
-        Collections.synchronizedMap(new WeakHashMap<ClassLoader, Queue<DocumentBuilder>>());
+    private static final Map<LoaderKey, DocumentBuilderPool> DOCUMENT_BUILDERS = new ConcurrentHashMap<>();
 
-    private static final Map<ClassLoader, Queue<DocumentBuilder>> DOCUMENT_BUILDERS_DISALLOW_DOCTYPE =
-        Collections.synchronizedMap(new WeakHashMap<ClassLoader, Queue<DocumentBuilder>>());
+    private static final Map<LoaderKey, DocumentBuilderPool> DOCUMENT_BUILDERS_DISALLOW_DOCTYPE =
+        new ConcurrentHashMap<>();
+
+    private static final ReferenceQueue<ClassLoader> UNLOADED_CLASS_LOADERS = new ReferenceQueue<>();
+
+    /**
+     * The last DocumentBuilder used by the current thread, as { WeakReference to the ClassLoader,
+     * DocumentBuilder }. Only DocumentBuilders of the JDK are kept here, and only JDK types are
+     * used for the value, so that no thread keeps a ClassLoader alive.
+     */
+    private static final ThreadLocal<Object[]> THREAD_DOCUMENT_BUILDER = new ThreadLocal<>();
+    private static final ThreadLocal<Object[]> THREAD_DOCUMENT_BUILDER_DISALLOW_DOCTYPE = new ThreadLocal<>();
+
+    private static final LongAdder DOCUMENT_BUILDER_HITS = new LongAdder();
+    private static final LongAdder DOCUMENT_BUILDER_MISSES = new LongAdder();
 
     /**
      * Constructor XMLUtils
@@ -1020,10 +1036,9 @@ public final class XMLUtils {
             return documentBuilder.newDocument();
         }
 
-        Queue<DocumentBuilder> queue = getDocumentBuilderQueue(true, loader);
-        DocumentBuilder documentBuilder = getDocumentBuilder(true, queue);
+        DocumentBuilder documentBuilder = getDocumentBuilder(true, loader);
         Document doc = documentBuilder.newDocument();
-        repoolDocumentBuilder(documentBuilder, queue);
+        repoolDocumentBuilder(documentBuilder, true, loader);
         return doc;
     }
 
@@ -1042,10 +1057,9 @@ public final class XMLUtils {
             return documentBuilder.parse(inputStream);
         }
 
-        Queue<DocumentBuilder> queue = getDocumentBuilderQueue(disAllowDocTypeDeclarations, loader);
-        DocumentBuilder documentBuilder = getDocumentBuilder(disAllowDocTypeDeclarations, queue);
+        DocumentBuilder documentBuilder = getDocumentBuilder(disAllowDocTypeDeclarations, loader);
         Document doc = documentBuilder.parse(inputStream);
-        repoolDocumentBuilder(documentBuilder, queue);
+        repoolDocumentBuilder(documentBuilder, disAllowDocTypeDeclarations, loader);
         return doc;
     }
 
@@ -1061,10 +1075,9 @@ public final class XMLUtils {
             return documentBuilder.parse(uri);
         }
 
-        Queue<DocumentBuilder> queue = getDocumentBuilderQueue(disAllowDocTypeDeclarations, loader);
-        DocumentBuilder documentBuilder = getDocumentBuilder(disAllowDocTypeDeclarations, queue);
+        DocumentBuilder documentBuilder = getDocumentBuilder(disAllowDocTypeDeclarations, loader);
         Document doc = documentBuilder.parse(uri);
-        repoolDocumentBuilder(documentBuilder, queue);
+        repoolDocumentBuilder(documentBuilder, disAllowDocTypeDeclarations, loader);
         return doc;
     }
 
@@ -1084,10 +1097,9 @@ public final class XMLUtils {
             return documentBuilder.parse(inputSource);
         }
 
-        Queue<DocumentBuilder> queue = getDocumentBuilderQueue(disAllowDocTypeDeclarations, loader);
-        DocumentBuilder documentBuilder = getDocumentBuilder(disAllowDocTypeDeclarations, queue);
+        DocumentBuilder documentBuilder = getDocumentBuilder(disAllowDocTypeDeclarations, loader);
         Document doc = documentBuilder.parse(inputSource);
-        repoolDocumentBuilder(documentBuilder, queue);
+        repoolDocumentBuilder(documentBuilder, disAllowDocTypeDeclarations, loader);
         return doc;
     }
 
@@ -1136,24 +1148,59 @@ public final class XMLUtils {
         return resizedBytes;
     }
 
-    private static Queue<DocumentBuilder> getDocumentBuilderQueue(boolean disAllowDocTypeDeclarations, ClassLoader loader) throws ParserConfigurationException {
-        Map<ClassLoader, Queue<DocumentBuilder>> docBuilderCache =
+    /**
+     * @return the number of DocumentBuilders which were taken from a pool
+     */
+    public static long getDocumentBuilderPoolHitCount() {
+        return DOCUMENT_BUILDER_HITS.sum();
+    }
+
+    /**
+     * @return the number of DocumentBuilders which had to be created
+     */
+    public static long getDocumentBuilderPoolMissCount() {
+        return DOCUMENT_BUILDER_MISSES.sum();
+    }
+
+    private static DocumentBuilderPool getDocumentBuilderPool(boolean disAllowDocTypeDeclarations, ClassLoader loader) {
+        Map<LoaderKey, DocumentBuilderPool> docBuilderCache =
             disAllowDocTypeDeclarations ? DOCUMENT_BUILDERS_DISALLOW_DOCTYPE : DOCUMENT_BUILDERS;
-        Queue<DocumentBuilder> queue = docBuilderCache.get(loader);
-        if (queue == null) {
-            queue = new ArrayBlockingQueue<>(parserPoolSize);
-            docBuilderCache.put(loader, queue);
+        DocumentBuilderPool pool = docBuilderCache.get(new LoaderKey(loader, null));
+        if (pool == null) {
+            expungeUnloadedClassLoaders();
+            pool = docBuilderCache.computeIfAbsent(
+                new LoaderKey(loader, UNLOADED_CLASS_LOADERS), k -> new DocumentBuilderPool());
         }
+        return pool;
+    }
 
-        return queue;
+    private static void expungeUnloadedClassLoaders() {
+        Reference<? extends ClassLoader> key;
+        while ((key = UNLOADED_CLASS_LOADERS.poll()) != null) {
+            DOCUMENT_BUILDERS.remove(key);
+            DOCUMENT_BUILDERS_DISALLOW_DOCTYPE.remove(key);
+        }
     }
 
-    private static DocumentBuilder getDocumentBuilder(boolean disAllowDocTypeDeclarations, Queue<DocumentBuilder> queue) throws ParserConfigurationException {
-        DocumentBuilder db = queue.poll();
-        if (db == null) {
-            db = createDocumentBuilder(disAllowDocTypeDeclarations);
+    private static DocumentBuilder getDocumentBuilder(boolean disAllowDocTypeDeclarations, ClassLoader loader)
+        throws ParserConfigurationException {
+        Object[] cached = disAllowDocTypeDeclarations
+            ? THREAD_DOCUMENT_BUILDER_DISALLOW_DOCTYPE.get() : THREAD_DOCUMENT_BUILDER.get();
+        if (cached != null && cached[1] != null && ((WeakReference<?>) cached[0]).get() == loader) {
+            DocumentBuilder db = (DocumentBuilder) cached[1];
+            // a nested parse on this thread must not get the same instance
+            cached[1] = null;
+            DOCUMENT_BUILDER_HITS.increment();
+            return db;
         }
-        return db;
+
+        DocumentBuilder db = getDocumentBuilderPool(disAllowDocTypeDeclarations, loader).poll();
+        if (db != null) {
+            DOCUMENT_BUILDER_HITS.increment();
+            return db;
+        }
+        DOCUMENT_BUILDER_MISSES.increment();
+        return createDocumentBuilder(disAllowDocTypeDeclarations);
     }
 
     private static DocumentBuilder createDocumentBuilder(boolean disAllowDocTypeDeclarations) throws ParserConfigurationException {
@@ -1164,9 +1211,77 @@ public final class XMLUtils {
         return f.newDocumentBuilder();
     }
 
-    private static void repoolDocumentBuilder(DocumentBuilder db, Queue<DocumentBuilder> queue) {
-        if (queue != null) {
-            db.reset();
+    private static void repoolDocumentBuilder(DocumentBuilder db, boolean disAllowDocTypeDeclarations,
+                                              ClassLoader loader) {
+        db.reset();
+        if (db.getClass().getClassLoader() == null) {
+            ThreadLocal<Object[]> threadDocumentBuilder = disAllowDocTypeDeclarations
+                ? THREAD_DOCUMENT_BUILDER_DISALLOW_DOCTYPE : THREAD_DOCUMENT_BUILDER;
+            Object[] cached = threadDocumentBuilder.get();
+            if (cached == null) {
+                cached = new Object[2];
+                threadDocumentBuilder.set(cached);
+            }
+            if (cached[1] == null) {
+                if (cached[0] == null || ((WeakReference<?>) cached[0]).get() != loader) {
+                    cached[0] = new WeakReference<>(loader);
+                }
+                cached[1] = db;
+                return;
+            }
+        }
+        getDocumentBuilderPool(disAllowDocTypeDeclarations, loader).offer(db);
+    }
+
+    /**
+     * A weak, identity based key for a ClassLoader
+     */
+    private static final class LoaderKey extends WeakReference<ClassLoader> {
+        private final int hash;
+
+        LoaderKey(ClassLoader loader, ReferenceQueue<ClassLoader> queue) {
+            super(loader, queue);
+            hash = System.identityHashCode(loader);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof LoaderKey)) {
+                return false;
+            }
+            ClassLoader loader = get();
+            return loader != null && loader == ((LoaderKey) obj).get();
+        }
+    }
+
+    /**
+     * A lock-free pool of at most parserPoolSize DocumentBuilders
+     */
+    private static final class DocumentBuilderPool {
+        private final Queue<DocumentBuilder> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        DocumentBuilder poll() {
+            DocumentBuilder db = queue.poll();
+            if (db != null) {
+                size.decrementAndGet();
+            }
+            return db;
+        }
+
+        void offer(DocumentBuilder db) {
+            if (size.incrementAndGet() > parserPoolSize) {
+                size.decrementAndGet();
+                return;
+            }
             queue.offer(db);
         }
     }
@@ -0,0 +1,158 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.utils;
+
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, thread-safe cache of compiled XPath expressions, shared by all XPathAPI instances
+ * of one kind. The expressions are keyed on the XPath string and the namespace bindings it
+ * was compiled with.
+ * <p>
+ * As compiled expressions need not be thread-safe, every key holds a small pool of them: an
+ * expression is taken with {@link #acquire} for a single evaluation and handed back with
+ * {@link #release}. The number of cached keys is limited by the system property
+ * <code>org.apache.xml.security.xpath.cacheSize</code> (default 256), 0 disables the cache.
+ *
+ * @param <T> the type of the compiled expressions
+ */
+final class XPathExpressionCache<T> {
+
+    private static final int CACHE_SIZE =
+        AccessController.doPrivileged(
+            (PrivilegedAction<Integer>) () -> Integer.getInteger("org.apache.xml.security.xpath.cacheSize", 256));
+
+    private static final int EXPRESSIONS_PER_KEY = 8;
+
+    private final Map<Key, Queue<T>> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    XPathExpressionCache() {
+        cache = Collections.synchronizedMap(new LinkedHashMap<Key, Queue<T>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Queue<T>> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        });
+    }
+
+    /**
+     * @param xpath the XPath string
+     * @param namespaces the namespace bindings the expression is compiled with
+     * @return the key of the expression
+     */
+    static Key newKey(String xpath, DOMNamespaceContext namespaces) {
+        return new Key(xpath, namespaces);
+    }
+
+    /**
+     * @param key the key of the expression
+     * @return a cached expression, which must be released after use, or null if the expression
+     * has to be compiled
+     */
+    T acquire(Key key) {
+        Queue<T> expressions = cache.get(key);
+        T expression = expressions != null ? expressions.poll() : null;
+        if (expression != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return expression;
+    }
+
+    /**
+     * Hands an expression back after use.
+     *
+     * @param key the key of the expression
+     * @param expression the compiled expression
+     */
+    void release(Key key, T expression) {
+        if (CACHE_SIZE <= 0 || expression == null) {
+            return;
+        }
+        Queue<T> expressions = cache.get(key);
+        if (expressions == null) {
+            expressions = new ArrayBlockingQueue<>(EXPRESSIONS_PER_KEY);
+            Queue<T> existing = cache.putIfAbsent(key, expressions);
+            if (existing != null) {
+                expressions = existing;
+            }
+        }
+        expressions.offer(expression);
+    }
+
+    long getHitCount() {
+        return hits.sum();
+    }
+
+    long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * The key of a compiled expression
+     */
+    static final class Key {
+        private final String xpath;
+        private final DOMNamespaceContext namespaces;
+        private final int hash;
+
+        Key(String xpath, DOMNamespaceContext namespaces) {
+            this.xpath = xpath;
+            this.namespaces = namespaces;
+            this.hash = 31 * xpath.hashCode() + namespaces.hashCode();
+        }
+
+        String getXPath() {
+            return xpath;
+        }
+
+        DOMNamespaceContext getNamespaces() {
+            return namespaces;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return xpath.equals(other.xpath) && namespaces.equals(other.namespaces);
+        }
+    }
+}
@@ -47,9 +47,13 @@ public class XalanXPathAPI implements XPathAPI {
     private static final org.slf4j.Logger LOG =
         org.slf4j.LoggerFactory.getLogger(XalanXPathAPI.class);
 
+    private static final XPathExpressionCache<XPath> EXPRESSIONS = new XPathExpressionCache<>();
+
     private String xpathStr;
 
-    private XPath xpath;
+    private Node namespaceNode;
+
+    private XPathExpressionCache.Key key;
 
     private static FunctionTable funcTable;
 
@@ -103,10 +107,25 @@ public class XalanXPathAPI implements XPathAPI {
      */
     public void clear() {
         xpathStr = null;
-        xpath = null;
+        namespaceNode = null;
+        key = null;
         context = null;
     }
 
+    /**
+     * @return the number of XPath expressions which were taken from the shared cache
+     */
+    public static long getCacheHitCount() {
+        return EXPRESSIONS.getHitCount();
+    }
+
+    /**
+     * @return the number of XPath expressions which had to be compiled
+     */
+    public static long getCacheMissCount() {
+        return EXPRESSIONS.getMissCount();
+    }
+
     public static synchronized boolean isInstalled() {
         return installed;
     }
@@ -127,18 +146,28 @@ public class XalanXPathAPI implements XPathAPI {
                 ? ((Document) namespaceNode).getDocumentElement() : namespaceNode;
         PrefixResolverDefault prefixResolver = new PrefixResolverDefault(resolverNode);
 
-        if (!str.equals(xpathStr)) {
-            if (str.indexOf("here()") > 0) {
+        if (key == null || !str.equals(xpathStr) || resolverNode != this.namespaceNode) {
+            if (!str.equals(xpathStr) && str.indexOf("here()") > 0) {
                 context.reset();
             }
-            xpath = createXPath(str, prefixResolver);
+            key = XPathExpressionCache.newKey(str, new DOMNamespaceContext(resolverNode));
             xpathStr = str;
+            this.namespaceNode = resolverNode;
+        }
+        XPathExpressionCache.Key expressionKey = key;
+        XPath xpath = EXPRESSIONS.acquire(expressionKey);
+        if (xpath == null) {
+            xpath = createXPath(str, prefixResolver);
         }
 
         // Execute the XPath, and have it return the result
-        int ctxtNode = context.getDTMHandleFromNode(contextNode);
+        try {
+            int ctxtNode = context.getDTMHandleFromNode(contextNode);
 
-        return xpath.execute(context, ctxtNode, prefixResolver);
+            return xpath.execute(context, ctxtNode, prefixResolver);
+        } finally {
+            EXPRESSIONS.release(expressionKey, xpath);
+        }
     }
 
     private XPath createXPath(String str, PrefixResolver prefixResolver) throws TransformerException {
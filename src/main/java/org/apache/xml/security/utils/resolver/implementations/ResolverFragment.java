@@ -19,6 +19,7 @@
 package org.apache.xml.security.utils.resolver.implementations;
 
 import org.apache.xml.security.signature.XMLSignatureInput;
+import org.apache.xml.security.utils.IdIndex;
 import org.apache.xml.security.utils.XMLUtils;
 import org.apache.xml.security.utils.resolver.ResourceResolverContext;
 import org.apache.xml.security.utils.resolver.ResourceResolverException;
@@ -72,7 +73,11 @@ public class ResolverFragment extends ResourceResolverSpi {
              */
             String id = context.uriToResolve.substring(1);
 
+            IdIndex idIndex = IdIndex.getInstance(doc);
             selectedElem = doc.getElementById(id);
+            if (selectedElem == null && idIndex != null) {
+                selectedElem = idIndex.getElementById(id);
+            }
             if (selectedElem == null) {
                 Object[] exArgs = { id };
                 throw new ResourceResolverException(
@@ -81,7 +86,9 @@ public class ResolverFragment extends ResourceResolverSpi {
             }
             if (context.secureValidation) {
                 Element start = context.attr.getOwnerDocument().getDocumentElement();
-                if (!XMLUtils.protectAgainstWrappingAttack(start, id)) {
+                boolean unique = idIndex != null ? idIndex.isUnique(id)
+                    : XMLUtils.protectAgainstWrappingAttack(start, id);
+                if (!unique) {
                     Object[] exArgs = { id };
                     throw new ResourceResolverException(
                         "signature.Verification.MultipleIDs", exArgs, context.uriToResolve, context.baseUri
@@ -18,10 +18,8 @@
  */
 package org.apache.xml.security.utils.resolver.implementations;
 
-import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.nio.file.Files;
 import java.nio.file.Paths;
 
 import org.apache.xml.security.signature.XMLSignatureInput;
@@ -56,8 +54,7 @@ public class ResolverLocalFilesystem extends ResourceResolverSpi {
 
             String fileName =
                 ResolverLocalFilesystem.translateUriToFilename(uriNew.toString());
-            InputStream inputStream = Files.newInputStream(Paths.get(fileName));
-            XMLSignatureInput result = new XMLSignatureInput(inputStream);
+            XMLSignatureInput result = new XMLSignatureInput(Paths.get(fileName));
             result.setSecureValidation(context.secureValidation);
 
             result.setSourceURI(uriNew.toString());
@@ -19,6 +19,7 @@
 package org.apache.xml.security.utils.resolver.implementations;
 
 import org.apache.xml.security.signature.XMLSignatureInput;
+import org.apache.xml.security.utils.IdIndex;
 import org.apache.xml.security.utils.XMLUtils;
 import org.apache.xml.security.utils.resolver.ResourceResolverContext;
 import org.apache.xml.security.utils.resolver.ResourceResolverException;
@@ -68,11 +69,17 @@ public class ResolverXPointer extends ResourceResolverSpi {
             resultNode = doc;
         } else if (isXPointerId(context.uriToResolve)) {
             String id = getXPointerId(context.uriToResolve);
+            IdIndex idIndex = IdIndex.getInstance(doc);
             resultNode = doc.getElementById(id);
+            if (resultNode == null && idIndex != null) {
+                resultNode = idIndex.getElementById(id);
+            }
 
             if (context.secureValidation) {
                 Element start = context.attr.getOwnerDocument().getDocumentElement();
-                if (!XMLUtils.protectAgainstWrappingAttack(start, id)) {
+                boolean unique = idIndex != null ? idIndex.isUnique(id)
+                    : XMLUtils.protectAgainstWrappingAttack(start, id);
+                if (!unique) {
                     Object[] exArgs = { id };
                     throw new ResourceResolverException(
                         "signature.Verification.MultipleIDs", exArgs, context.uriToResolve, context.baseUri
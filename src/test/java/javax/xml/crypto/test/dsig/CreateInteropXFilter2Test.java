@@ -38,6 +38,7 @@ import org.w3c.dom.*;
 
 import javax.xml.crypto.test.KeySelectors;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -169,4 +170,57 @@ public class CreateInteropXFilter2Test {
         assertTrue(sig2.validate(dvc));
     }
 
-}
\ No newline at end of file
+    @org.junit.jupiter.api.Test
+    public void test_create_sign_many_subtract_roots() throws Exception {
+        Document doc = XMLUtils.newDocument();
+        Element document = doc.createElementNS(null, "Document");
+        doc.appendChild(document);
+        for (int i = 0; i < 5000; i++) {
+            Element tbs = doc.createElementNS(null, "ToBeSigned");
+            tbs.setAttributeNS(null, "Id", "id-" + i);
+            Element ntbs = doc.createElementNS(null, "NotToBeSigned");
+            ntbs.appendChild(doc.createTextNode("data " + i));
+            tbs.appendChild(ntbs);
+            document.appendChild(tbs);
+        }
+
+        // the same node-set is digested once with only the implicit final
+        // canonicalization and once with explicit canonicalization transforms
+        List<Reference> refs = new ArrayList<>(2);
+        for (int i = 0; i < 2; i++) {
+            List<Transform> trans = new ArrayList<>(4);
+            trans.add(fac.newTransform(Transform.ENVELOPED,
+                (TransformParameterSpec) null));
+            trans.add(fac.newTransform(Transform.XPATH2,
+                new XPathFilter2ParameterSpec(Collections.singletonList
+                    (new XPathType(" //NotToBeSigned ", XPathType.Filter.SUBTRACT)))));
+            if (i == 1) {
+                trans.add(fac.newTransform(CanonicalizationMethod.INCLUSIVE,
+                    (TransformParameterSpec) null));
+                trans.add(fac.newTransform(CanonicalizationMethod.INCLUSIVE,
+                    (TransformParameterSpec) null));
+            }
+            refs.add(fac.newReference
+                ("", fac.newDigestMethod(DigestMethod.SHA256, null),
+                 trans, null, null));
+        }
+
+        SignedInfo si = fac.newSignedInfo(
+            fac.newCanonicalizationMethod
+                (CanonicalizationMethod.INCLUSIVE,
+                 (C14NMethodParameterSpec) null),
+            fac.newSignatureMethod(SignatureMethod.DSA_SHA1, null), refs);
+        XMLSignature sig = fac.newXMLSignature(si, null);
+
+        DOMSignContext dsc = new DOMSignContext(signingKey, document);
+        sig.sign(dsc);
+
+        assertArrayEquals(refs.get(0).getDigestValue(), refs.get(1).getDigestValue());
+
+        DOMValidateContext dvc = new DOMValidateContext
+            (validatingKey, document.getLastChild());
+        XMLSignature sig2 = fac.unmarshalXMLSignature(dvc);
+        assertTrue(sig2.validate(dvc));
+    }
+
+}
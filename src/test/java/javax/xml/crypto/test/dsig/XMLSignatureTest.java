@@ -25,12 +25,17 @@ package javax.xml.crypto.test.dsig;
 import java.io.*;
 import java.util.*;
 import java.security.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.xml.crypto.URIDereferencer;
 import javax.xml.crypto.dom.DOMStructure;
 import javax.xml.crypto.dsig.*;
 import javax.xml.crypto.dsig.keyinfo.*;
 import javax.xml.crypto.dsig.spec.C14NMethodParameterSpec;
+import javax.xml.crypto.dsig.spec.XPathFilterParameterSpec;
 import javax.xml.crypto.dsig.dom.DOMSignContext;
 import javax.xml.crypto.dsig.dom.DOMValidateContext;
 import javax.crypto.spec.SecretKeySpec;
@@ -302,6 +307,90 @@ public class XMLSignatureTest {
         }
     }
 
+    @org.junit.jupiter.api.Test
+    public void testSignWithDigestExecutor() throws Exception {
+        DigestMethod dm = fac.newDigestMethod(DigestMethod.SHA256, null);
+        List<Reference> refs = new ArrayList<>();
+        List<XMLObject> objs = new ArrayList<>();
+        Document doc = TestUtils.newDocument();
+        for (int i = 0; i < 6; i++) {
+            refs.add(fac.newReference("#object-" + i, dm));
+            Element data = doc.createElementNS(null, "Data");
+            data.setAttributeNS("http://www.w3.org/2000/xmlns/", "xmlns", "");
+            data.appendChild(doc.createTextNode("Some data " + i));
+            objs.add(fac.newXMLObject(Collections.singletonList
+                (new DOMStructure(data)), "object-" + i, null, null));
+        }
+        // a Manifest which depends on one of the objects above
+        refs.add(fac.newReference("#object-manifest", dm));
+        objs.add(fac.newXMLObject(Collections.singletonList
+            (fac.newManifest(Collections.singletonList
+                (fac.newReference("#object-0", dm)), "manifest")), "object-manifest", null, null));
+
+        CanonicalizationMethod cm = fac.newCanonicalizationMethod
+            (CanonicalizationMethod.INCLUSIVE, (C14NMethodParameterSpec) null);
+        SignedInfo si = fac.newSignedInfo(cm, SIG_METHODS[2], refs);
+        XMLSignature sig = fac.newXMLSignature(si, null, objs, "signature", null);
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            DOMSignContext dsc = new DOMSignContext(SIGN_KEYS[2], doc);
+            dsc.setProperty("org.jcp.xml.dsig.digestExecutor", executor);
+            sig.sign(dsc);
+        } finally {
+            executor.shutdown();
+        }
+
+        DOMValidateContext dvc = new DOMValidateContext
+            (VALIDATE_KEYS[2], doc.getDocumentElement());
+        XMLSignature sig2 = fac.unmarshalXMLSignature(dvc);
+        assertEquals(sig, sig2);
+        assertTrue(sig2.validate(dvc));
+    }
+
+    @org.junit.jupiter.api.Test
+    public void testSignWithDigestExecutorAndXPathTransforms() throws Exception {
+        // XPath transforms expand the namespace declarations of the whole
+        // document, so these references must not be digested concurrently
+        DigestMethod dm = fac.newDigestMethod(DigestMethod.SHA256, null);
+        List<Reference> refs = new ArrayList<>();
+        List<XMLObject> objs = new ArrayList<>();
+        Document doc = TestUtils.newDocument();
+        for (int i = 0; i < 2; i++) {
+            Transform xpath = fac.newTransform(Transform.XPATH,
+                new XPathFilterParameterSpec("ancestor-or-self::*[local-name()='Data']"));
+            refs.add(fac.newReference("#object-" + i, dm,
+                Collections.singletonList(xpath), null, null));
+            Element data = doc.createElementNS("urn:test", "t:Data");
+            data.setAttributeNS("http://www.w3.org/2000/xmlns/", "xmlns:t", "urn:test");
+            Element child = doc.createElementNS("urn:test", "t:Child");
+            child.appendChild(doc.createTextNode("Some data " + i));
+            data.appendChild(child);
+            objs.add(fac.newXMLObject(Collections.singletonList
+                (new DOMStructure(data)), "object-" + i, null, null));
+        }
+
+        CanonicalizationMethod cm = fac.newCanonicalizationMethod
+            (CanonicalizationMethod.INCLUSIVE, (C14NMethodParameterSpec) null);
+        SignedInfo si = fac.newSignedInfo(cm, SIG_METHODS[2], refs);
+        XMLSignature sig = fac.newXMLSignature(si, null, objs, "signature", null);
+
+        AtomicInteger submitted = new AtomicInteger();
+        DOMSignContext dsc = new DOMSignContext(SIGN_KEYS[2], doc);
+        dsc.setProperty("org.jcp.xml.dsig.digestExecutor",
+            (Executor) task -> {
+                submitted.incrementAndGet();
+                task.run();
+            });
+        sig.sign(dsc);
+        assertEquals(0, submitted.get());
+
+        DOMValidateContext dvc = new DOMValidateContext
+            (VALIDATE_KEYS[2], doc.getDocumentElement());
+        XMLSignature sig2 = fac.unmarshalXMLSignature(dvc);
+        assertTrue(sig2.validate(dvc));
+    }
+
     @org.junit.jupiter.api.Test
     public void testSignTemplateWithObjectNSDefs() throws Exception {
         String base = System.getProperty("basedir") == null ? "./"
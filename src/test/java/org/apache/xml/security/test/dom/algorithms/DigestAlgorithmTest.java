@@ -24,6 +24,7 @@ import java.security.MessageDigest;
 import java.security.Provider;
 import java.security.Security;
 
+import org.apache.xml.security.algorithms.JCEEnginePool;
 import org.apache.xml.security.algorithms.MessageDigestAlgorithm;
 import org.apache.xml.security.utils.XMLUtils;
 import org.junit.jupiter.api.Assumptions;
@@ -32,6 +33,7 @@ import org.w3c.dom.Document;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
@@ -72,6 +74,29 @@ public class DigestAlgorithmTest {
         Security.removeProvider("BC");
     }
 
+    @org.junit.jupiter.api.Test
+    public void testPooledDigest() throws Exception {
+        Document doc = XMLUtils.newDocument();
+
+        MessageDigestAlgorithm digestAlgorithm =
+            MessageDigestAlgorithm.getInstance(doc, MessageDigestAlgorithm.ALGO_ID_DIGEST_SHA256);
+        MessageDigest pooled = digestAlgorithm.getAlgorithm();
+        // leave some state behind, the pool must reset it
+        digestAlgorithm.update("garbage".getBytes());
+        digestAlgorithm.release();
+
+        long hits = JCEEnginePool.MESSAGE_DIGEST.getHitCount();
+        digestAlgorithm =
+            MessageDigestAlgorithm.getInstance(doc, MessageDigestAlgorithm.ALGO_ID_DIGEST_SHA256);
+        assertSame(pooled, digestAlgorithm.getAlgorithm());
+        assertEquals(hits + 1, JCEEnginePool.MESSAGE_DIGEST.getHitCount());
+
+        byte[] digest = digestAlgorithm.digest("test-string".getBytes());
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        assertArrayEquals(md.digest("test-string".getBytes()), digest);
+        digestAlgorithm.release();
+    }
+
     @org.junit.jupiter.api.Test
     public void testSHA1() throws Exception {
         Document doc = XMLUtils.newDocument();
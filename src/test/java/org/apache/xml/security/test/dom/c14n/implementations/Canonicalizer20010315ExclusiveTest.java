@@ -22,6 +22,7 @@ package org.apache.xml.security.test.dom.c14n.implementations;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.StringReader;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -29,6 +30,7 @@ import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathFactory;
 
+import org.apache.xml.security.c14n.Canonicalizer;
 import org.apache.xml.security.c14n.implementations.Canonicalizer20010315;
 import org.apache.xml.security.c14n.implementations.Canonicalizer20010315Excl;
 import org.apache.xml.security.c14n.implementations.Canonicalizer20010315ExclOmitComments;
@@ -46,7 +48,9 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.xml.sax.InputSource;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
@@ -687,6 +691,51 @@ public class Canonicalizer20010315ExclusiveTest {
         assertEquals(c14nXML, new String(bytes));
     }
 
+    /**
+     * A pooled canonicalizer must not carry the inclusive namespaces or the
+     * propagateDefaultNamespace flag of a previous run into the next one.
+     */
+    @org.junit.jupiter.api.Test
+    public void testPooledCanonicalizerIsReset() throws Exception {
+        final String XML =
+                "<env:Envelope"
+                        + " xmlns=\"http://example.com\""
+                        + " xmlns:env=\"http://schemas.xmlsoap.org/soap/envelope/\""
+                        + " xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\""
+                        + " xmlns:ns0=\"http://xmlsoap.org/Ping\">"
+                        + "<env:Body xmlns=\"\">"
+                        + "<ns0:Ping xsi:type=\"ns0:ping\">"
+                        + "<ns0:text>hello</ns0:text>"
+                        + "</ns0:Ping>"
+                        + "</env:Body>"
+                        + "</env:Envelope>";
+
+        Document doc = XMLUtils.read(new InputSource(new StringReader(XML)), false);
+        Node ping = doc.getDocumentElement().getFirstChild().getFirstChild();
+
+        byte[] expected =
+            Canonicalizer.getInstance(Canonicalizer.ALGO_ID_C14N_EXCL_OMIT_COMMENTS).canonicalizeSubtree(ping);
+
+        Canonicalizer c14n = Canonicalizer.acquire(Canonicalizer.ALGO_ID_C14N_EXCL_OMIT_COMMENTS);
+        try {
+            byte[] propagated = c14n.canonicalizeSubtree(ping, "#default", true);
+            assertFalse(Arrays.equals(expected, propagated));
+
+            // the pool resets an instance when it is released
+            c14n.reset();
+            assertArrayEquals(expected, c14n.canonicalizeSubtree(ping));
+        } finally {
+            Canonicalizer.release(c14n);
+        }
+
+        Canonicalizer pooled = Canonicalizer.acquire(Canonicalizer.ALGO_ID_C14N_EXCL_OMIT_COMMENTS);
+        try {
+            assertArrayEquals(expected, pooled.canonicalizeSubtree(ping));
+        } finally {
+            Canonicalizer.release(pooled);
+        }
+    }
+
     private String getAbsolutePath(String path) {
         String basedir = System.getProperty("basedir");
         if (basedir != null && !"".equals(basedir)) {
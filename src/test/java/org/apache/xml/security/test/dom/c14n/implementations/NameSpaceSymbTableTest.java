@@ -208,4 +208,28 @@ public class NameSpaceSymbTableTest {
         ns.addMappingAndRender("ctrl", "http://foo.com/controls", node1);
         ns.addMappingAndRender("wiki", "http://foo.com/samples/wiki", node1);
     }
-}
\ No newline at end of file
+
+    @org.junit.jupiter.api.Test
+    public void testDeepNestingRestoresOuterBindings() {
+        NameSpaceSymbTable ns = new NameSpaceSymbTable();
+        ns.push();
+        ns.addMapping("a", "http://a/0", node1);
+        for (int i = 1; i <= 1000; i++) {
+            ns.push();
+            ns.addMapping("a", "http://a/" + i, i % 2 == 0 ? node1 : node2);
+            ns.addMapping("p" + i, "http://p/" + i, node2);
+        }
+        assertEquals(1001, ns.getLevel());
+        assertEquals(node1, ns.getMapping("a"));
+        assertNull(ns.getMapping("a"));
+
+        for (int i = 1000; i >= 1; i--) {
+            assertNull(ns.getMappingWithoutRendered("p" + (i + 1)));
+            ns.pop();
+        }
+        assertEquals(1, ns.getLevel());
+        assertNull(ns.getMappingWithoutRendered("p1"));
+        // the outermost binding was never rendered
+        assertEquals(node1, ns.getMapping("a"));
+    }
+}
@@ -25,6 +25,7 @@ import java.nio.charset.StandardCharsets;
 import org.apache.xml.security.c14n.implementations.UtfHelpper;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 public class UtfHelperTest {
 
@@ -90,4 +91,27 @@ public class UtfHelperTest {
         );
     }
 
+    @org.junit.jupiter.api.Test
+    public void testAsciiRuns() throws Exception {
+        boolean[] escaped = UtfHelpper.getAsciiEscapeTable('&', '<');
+        String s = "plain text&more\u00e4<";
+        assertEquals(10, UtfHelpper.endOfAsciiRun(s, 0, s.length(), escaped));
+        assertEquals(10, UtfHelpper.endOfAsciiRun(s, 10, s.length(), escaped));
+        assertEquals(15, UtfHelpper.endOfAsciiRun(s, 11, s.length(), escaped));
+        assertEquals(15, UtfHelpper.endOfAsciiRun(s.toCharArray(), 11, s.length(), escaped));
+
+        // longer than one chunk
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        String run = sb.toString();
+        assertEquals(run.length(), UtfHelpper.endOfAsciiRun(run, 0, run.length(), escaped));
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        UtfHelpper.writeAsciiRun(run, 0, run.length(), os);
+        UtfHelpper.writeAsciiRun(run.toCharArray(), 3, 4, os);
+        assertArrayEquals((run + "d").getBytes(StandardCharsets.US_ASCII), os.toByteArray());
+    }
+
 }
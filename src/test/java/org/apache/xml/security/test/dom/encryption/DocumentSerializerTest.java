@@ -0,0 +1,82 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.test.dom.encryption;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.xml.security.encryption.DocumentSerializer;
+import org.apache.xml.security.utils.XMLUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Test deserialization of decrypted content into the context document.
+ */
+public class DocumentSerializerTest {
+
+    private static final String CONTEXT =
+        "<r:root xmlns:r=\"urn:root\" xmlns=\"urn:default\"><r:ctx xmlns:p=\"urn:p\"/></r:root>";
+
+    @Test
+    public void testDeserializeStream() throws Exception {
+        Document document;
+        try (InputStream is = new ByteArrayInputStream(CONTEXT.getBytes(StandardCharsets.UTF_8))) {
+            document = XMLUtils.read(is, false);
+        }
+        Element ctx = (Element) document.getDocumentElement().getFirstChild();
+
+        String source = "<p:a att=\"1\"><b>text</b></p:a><!--comment-->tail";
+        Node result;
+        try (InputStream is = new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8))) {
+            result = new DocumentSerializer().deserialize(is, ctx);
+        }
+
+        assertEquals(Node.DOCUMENT_FRAGMENT_NODE, result.getNodeType());
+        assertSame(document, result.getOwnerDocument());
+
+        Element a = (Element) result.getFirstChild();
+        assertSame(document, a.getOwnerDocument());
+        assertEquals("urn:p", a.getNamespaceURI());
+        assertEquals("1", a.getAttributeNS(null, "att"));
+        assertNull(a.getParentNode().getParentNode());
+
+        Element b = (Element) a.getFirstChild();
+        assertSame(document, b.getOwnerDocument());
+        assertEquals("urn:default", b.getNamespaceURI());
+        assertEquals("text", b.getTextContent());
+
+        Node comment = a.getNextSibling();
+        assertEquals(Node.COMMENT_NODE, comment.getNodeType());
+        assertEquals("tail", comment.getNextSibling().getNodeValue());
+        assertNull(comment.getNextSibling().getNextSibling());
+
+        // The fragment can be inserted into the context document
+        ctx.appendChild(result);
+        assertSame(a, ctx.getFirstChild());
+    }
+
+}
@@ -90,7 +90,7 @@ public class SignedEncryptedTest {
 
     /**
      * This test does not use the IdentityTransformer but instead it uses the DocumentSerializer
-     * which uses the DocumentBuilder to read in the decrypted content and then does a DOM2DOM copy.
+     * which uses the DocumentBuilder to read in the decrypted content and then moves the parsed nodes.
      *
      * @throws Exception
      */
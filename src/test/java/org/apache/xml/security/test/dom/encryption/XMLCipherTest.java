@@ -27,12 +27,15 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.Key;
 import java.security.KeyPairGenerator;
 import java.security.KeyPair;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
 import java.security.PublicKey;
+import java.util.Random;
 
 import javax.crypto.Cipher;
 import javax.crypto.KeyGenerator;
@@ -64,6 +67,7 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
@@ -856,6 +860,65 @@ public class XMLCipherTest {
         }
     }
 
+    /*
+     * Test streaming decryption of a CipherValue and of a CipherReference to a file
+     */
+    @org.junit.jupiter.api.Test
+    public void testDecryptToOutputStream() throws Exception {
+        if (!haveISOPadding) {
+            LOG.warn("Test testDecryptToOutputStream skipped as necessary algorithms not available");
+            return;
+        }
+
+        KeyGenerator keygen = KeyGenerator.getInstance("AES");
+        keygen.init(128);
+        Key key = keygen.generateKey();
+
+        // larger than the decryption buffer and not a multiple of the block size
+        byte[] data = new byte[100003];
+        new Random(42).nextBytes(data);
+
+        Document d = XMLUtils.newDocument();
+        cipher = XMLCipher.getInstance(XMLCipher.AES_128);
+        cipher.init(XMLCipher.ENCRYPT_MODE, key);
+        EncryptedData encryptedData;
+        try (InputStream is = new ByteArrayInputStream(data)) {
+            encryptedData = cipher.encryptData(d, null, is);
+        }
+        Element ee = cipher.martial(d, encryptedData);
+        d.appendChild(ee);
+
+        XMLCipher dcipher = XMLCipher.getInstance(XMLCipher.AES_128);
+        dcipher.init(XMLCipher.DECRYPT_MODE, key);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        dcipher.decryptToOutputStream(ee, baos);
+        assertArrayEquals(data, baos.toByteArray());
+
+        // Move the cipher text to a file and reference it
+        Element cipherValue =
+            (Element) ee.getElementsByTagNameNS(
+                EncryptionConstants.EncryptionSpecNS, EncryptionConstants._TAG_CIPHERVALUE
+            ).item(0);
+        Path cipherFile = Files.createTempFile("xmlcipher", ".bin");
+        try {
+            Files.write(cipherFile, XMLUtils.decode(cipherValue.getTextContent()));
+            Element cipherReference =
+                d.createElementNS(EncryptionConstants.EncryptionSpecNS, "xenc:CipherReference");
+            cipherReference.setAttributeNS(null, EncryptionConstants._ATT_URI, cipherFile.toUri().toString());
+            cipherValue.getParentNode().replaceChild(cipherReference, cipherValue);
+
+            dcipher = XMLCipher.getInstance(XMLCipher.AES_128);
+            dcipher.init(XMLCipher.DECRYPT_MODE, key);
+            dcipher.setSecureValidation(false);
+            baos = new ByteArrayOutputStream();
+            dcipher.decryptToOutputStream(ee, baos);
+            assertArrayEquals(data, baos.toByteArray());
+            assertArrayEquals(data, dcipher.decryptToByteArray(ee));
+        } finally {
+            Files.delete(cipherFile);
+        }
+    }
+
     @org.junit.jupiter.api.Test
     public void testEncryptedKeyWithRecipient() throws Exception {
         String filename =
@@ -48,6 +48,7 @@ import org.apache.xml.security.keys.content.x509.XMLX509IssuerSerial;
 import org.apache.xml.security.keys.content.x509.XMLX509SKI;
 import org.apache.xml.security.keys.content.x509.XMLX509SubjectName;
 import org.apache.xml.security.keys.keyresolver.KeyResolver;
+import org.apache.xml.security.keys.keyresolver.KeyResolverCache;
 import org.apache.xml.security.keys.keyresolver.KeyResolverException;
 import org.apache.xml.security.keys.keyresolver.KeyResolverSpi;
 import org.apache.xml.security.keys.keyresolver.implementations.PrivateKeyResolver;
@@ -188,6 +189,61 @@ public class KeyResolverTest {
         assertEquals(secretKey, ki.getSecretKey());
     }
 
+    /**
+     * Test that the system-wide key resolution of a KeyInfo is cached.
+     */
+    @org.junit.jupiter.api.Test
+    public void testCachedKeyResolution() throws Exception {
+        char[] pwd = "secret".toCharArray();
+        KeyStore ks = KeyStore.getInstance("JCEKS");
+        FileInputStream fis = null;
+        if (BASEDIR != null && !"".equals(BASEDIR)) {
+            fis = new FileInputStream(BASEDIR + SEP + "src/test/resources/test.jceks");
+        } else {
+            fis = new FileInputStream("src/test/resources/test.jceks");
+        }
+        ks.load(fis, pwd);
+
+        X509Certificate cert = (X509Certificate)ks.getCertificate("rsakey");
+        StorageResolver storage = new StorageResolver(new KeyStoreResolver(ks));
+        Document doc = XMLUtils.newDocument();
+
+        KeyResolverCache.setCacheSize(10);
+        try {
+            long hits = KeyResolverCache.PUBLIC_KEY.getHitCount();
+            for (int i = 0; i < 2; i++) {
+                KeyInfo ki = new KeyInfo(doc);
+                ki.addStorageResolver(storage);
+                X509Data x509data = new X509Data(doc);
+                x509data.add(new XMLX509SKI(doc, cert));
+                ki.add(x509data);
+                assertEquals(cert.getPublicKey(), ki.getPublicKey());
+            }
+            assertEquals(hits + 1, KeyResolverCache.PUBLIC_KEY.getHitCount());
+
+            // A new StorageResolver for the same KeyStore shares the entry
+            KeyInfo ki = new KeyInfo(doc);
+            ki.addStorageResolver(new StorageResolver(new KeyStoreResolver(ks)));
+            X509Data x509data = new X509Data(doc);
+            x509data.add(new XMLX509SKI(doc, cert));
+            ki.add(x509data);
+            assertEquals(cert.getPublicKey(), ki.getPublicKey());
+            assertEquals(hits + 2, KeyResolverCache.PUBLIC_KEY.getHitCount());
+
+            // A storage from which the certificate was removed is not answered from the cache
+            ks.deleteEntry("rsakey");
+            ki = new KeyInfo(doc);
+            ki.addStorageResolver(storage);
+            x509data = new X509Data(doc);
+            x509data.add(new XMLX509SKI(doc, cert));
+            ki.add(x509data);
+            assertNull(ki.getPublicKey());
+            assertEquals(hits + 2, KeyResolverCache.PUBLIC_KEY.getHitCount());
+        } finally {
+            KeyResolverCache.setCacheSize(0);
+        }
+    }
+
     /**
      * Encrypt some data, embedded the data encryption key
      * in the message using the key transport algorithm rsa-1_5.
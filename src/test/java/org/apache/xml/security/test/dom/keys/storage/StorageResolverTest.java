@@ -20,15 +20,26 @@ package org.apache.xml.security.test.dom.keys.storage;
 
 
 import java.io.FileInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.KeyStore;
 import java.security.cert.X509Certificate;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
+import org.apache.xml.security.algorithms.MessageDigestAlgorithm;
+import org.apache.xml.security.exceptions.XMLSecurityException;
+import org.apache.xml.security.keys.content.x509.XMLX509Digest;
+import org.apache.xml.security.keys.content.x509.XMLX509SKI;
 import org.apache.xml.security.keys.storage.StorageResolver;
+import org.apache.xml.security.keys.storage.implementations.WatchedCertsInFilesystemDirectoryResolver;
+import org.apache.xml.security.utils.RFC2253Parser;
+import org.junit.jupiter.api.io.TempDir;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.fail;
 
 
@@ -41,6 +52,9 @@ public class StorageResolverTest {
         System.getProperty("basedir") == null ? "./": System.getProperty("basedir");
     private static final String SEP = System.getProperty("file.separator");
 
+    @TempDir
+    public Path tempDir;
+
     @org.junit.jupiter.api.Test
     public void testStorageResolver() throws Exception {
 
@@ -88,6 +102,127 @@ public class StorageResolverTest {
         assertFalse(iter2.hasNext());
     }
 
+    @org.junit.jupiter.api.Test
+    public void testIndexedLookups() throws Exception {
+        org.apache.xml.security.Init.init();
+
+        String inputDir = BASEDIR + SEP + "src/test/resources" + SEP
+            + "org" + SEP + "apache" + SEP + "xml" + SEP + "security" + SEP
+            + "samples" + SEP + "input";
+
+        FileInputStream inStream = new FileInputStream(inputDir + SEP + "keystore.jks");
+        KeyStore ks = KeyStore.getInstance("JKS");
+        ks.load(inStream, "xmlsecurity".toCharArray());
+
+        FileInputStream inStream2 = new FileInputStream(inputDir + SEP + "keystore2.jks");
+        KeyStore ks2 = KeyStore.getInstance("JCEKS");
+        ks2.load(inStream2, "xmlsecurity".toCharArray());
+
+        StorageResolver storage = new StorageResolver(ks);
+        Iterator<?> iter = new StorageResolver(ks2).getIterator();
+        X509Certificate addedCert = (X509Certificate) iter.next();
+        assertNull(storage.getX509CertificateBySubjectName(
+            RFC2253Parser.normalize(addedCert.getSubjectX500Principal().getName())));
+
+        // The index must be rebuilt when the KeyStore changes
+        ks.setCertificateEntry("added", addedCert);
+
+        iter = storage.getIterator();
+        while (iter.hasNext()) {
+            X509Certificate cert = (X509Certificate) iter.next();
+            assertEquals(cert, storage.getX509CertificateByIssuerSerial(
+                RFC2253Parser.normalize(cert.getIssuerX500Principal().getName()), cert.getSerialNumber()));
+            assertEquals(cert.getSubjectX500Principal(), storage.getX509CertificateBySubjectName(
+                RFC2253Parser.normalize(cert.getSubjectX500Principal().getName())).getSubjectX500Principal());
+            assertEquals(cert, storage.getX509CertificateByDigest(MessageDigestAlgorithm.ALGO_ID_DIGEST_SHA256,
+                XMLX509Digest.getDigestBytesFromCert(cert, MessageDigestAlgorithm.ALGO_ID_DIGEST_SHA256)));
+            try {
+                byte[] ski = XMLX509SKI.getSKIBytesFromCert(cert);
+                assertEquals(cert.getSubjectX500Principal(),
+                    storage.getX509CertificateBySKI(ski).getSubjectX500Principal());
+            } catch (XMLSecurityException ex) {
+                // no SKI
+            }
+        }
+        assertNull(storage.getX509CertificateBySKI(new byte[] {1, 2, 3}));
+    }
+
+    @org.junit.jupiter.api.Test
+    public void testReplacedKeyStoreCertificate() throws Exception {
+        String inputDir = BASEDIR + SEP + "src/test/resources" + SEP
+            + "org" + SEP + "apache" + SEP + "xml" + SEP + "security" + SEP
+            + "samples" + SEP + "input";
+
+        FileInputStream inStream = new FileInputStream(inputDir + SEP + "keystore2.jks");
+        KeyStore ks2 = KeyStore.getInstance("JCEKS");
+        ks2.load(inStream, "xmlsecurity".toCharArray());
+        X509Certificate cert = (X509Certificate) ks2.getCertificate("testcert");
+        X509Certificate cert2 = (X509Certificate) ks2.getCertificate("testcacert");
+        String subjectName = RFC2253Parser.normalize(cert.getSubjectX500Principal().getName());
+        String subjectName2 = RFC2253Parser.normalize(cert2.getSubjectX500Principal().getName());
+
+        KeyStore ks = KeyStore.getInstance("JKS");
+        ks.load(null, null);
+        ks.setCertificateEntry("trusted", cert);
+        StorageResolver storage = new StorageResolver(ks);
+        assertEquals(cert, storage.getX509CertificateBySubjectName(subjectName));
+        assertNull(storage.getX509CertificateBySubjectName(subjectName2));
+
+        // Replace the certificate of the alias, the size of the KeyStore stays the same,
+        // so the storage has to be refreshed
+        ks.setCertificateEntry("trusted", cert2);
+        storage.refresh();
+        assertNull(storage.getX509CertificateBySubjectName(subjectName));
+        assertNull(storage.getX509CertificateByIssuerSerial(
+            RFC2253Parser.normalize(cert.getIssuerX500Principal().getName()), cert.getSerialNumber()));
+        assertEquals(cert2, storage.getX509CertificateBySubjectName(subjectName2));
+
+        // Exchange the entry for one with another alias
+        ks.deleteEntry("trusted");
+        ks.setCertificateEntry("other", cert);
+        storage.refresh();
+        assertEquals(cert, storage.getX509CertificateBySubjectName(subjectName));
+        assertNull(storage.getX509CertificateBySubjectName(subjectName2));
+
+        // Adding an entry changes the size and is detected without a refresh
+        ks.setCertificateEntry("trusted", cert2);
+        assertEquals(cert2, storage.getX509CertificateBySubjectName(subjectName2));
+    }
+
+    @org.junit.jupiter.api.Test
+    public void testWatchedCertificateDirectory() throws Exception {
+        String inputDir = BASEDIR + SEP + "src/test/resources" + SEP
+            + "org" + SEP + "apache" + SEP + "xml" + SEP + "security" + SEP
+            + "samples" + SEP + "input";
+
+        FileInputStream inStream = new FileInputStream(inputDir + SEP + "keystore2.jks");
+        KeyStore ks = KeyStore.getInstance("JCEKS");
+        ks.load(inStream, "xmlsecurity".toCharArray());
+        X509Certificate cert = (X509Certificate) ks.getCertificate("testcert");
+        X509Certificate cert2 = (X509Certificate) ks.getCertificate("testcacert");
+        String subjectName2 = RFC2253Parser.normalize(cert2.getSubjectX500Principal().getName());
+
+        Files.write(tempDir.resolve("testcert.crt"), cert.getEncoded());
+        try (WatchedCertsInFilesystemDirectoryResolver resolver =
+            new WatchedCertsInFilesystemDirectoryResolver(tempDir.toString())) {
+            StorageResolver storage = new StorageResolver(resolver);
+            assertEquals(1, resolver.size());
+            assertNull(storage.getX509CertificateBySubjectName(subjectName2));
+
+            Files.write(tempDir.resolve("testcacert.crt"), cert2.getEncoded());
+            for (int i = 0; i < 300 && resolver.size() < 2; i++) {
+                Thread.sleep(100);
+            }
+            assertNotNull(storage.getX509CertificateBySubjectName(subjectName2));
+
+            Files.delete(tempDir.resolve("testcacert.crt"));
+            for (int i = 0; i < 300 && resolver.size() > 1; i++) {
+                Thread.sleep(100);
+            }
+            assertNull(storage.getX509CertificateBySubjectName(subjectName2));
+        }
+    }
+
     private void checkIterator(Iterator<?> iter) {
         int count = 0;
         iter.hasNext(); // hasNext() is idempotent
@@ -26,6 +26,8 @@ import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.xml.crypto.dsig.DigestMethod;
 import javax.xml.parsers.ParserConfigurationException;
@@ -191,6 +193,59 @@ public class SignatureReferenceTest {
         assertFalse(verifiedReferences.get(0).getManifestReferences().get(0).isValid());
     }
 
+    @org.junit.jupiter.api.Test
+    public void testConcurrentReferenceVerification() throws Throwable {
+        Document doc = getOriginalDocument();
+        Element root = doc.getDocumentElement();
+        XMLSignature sig = new XMLSignature(doc, "", XMLSignature.ALGO_ID_SIGNATURE_DSA);
+        root.appendChild(sig.getElement());
+
+        for (int i = 0; i < 8; i++) {
+            Element data = doc.createElementNS("http://ns.example.org/", "data");
+            data.setAttributeNS(null, "Id", "data-" + i);
+            data.setIdAttributeNS(null, "Id", true);
+            data.appendChild(doc.createTextNode("Some data " + i));
+            root.appendChild(data);
+
+            Transforms transforms = new Transforms(doc);
+            transforms.addTransform(Transforms.TRANSFORM_C14N_EXCL_OMIT_COMMENTS);
+            sig.addDocument("#data-" + i, transforms, Constants.ALGO_ID_DIGEST_SHA1);
+        }
+        sig.sign(getPrivateKey());
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            XMLSignature signatureToVerify = new XMLSignature(sig.getElement(), "");
+            signatureToVerify.getSignedInfo().setVerificationExecutor(executor);
+            assertTrue(signatureToVerify.checkSignatureValue(getPublicKey()));
+
+            List<VerifiedReference> verifiedReferences =
+                signatureToVerify.getSignedInfo().getVerificationResults();
+            assertEquals(8, verifiedReferences.size());
+            for (int i = 0; i < 8; i++) {
+                assertEquals("#data-" + i, verifiedReferences.get(i).getUri());
+                assertTrue(verifiedReferences.get(i).isValid());
+            }
+
+            // Modify one of the referenced elements
+            root.getElementsByTagNameNS("http://ns.example.org/", "data").item(5)
+                .appendChild(doc.createTextNode("Modified"));
+
+            signatureToVerify = new XMLSignature(sig.getElement(), "");
+            signatureToVerify.getSignedInfo().setVerificationExecutor(executor);
+            assertFalse(signatureToVerify.checkSignatureValue(getPublicKey()));
+
+            verifiedReferences = signatureToVerify.getSignedInfo().getVerificationResults();
+            assertEquals(8, verifiedReferences.size());
+            for (int i = 0; i < 8; i++) {
+                // only the modified Reference is invalid, even if the others were skipped
+                assertEquals(i != 5, verifiedReferences.get(i).isValid());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     /**
      * Loads the 'localhost' keystore from the test keystore.
      *
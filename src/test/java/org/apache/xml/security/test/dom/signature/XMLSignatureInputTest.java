@@ -23,11 +23,18 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Random;
 
 import org.apache.xml.security.c14n.CanonicalizationException;
 import org.apache.xml.security.c14n.InvalidCanonicalizerException;
 import org.apache.xml.security.signature.XMLSignatureInput;
+import org.apache.xml.security.utils.BufferedDigesterOutputStream;
+import org.junit.jupiter.api.io.TempDir;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -42,6 +49,9 @@ public class XMLSignatureInputTest {
     static org.slf4j.Logger LOG =
         org.slf4j.LoggerFactory.getLogger(XMLSignatureInputTest.class);
 
+    @TempDir
+    public Path tempDir;
+
     static final String _octetStreamTextInput = "Kleiner Test";
     static final String _nodeSetInput1 =
         "<?xml version=\"1.0\"?>\n"
@@ -141,4 +151,34 @@ public class XMLSignatureInputTest {
         }
     }
 
+    @org.junit.jupiter.api.Test
+    public void testFileInput() throws Exception {
+        byte[] content = new byte[100 * 1024 + 17];
+        new Random(42).nextBytes(content);
+        Path file = tempDir.resolve("octets.bin");
+        Files.write(file, content);
+
+        XMLSignatureInput input = new XMLSignatureInput(file);
+        assertTrue(input.isOctetStream(), "Input is octet stream");
+        assertFalse(input.isNodeSet(), "Input is not node set");
+        assertTrue(input.toString().contains("/" + content.length + " octets/"));
+
+        // digested from the mapped file
+        MessageDigest expected = MessageDigest.getInstance("SHA-256");
+        BufferedDigesterOutputStream os = new BufferedDigesterOutputStream(MessageDigest.getInstance("SHA-256"));
+        input.updateOutputStream(os);
+        assertArrayEquals(expected.digest(content), os.getDigestValue());
+        input.getOctetStreamReal().close();
+
+        // copied to any other stream
+        input = new XMLSignatureInput(file);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        input.updateOutputStream(baos);
+        assertArrayEquals(content, baos.toByteArray());
+        input.getOctetStreamReal().close();
+
+        input = new XMLSignatureInput(file);
+        assertArrayEquals(content, input.getBytes());
+    }
+
 }
@@ -33,6 +33,8 @@ import org.apache.xml.security.utils.XMLUtils;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
 public class TransformXSLTTest {
 
     private static final String BASEDIR =
@@ -83,6 +85,37 @@ public class TransformXSLTTest {
         transform.performTransform(new XMLSignatureInput(doc2));
     }
 
+    /**
+     * The output of a repeated transform, which uses the cached stylesheet, must not change.
+     */
+    @org.junit.jupiter.api.Test
+    public void testRepeatedTransform() throws Exception {
+        File file1 = new File(BASEDIR + SEP + SOURCE_PATH, SIGNATURE_FILE);
+        File file2 = new File(BASEDIR + SEP + SOURCE_PATH, STYLESHEET_FILE);
+
+        byte[] expected = null;
+        for (int i = 0; i < 3; i++) {
+            Document doc1 = getDocument(file1);
+            Document doc2 = getDocument(file2);
+
+            XPathFactory xpf = XPathFactory.newInstance();
+            XPath xpath = xpf.newXPath();
+            xpath.setNamespaceContext(new DSNamespaceContext());
+
+            Element transformEl =
+                (Element) xpath.evaluate("//ds:Transform[1]", doc1, XPathConstants.NODE);
+
+            Transform transform =
+                new Transform(doc1, Transforms.TRANSFORM_XSLT, transformEl.getChildNodes());
+
+            byte[] output = transform.performTransform(new XMLSignatureInput(doc2)).getBytes();
+            if (expected == null) {
+                expected = output;
+            }
+            assertArrayEquals(expected, output);
+        }
+    }
+
     private static Document getDocument(File file) throws Exception {
         return XMLUtils.read(new FileInputStream(file), false);
     }
@@ -0,0 +1,93 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.test.dom.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.apache.xml.security.exceptions.Base64DecodingException;
+import org.apache.xml.security.utils.Base64;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks the deprecated Base64 codec against java.util.Base64
+ */
+@SuppressWarnings("deprecation")
+public class Base64Test {
+
+    private static final int[] SIZES = {0, 1, 2, 3, 57, 58, 6143, 6144, 6145, 100001};
+
+    @Test
+    public void testEncodeMatchesJdk() {
+        Random random = new Random(42);
+        for (int size : SIZES) {
+            byte[] data = new byte[size];
+            random.nextBytes(data);
+
+            assertEquals(java.util.Base64.getMimeEncoder().encodeToString(data), Base64.encode(data, 76));
+            assertEquals(java.util.Base64.getEncoder().encodeToString(data), Base64.encode(data, 0));
+            assertEquals(java.util.Base64.getMimeEncoder(64, new byte[] {'\r', '\n'}).encodeToString(data),
+                         Base64.encode(data, 64));
+        }
+    }
+
+    @Test
+    public void testDecodeMatchesJdk() throws Exception {
+        Random random = new Random(42);
+        for (int size : SIZES) {
+            byte[] data = new byte[size];
+            random.nextBytes(data);
+            String encoded = java.util.Base64.getMimeEncoder().encodeToString(data).replace("\r\n", "\n \t");
+
+            assertArrayEquals(data, Base64.decode(encoded));
+            assertArrayEquals(data, Base64.decode(encoded.getBytes(StandardCharsets.US_ASCII)));
+
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            Base64.decode(encoded, os);
+            assertArrayEquals(data, os.toByteArray());
+
+            os = new ByteArrayOutputStream();
+            Base64.decode(new ByteArrayInputStream(encoded.getBytes(StandardCharsets.US_ASCII)), os);
+            assertArrayEquals(data, os.toByteArray());
+        }
+    }
+
+    @Test
+    public void testDecodeStreamIgnoresDataAfterPad() throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        Base64.decode(new ByteArrayInputStream("QUJDRA==\nQUJD".getBytes(StandardCharsets.US_ASCII)), os);
+        assertArrayEquals("ABCD".getBytes(StandardCharsets.US_ASCII), os.toByteArray());
+    }
+
+    @Test
+    public void testIllegalData() {
+        String[] illegal = {"QQ", "QQ=A", "QR==", "QUJ=", "Q===", "QQ==QUJD", "QU!D", "QUJ\u00e9", "QUJ\u0141"};
+        for (String encoded : illegal) {
+            assertThrows(Base64DecodingException.class, () -> Base64.decode(encoded), encoded);
+            assertThrows(Base64DecodingException.class,
+                () -> Base64.decode(encoded, new ByteArrayOutputStream()), encoded);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.test.dom.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Random;
+
+import org.apache.xml.security.utils.BufferedDigesterOutputStream;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * Test that BufferedDigesterOutputStream computes the same digest as MessageDigest
+ * for a mix of single byte, small and large writes.
+ */
+public class BufferedDigesterOutputStreamTest {
+
+    @Test
+    public void testMixedWrites() throws Exception {
+        byte[] data = new byte[100000];
+        new Random(42).nextBytes(data);
+
+        BufferedDigesterOutputStream os =
+            new BufferedDigesterOutputStream(MessageDigest.getInstance("SHA-256"), 64);
+        int offset = 0;
+        int chunk = 0;
+        while (offset < data.length) {
+            int len = Math.min(chunk, data.length - offset);
+            if (len == 0) {
+                os.write(data[offset]);
+                offset++;
+            } else {
+                os.write(data, offset, len);
+                offset += len;
+            }
+            chunk = (chunk + 7) % 200;
+        }
+
+        byte[] expected = MessageDigest.getInstance("SHA-256").digest(data);
+        assertArrayEquals(expected, os.getDigestValue());
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        BufferedDigesterOutputStream os =
+            new BufferedDigesterOutputStream(MessageDigest.getInstance("SHA-256"));
+        os.write("".getBytes(StandardCharsets.UTF_8));
+        byte[] expected = MessageDigest.getInstance("SHA-256").digest();
+        assertArrayEquals(expected, os.getDigestValue());
+    }
+
+}
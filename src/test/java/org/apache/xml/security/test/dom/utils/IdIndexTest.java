@@ -0,0 +1,138 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.test.dom.utils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.xml.security.Init;
+import org.apache.xml.security.algorithms.MessageDigestAlgorithm;
+import org.apache.xml.security.signature.XMLSignature;
+import org.apache.xml.security.signature.XMLSignatureException;
+import org.apache.xml.security.utils.IdIndex;
+import org.apache.xml.security.utils.XMLUtils;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the ID index shared by the same-document references of a signature
+ */
+public class IdIndexTest {
+
+    static {
+        Init.init();
+    }
+
+    private static final String XML =
+        "<root><a Id=\"one\"/><a Id=\"two\"><b Id=\"three\" Other=\"three\"/></a>"
+        + "<a Id=\"two\"/><a Id=\"four\"/></root>";
+
+    @Test
+    public void testSameResultsAsTreeWalk() throws Exception {
+        Document doc = parse(XML);
+        NodeList elements = doc.getElementsByTagName("*");
+        for (int i = 0; i < elements.getLength(); i++) {
+            Element element = (Element) elements.item(i);
+            if (element.hasAttribute("Id")) {
+                element.setIdAttribute("Id", true);
+            }
+            if (element.hasAttribute("Other")) {
+                element.setIdAttribute("Other", true);
+            }
+        }
+
+        assertNull(IdIndex.getInstance(doc));
+        IdIndex.attach(doc);
+        IdIndex index = IdIndex.getInstance(doc);
+        // a nested operation shares the index, and does not remove it when it is done
+        IdIndex.attach(doc);
+        assertSame(index, IdIndex.getInstance(doc));
+        IdIndex.detach(doc);
+        assertSame(index, IdIndex.getInstance(doc));
+
+        Element start = doc.getDocumentElement();
+        for (String id : new String[] {"one", "two", "three", "four", "five", " #one "}) {
+            assertEquals(XMLUtils.protectAgainstWrappingAttack(start, id), index.isUnique(id), id);
+            for (int i = 0; i < elements.getLength(); i++) {
+                Element element = (Element) elements.item(i);
+                assertEquals(XMLUtils.protectAgainstWrappingAttack(start, element, id),
+                             index.isUnique(element, id), id);
+            }
+        }
+        assertSame(elements.item(1), index.getElementById("one"));
+        assertSame(elements.item(2), index.getElementById("two"));
+        assertNull(index.getElementById("five"));
+
+        IdIndex.detach(doc);
+        assertNull(IdIndex.getInstance(doc));
+    }
+
+    @Test
+    public void testSecureValidationOfManyReferences() throws Exception {
+        StringBuilder xml = new StringBuilder(200 * 40);
+        xml.append("<root>");
+        for (int i = 0; i < 200; i++) {
+            xml.append("<data Id=\"data-").append(i).append("\">").append(i).append("</data>");
+        }
+        xml.append("</root>");
+        Document doc = parse(xml.toString());
+        Element root = doc.getDocumentElement();
+        for (Element data = XMLUtils.getNextElement(root.getFirstChild()); data != null;
+            data = XMLUtils.getNextElement(data.getNextSibling())) {
+            data.setIdAttributeNS(null, "Id", true);
+        }
+
+        SecretKey key = new SecretKeySpec(new byte[32], "HmacSHA256");
+        XMLSignature signature =
+            new XMLSignature(doc, null, XMLSignature.ALGO_ID_MAC_HMAC_SHA256);
+        root.appendChild(signature.getElement());
+        // secure validation allows at most 30 references
+        for (int i = 0; i < 30; i++) {
+            signature.addDocument("#data-" + i * 5, null, MessageDigestAlgorithm.ALGO_ID_DIGEST_SHA256);
+        }
+        signature.sign(key);
+        assertNull(IdIndex.getInstance(doc));
+
+        XMLSignature verifier = new XMLSignature(signature.getElement(), null, true);
+        assertTrue(verifier.checkSignatureValue(key));
+        assertNull(IdIndex.getInstance(doc));
+
+        // a second element with one of the referenced IDs must be detected
+        Element copy = (Element) root.getFirstChild().cloneNode(true);
+        root.insertBefore(copy, signature.getElement());
+        copy.setIdAttributeNS(null, "Id", true);
+        XMLSignature wrapped = new XMLSignature(signature.getElement(), null, true);
+        assertThrows(XMLSignatureException.class, () -> wrapped.checkSignatureValue(key));
+    }
+
+    private static Document parse(String xml) throws Exception {
+        return XMLUtils.read(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), false);
+    }
+}
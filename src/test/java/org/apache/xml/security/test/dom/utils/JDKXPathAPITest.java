@@ -0,0 +1,64 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.test.dom.utils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.xml.security.utils.JDKXPathAPI;
+import org.apache.xml.security.utils.XMLUtils;
+import org.apache.xml.security.utils.XPathAPI;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the shared compiled expression cache of JDKXPathAPI
+ */
+public class JDKXPathAPITest {
+
+    private static final String XPATH = "count(//p:a) = 2";
+
+    @Test
+    public void testCachedExpressions() throws Exception {
+        Document doc = parse("<root xmlns:p=\"urn:a\"><p:a/><p:a/><b xmlns=\"urn:b\"/></root>");
+        Document otherBindings = parse("<root xmlns:p=\"urn:b\"><p:a/><a xmlns=\"urn:a\"/></root>");
+
+        XPathAPI xpathAPI = new JDKXPathAPI();
+        assertTrue(xpathAPI.evaluate(doc, null, XPATH, doc.getDocumentElement()));
+
+        long hits = JDKXPathAPI.getCacheHitCount();
+        XPathAPI otherXPathAPI = new JDKXPathAPI();
+        assertTrue(otherXPathAPI.evaluate(doc, null, XPATH, doc.getDocumentElement()));
+        assertEquals(hits + 1, JDKXPathAPI.getCacheHitCount());
+
+        // The same expression with other namespace bindings must not be taken from the cache
+        assertFalse(otherXPathAPI.evaluate(
+            otherBindings, null, XPATH, otherBindings.getDocumentElement()));
+        assertEquals(1, otherXPathAPI.selectNodeList(
+            otherBindings, null, "//p:a", otherBindings.getDocumentElement()).getLength());
+    }
+
+    private static Document parse(String xml) throws Exception {
+        return XMLUtils.read(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), false);
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.xml.security.test.dom.utils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.xml.security.utils.SubtreeNodeSet;
+import org.apache.xml.security.utils.XMLUtils;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that SubtreeNodeSet holds the same nodes, in the same order, as XMLUtils.getSet
+ */
+public class SubtreeNodeSetTest {
+
+    private static final String XML =
+        "<!DOCTYPE root [<!ATTLIST b id ID #IMPLIED>]>"
+        + "<!--before--><root xmlns=\"urn:a\" xmlns:p=\"urn:p\" a=\"1\">"
+        + "<!--c1-->text<![CDATA[cdata]]><b id=\"x\" p:c=\"2\">b<c/><!--c2--></b>"
+        + "<?pi data?><d><e>e</e></d>tail</root><?after?>";
+
+    @Test
+    public void testSameNodesAsGetSet() throws Exception {
+        Document doc = XMLUtils.read(new ByteArrayInputStream(XML.getBytes(StandardCharsets.UTF_8)), false);
+        Element root = doc.getDocumentElement();
+        // adjacent text nodes only count once
+        root.appendChild(doc.createTextNode("more"));
+        root.appendChild(doc.createTextNode("text"));
+        Node b = root.getElementsByTagNameNS("urn:a", "b").item(0);
+        Node d = root.getElementsByTagNameNS("urn:a", "d").item(0);
+
+        Node[] roots = {doc, root, b, d, b.getFirstChild(), b.getAttributes().item(0)};
+        Node[] excludes = {null, b, d, root};
+        for (Node subtreeRoot : roots) {
+            for (Node exclude : excludes) {
+                for (boolean comments : new boolean[] {true, false}) {
+                    Set<Node> expected = new LinkedHashSet<>();
+                    XMLUtils.getSet(subtreeRoot, expected, exclude, comments);
+                    Set<Node> actual = new SubtreeNodeSet(subtreeRoot, exclude, comments);
+
+                    assertEquals(new ArrayList<>(expected), new ArrayList<>(actual));
+                    assertEquals(expected.size(), actual.size());
+                    for (Node node : allNodes(doc)) {
+                        assertEquals(expected.contains(node), actual.contains(node), String.valueOf(node));
+                    }
+                }
+            }
+        }
+    }
+
+    private static List<Node> allNodes(Node node) {
+        List<Node> result = new ArrayList<>();
+        result.add(node);
+        NamedNodeMap attributes = node.getAttributes();
+        if (attributes != null) {
+            for (int i = 0; i < attributes.getLength(); i++) {
+                result.add(attributes.item(i));
+            }
+        }
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            result.addAll(allNodes(child));
+        }
+        return result;
+    }
+}
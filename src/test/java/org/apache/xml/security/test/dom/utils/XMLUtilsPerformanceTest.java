@@ -19,6 +19,11 @@
 package org.apache.xml.security.test.dom.utils;
 
 import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilder;
@@ -26,11 +31,15 @@ import javax.xml.parsers.DocumentBuilderFactory;
 
 import org.apache.xml.security.utils.XMLUtils;
 import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
 import org.xml.sax.InputSource;
 
 import com.carrotsearch.junitbenchmarks.AbstractBenchmark;
 import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 /**
  * Some benchmark tests for the caching logic in XMLUtils
  */
@@ -43,6 +52,28 @@ public class XMLUtilsPerformanceTest extends AbstractBenchmark {
         XMLUtils.read(inputSource, false);
     }
 
+    @BenchmarkOptions(callgc = false, benchmarkRounds = 1, warmupRounds = 0)
+    @Test
+    public void testXMLUtilsConcurrent() throws Exception {
+        long hits = XMLUtils.getDocumentBuilderPoolHitCount();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Document>> futures = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                futures.add(executor.submit(() -> {
+                    InputSource inputSource = new InputSource(new StringReader("<xml>123</xml>"));
+                    return XMLUtils.read(inputSource, true);
+                }));
+            }
+            for (Future<Document> future : futures) {
+                assertEquals("123", future.get().getDocumentElement().getTextContent());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(XMLUtils.getDocumentBuilderPoolHitCount() > hits);
+    }
+
     @BenchmarkOptions(callgc = false, benchmarkRounds = 100000, warmupRounds = 100)
     @Test
     public void testCreateDocumentBuilder() throws Exception {
@@ -21,6 +21,7 @@ package org.apache.xml.security.test.stax.encryption;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.security.KeyPair;
@@ -31,7 +32,11 @@ import java.security.PublicKey;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import javax.crypto.Cipher;
 import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
 import javax.crypto.SecretKeyFactory;
@@ -47,6 +52,7 @@ import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathFactory;
 
+import org.apache.xml.security.algorithms.JCEMapper;
 import org.apache.xml.security.encryption.EncryptedData;
 import org.apache.xml.security.encryption.EncryptedKey;
 import org.apache.xml.security.encryption.XMLCipher;
@@ -57,6 +63,7 @@ import org.apache.xml.security.stax.ext.InboundXMLSec;
 import org.apache.xml.security.stax.ext.XMLSec;
 import org.apache.xml.security.stax.ext.XMLSecurityConstants;
 import org.apache.xml.security.stax.ext.XMLSecurityProperties;
+import org.apache.xml.security.stax.impl.processor.input.XMLDecryptInputProcessor;
 import org.apache.xml.security.stax.securityEvent.AlgorithmSuiteSecurityEvent;
 import org.apache.xml.security.stax.securityEvent.ContentEncryptedElementSecurityEvent;
 import org.apache.xml.security.stax.securityEvent.DefaultTokenSecurityEvent;
@@ -74,6 +81,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.w3c.dom.*;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -332,6 +340,191 @@ public class DecryptionTest {
                 securityEventListener, "http://www.w3.org/2001/04/xmlenc#tripledes-cbc", null);
     }
 
+    @Test
+    public void testDecryptMultipleElementsUsingExecutor() throws Exception {
+        // Read in plaintext document
+        InputStream sourceDocument =
+                this.getClass().getClassLoader().getResourceAsStream(
+                        "ie/baltimore/merlin-examples/merlin-xmlenc-five/plaintext.xml");
+        Document document = XMLUtils.read(sourceDocument, false);
+
+        // Set up the Key
+        SecretKey secretKey = generateSecretKey();
+
+        // Encrypt using DOM
+        List<String> localNames = new ArrayList<>();
+        localNames.add("PaymentInfo");
+        localNames.add("ShippingAddress");
+        encryptUsingDOM(
+            "http://www.w3.org/2001/04/xmlenc#tripledes-cbc", secretKey, null, null, document,
+            localNames, false
+        );
+
+        // Convert Document to a Stream Reader
+        javax.xml.transform.Transformer transformer = transformerFactory.newTransformer();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        transformer.transform(new DOMSource(document), new StreamResult(baos));
+
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 3; i++) {
+                XMLStreamReader xmlStreamReader = null;
+                try (InputStream is = new ByteArrayInputStream(baos.toByteArray())) {
+                   xmlStreamReader = xmlInputFactory.createXMLStreamReader(is);
+                }
+
+                // Decrypt
+                XMLSecurityProperties properties = new XMLSecurityProperties();
+                properties.setDecryptionKey(secretKey);
+                properties.setDecryptionExecutor(executorService);
+                properties.setDecryptionPipeBufferSize(128);
+                InboundXMLSec inboundXMLSec = XMLSec.getInboundWSSec(properties);
+                TestSecurityEventListener securityEventListener = new TestSecurityEventListener();
+                XMLStreamReader securityStreamReader =
+                        inboundXMLSec.processInMessage(xmlStreamReader, null, securityEventListener);
+
+                Document decryptedDocument = StAX2DOM.readDoc(securityStreamReader);
+
+                // Check the CreditCard decrypted ok
+                NodeList nodeList = decryptedDocument.getElementsByTagNameNS("urn:example:po", "CreditCard");
+                assertEquals(nodeList.getLength(), 1);
+
+                // Check the ShippingAddress decrypted ok
+                nodeList = decryptedDocument.getElementsByTagNameNS("urn:example:po", "ShippingAddress");
+                assertEquals(nodeList.getLength(), 1);
+
+                checkMultipleEncryptedElementSecurityEvents(securityEventListener);
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void testInvalidDecryptionPipeBufferSize() throws Exception {
+        XMLSecurityProperties properties = new XMLSecurityProperties();
+        for (int size : new int[] {0, -1}) {
+            try {
+                properties.setDecryptionPipeBufferSize(size);
+                fail("Failure expected on a pipe buffer size of " + size);
+            } catch (IllegalArgumentException ex) {
+                assertEquals(8192 * 5, properties.getDecryptionPipeBufferSize());
+            }
+        }
+        properties.setDecryptionPipeBufferSize(1);
+        assertEquals(1, properties.getDecryptionPipeBufferSize());
+    }
+
+    @Test
+    public void testDecryptMultipleElementsInCallingThread() throws Exception {
+        String[] algorithms = {
+            "http://www.w3.org/2001/04/xmlenc#aes128-cbc",
+            "http://www.w3.org/2009/xmlenc11#aes128-gcm",
+        };
+        for (String algorithm : algorithms) {
+            // Read in plaintext document
+            InputStream sourceDocument =
+                    this.getClass().getClassLoader().getResourceAsStream(
+                            "ie/baltimore/merlin-examples/merlin-xmlenc-five/plaintext.xml");
+            Document document = XMLUtils.read(sourceDocument, false);
+
+            // Set up the Key
+            KeyGenerator keygen = KeyGenerator.getInstance("AES");
+            keygen.init(128);
+            SecretKey secretKey = keygen.generateKey();
+
+            // Encrypt using DOM
+            List<String> localNames = new ArrayList<>();
+            localNames.add("PaymentInfo");
+            localNames.add("ShippingAddress");
+            encryptUsingDOM(algorithm, secretKey, null, null, document, localNames, false);
+
+            // Check the CreditCard encrypted ok
+            NodeList nodeList = document.getElementsByTagNameNS("urn:example:po", "CreditCard");
+            assertEquals(nodeList.getLength(), 0);
+
+            // Convert Document to a Stream Reader
+            javax.xml.transform.Transformer transformer = transformerFactory.newTransformer();
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            transformer.transform(new DOMSource(document), new StreamResult(baos));
+
+            XMLStreamReader xmlStreamReader = null;
+            try (InputStream is = new ByteArrayInputStream(baos.toByteArray())) {
+               xmlStreamReader = xmlInputFactory.createXMLStreamReader(is);
+            }
+
+            // Decrypt
+            XMLSecurityProperties properties = new XMLSecurityProperties();
+            properties.setDecryptionKey(secretKey);
+            properties.setDecryptInCallingThread(true);
+            InboundXMLSec inboundXMLSec = XMLSec.getInboundWSSec(properties);
+            TestSecurityEventListener securityEventListener = new TestSecurityEventListener();
+            XMLStreamReader securityStreamReader =
+                    inboundXMLSec.processInMessage(xmlStreamReader, null, securityEventListener);
+
+            document = StAX2DOM.readDoc(securityStreamReader);
+
+            // Check the CreditCard decrypted ok
+            nodeList = document.getElementsByTagNameNS("urn:example:po", "CreditCard");
+            assertEquals(nodeList.getLength(), 1);
+
+            // Check the ShippingAddress decrypted ok
+            nodeList = document.getElementsByTagNameNS("urn:example:po", "ShippingAddress");
+            assertEquals(nodeList.getLength(), 1);
+
+            // Check the SecurityEvents
+            checkMultipleEncryptedElementSecurityEvents(securityEventListener);
+            checkEncryptionMethod(securityEventListener, algorithm, null);
+        }
+    }
+
+    @Test
+    public void testStreamingDecryptionOfEncryptedOctets() throws Exception {
+        String[] algorithms = {
+            "http://www.w3.org/2001/04/xmlenc#aes128-cbc",
+            "http://www.w3.org/2009/xmlenc11#aes128-gcm",
+        };
+        // larger than the copy buffer and not a multiple of the block size
+        byte[] data = new byte[100003];
+        new Random(42).nextBytes(data);
+        for (String algorithm : algorithms) {
+            // Set up the Key
+            KeyGenerator keygen = KeyGenerator.getInstance("AES");
+            keygen.init(128);
+            SecretKey secretKey = keygen.generateKey();
+
+            // Encrypt using DOM, the octets are what a CipherReference or an xop:Include points to
+            XMLCipher cipher = XMLCipher.getInstance(algorithm);
+            cipher.init(XMLCipher.ENCRYPT_MODE, secretKey);
+            EncryptedData encryptedData =
+                cipher.encryptData(XMLUtils.newDocument(), null, new ByteArrayInputStream(data));
+            byte[] encryptedOctets = XMLUtils.decode(encryptedData.getCipherData().getCipherValue().getValue());
+
+            String jceName = JCEMapper.translateURItoJCEID(algorithm);
+            int ivLength = JCEMapper.getIVLengthFromURI(algorithm) / 8;
+
+            // Decrypt
+            ByteArrayOutputStream decrypted = new ByteArrayOutputStream();
+            StreamingDecryptInputProcessor.decryptStream(
+                new ByteArrayInputStream(encryptedOctets), decrypted, Cipher.getInstance(jceName), secretKey, ivLength);
+            assertArrayEquals(data, decrypted.toByteArray());
+
+            if (algorithm.endsWith("gcm")) {
+                // Nothing must be released if the authentication fails
+                encryptedOctets[encryptedOctets.length - 1] ^= 1;
+                decrypted = new ByteArrayOutputStream();
+                try {
+                    StreamingDecryptInputProcessor.decryptStream(
+                        new ByteArrayInputStream(encryptedOctets), decrypted, Cipher.getInstance(jceName),
+                        secretKey, ivLength);
+                    fail("Failure expected on a modified authentication tag");
+                } catch (XMLSecurityException ex) {
+                    assertEquals(0, decrypted.size());
+                }
+            }
+        }
+    }
+
     /**
      * Test encryption using a generated AES 128 bit key that is
      * encrypted using a AES 192 bit key.  Then reverse using the KEK
@@ -1983,4 +2176,19 @@ public class DecryptionTest {
         checkEncryptionMethod(
                 securityEventListener, "http://www.w3.org/2001/04/xmlenc#tripledes-cbc", null);
     }
-}
\ No newline at end of file
+
+    /**
+     * Gives the test access to the streaming decryption of AbstractDecryptInputProcessor
+     */
+    private static final class StreamingDecryptInputProcessor extends XMLDecryptInputProcessor {
+
+        private StreamingDecryptInputProcessor(XMLSecurityProperties securityProperties) throws XMLSecurityException {
+            super(securityProperties);
+        }
+
+        static void decryptStream(InputStream encryptedInputStream, OutputStream decryptedOutputStream,
+                                  Cipher cipher, Key secretKey, int ivLength) throws XMLSecurityException {
+            decrypt(encryptedInputStream, decryptedOutputStream, cipher, secretKey, ivLength);
+        }
+    }
+}
@@ -141,6 +141,63 @@ public class EncryptionCreationTest {
         assertEquals(nodeList.getLength(), 1);
     }
 
+    @Test
+    public void testEncryptionLargeContentCreation() throws Exception {
+        // Set up the Configuration
+        XMLSecurityProperties properties = new XMLSecurityProperties();
+        List<XMLSecurityConstants.Action> actions = new ArrayList<>();
+        actions.add(XMLSecurityConstants.ENCRYPT);
+        properties.setActions(actions);
+
+        // Set the key up
+        SecretKey key = generateDESSecretKey();
+        properties.setEncryptionKey(key);
+        properties.setEncryptionSymAlgorithm("http://www.w3.org/2001/04/xmlenc#tripledes-cbc");
+
+        SecurePart securePart =
+               new SecurePart(new QName("urn:example:po", "PaymentInfo"), SecurePart.Modifier.Content);
+        properties.addEncryptionPart(securePart);
+
+        OutboundXMLSec outboundXMLSec = XMLSec.getOutboundXMLSec(properties);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        XMLStreamWriter xmlStreamWriter = outboundXMLSec.processOutMessage(baos, StandardCharsets.UTF_8.name());
+
+        // Write enough elements and text to produce many chunks of cipher text
+        int count = 20000;
+        xmlStreamWriter.writeStartDocument();
+        xmlStreamWriter.writeStartElement("", "PurchaseOrder", "urn:example:po");
+        xmlStreamWriter.writeDefaultNamespace("urn:example:po");
+        xmlStreamWriter.writeStartElement("", "PaymentInfo", "urn:example:po");
+        for (int i = 0; i < count; i++) {
+            xmlStreamWriter.writeStartElement("", "CreditCard", "urn:example:po");
+            xmlStreamWriter.writeAttribute("Number", Integer.toString(i));
+            xmlStreamWriter.writeCharacters("Some credit card data " + i);
+            xmlStreamWriter.writeEndElement();
+        }
+        xmlStreamWriter.writeEndElement();
+        xmlStreamWriter.writeEndElement();
+        xmlStreamWriter.writeEndDocument();
+        xmlStreamWriter.close();
+
+        Document document = null;
+        try (InputStream is = new ByteArrayInputStream(baos.toByteArray())) {
+            document = XMLUtils.read(is, false);
+        }
+
+        // Check the CreditCards encrypted ok
+        NodeList nodeList = document.getElementsByTagNameNS("urn:example:po", "CreditCard");
+        assertEquals(nodeList.getLength(), 0);
+
+        // Decrypt using DOM API
+        Document doc =
+            decryptUsingDOM("http://www.w3.org/2001/04/xmlenc#tripledes-cbc", key, null, document);
+
+        // Check the CreditCards decrypted ok
+        nodeList = doc.getElementsByTagNameNS("urn:example:po", "CreditCard");
+        assertEquals(nodeList.getLength(), count);
+        assertEquals("Some credit card data " + (count - 1), nodeList.item(count - 1).getTextContent());
+    }
+
     @Test
     public void testEncryptRootElementInRequest() throws Exception {
         // Set up the Configuration
@@ -30,6 +30,8 @@ import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
@@ -261,6 +263,84 @@ public class SignatureVerificationTest extends AbstractSignatureVerificationTest
                 signatureSecurityEvents.size() + signedElementSecurityEvents1.size() + signedElementSecurityEvents2.size());
     }
 
+    @Test
+    public void testMultipleElementsWithDigestExecutor() throws Exception {
+        // Read in plaintext document
+        InputStream sourceDocument =
+                this.getClass().getClassLoader().getResourceAsStream(
+                        "ie/baltimore/merlin-examples/merlin-xmlenc-five/plaintext.xml");
+        Document document = XMLUtils.read(sourceDocument, false);
+
+        // Set up the Key
+        KeyStore keyStore = KeyStore.getInstance("jks");
+        keyStore.load(
+            this.getClass().getClassLoader().getResource("transmitter.jks").openStream(),
+            "default".toCharArray()
+        );
+        Key key = keyStore.getKey("transmitter", "default".toCharArray());
+        X509Certificate cert = (X509Certificate)keyStore.getCertificate("transmitter");
+
+        // Sign using DOM
+        List<String> localNames = new ArrayList<>();
+        localNames.add("PaymentInfo");
+        localNames.add("ShippingAddress");
+        XMLSignature sig = signUsingDOM(
+            "http://www.w3.org/2000/09/xmldsig#rsa-sha1", document, localNames, key
+        );
+
+        // Add KeyInfo
+        sig.addKeyInfo(cert);
+
+        // Convert Document to a Stream Reader
+        javax.xml.transform.Transformer transformer = transformerFactory.newTransformer();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        transformer.transform(new DOMSource(document), new StreamResult(baos));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            XMLStreamReader xmlStreamReader = null;
+            try (InputStream is = new ByteArrayInputStream(baos.toByteArray())) {
+               xmlStreamReader = xmlInputFactory.createXMLStreamReader(is);
+            }
+
+            // Verify signature, digesting the references on the executor
+            XMLSecurityProperties properties = new XMLSecurityProperties();
+            properties.setSignatureDigestExecutor(executor);
+            InboundXMLSec inboundXMLSec = XMLSec.getInboundWSSec(properties);
+            TestSecurityEventListener securityEventListener = new TestSecurityEventListener();
+            XMLStreamReader securityStreamReader =
+                inboundXMLSec.processInMessage(xmlStreamReader, null, securityEventListener);
+
+            StAX2DOM.readDoc(securityStreamReader);
+
+            // Check the SecurityEvents
+            checkSecurityEvents(securityEventListener);
+            checkSignedElementMultipleSecurityEvents(securityEventListener);
+            assertEquals(2, securityEventListener.getSecurityEvents(SecurityEventConstants.SignedElement).size());
+
+            // Now modify a signed element and check that the digest mismatch is detected
+            Element shippingAddress =
+                (Element)document.getElementsByTagNameNS("urn:example:po", "ShippingAddress").item(0);
+            shippingAddress.setTextContent("Dig PLC, 1 First Ave, Dublin 1, US");
+
+            baos = new ByteArrayOutputStream();
+            transformer.transform(new DOMSource(document), new StreamResult(baos));
+            try (InputStream is = new ByteArrayInputStream(baos.toByteArray())) {
+               xmlStreamReader = xmlInputFactory.createXMLStreamReader(is);
+            }
+            securityStreamReader = inboundXMLSec.processInMessage(xmlStreamReader, null, null);
+
+            try {
+                StAX2DOM.readDoc(securityStreamReader);
+                fail("Failure expected on a modified document");
+            } catch (XMLStreamException ex) {
+                assertTrue(ex.getMessage().contains("Invalid digest of reference"));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     @Test
     public void testMultipleSignatures() throws Exception {
         // Read in plaintext document